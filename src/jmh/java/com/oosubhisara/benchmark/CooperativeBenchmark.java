@@ -0,0 +1,99 @@
+package com.oosubhisara.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oosubhisara.algorithm.ConnectedComponents;
+import com.oosubhisara.algorithm.CooperativePlanner;
+import com.oosubhisara.algorithm.CornerCutting;
+import com.oosubhisara.algorithm.Neighborhood;
+import com.oosubhisara.algorithm.WalkableGrid;
+
+// Time per tick of the cooperative planner, with every agent walking to
+// a random target in its region. Agents that arrive are sent on to a new
+// target, which has everyone planned again on the next tick.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CooperativeBenchmark {
+    private static final long SEED = 42;
+
+    @Param({ "OPEN", "ROOMS", "RANDOM_10" })
+    public MapFamily family;
+
+    @Param({ "1024" })
+    public int size;
+
+    @Param({ "100", "1000", "4000" })
+    public int numAgents;
+
+    @Param({ "16" })
+    public int window;
+
+    @Param({ "FOUR" })
+    public Neighborhood neighborhood;
+
+    private WalkableGrid grid;
+    private ConnectedComponents components;
+    private CooperativePlanner planner;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.grid = this.family.generate(this.size, SEED);
+        this.components = new ConnectedComponents(this.grid,
+                this.neighborhood, CornerCutting.FORBID);
+        this.planner = new CooperativePlanner(this.grid, this.neighborhood,
+                CornerCutting.FORBID, this.window);
+        this.random = new Random(SEED);
+
+        while (this.planner.getNumAgents() < this.numAgents) {
+            int start = randomWalkableCell();
+            if (this.planner.getAgentAt(start) == CooperativePlanner.NONE) {
+                this.planner.addAgent(start, randomTarget(start));
+            }
+        }
+    }
+
+    private int randomWalkableCell() {
+        while (true) {
+            int row = this.random.nextInt(this.grid.getNumRows());
+            int column = this.random.nextInt(this.grid.getNumColumns());
+            if (this.grid.isWalkable(row, column)) {
+                return this.grid.index(row, column);
+            }
+        }
+    }
+
+    private int randomTarget(int start) {
+        int target;
+        do {
+            target = randomWalkableCell();
+        } while (!this.components.isConnected(start, target));
+        return target;
+    }
+
+    @Benchmark
+    public int tick() {
+        CooperativePlanner planner = this.planner;
+        int moved = planner.tick();
+
+        for (int agent = 0; agent < planner.getNumAgents(); agent++) {
+            if (planner.isAtTarget(agent)) {
+                planner.setTarget(agent, 
+                                  randomTarget(planner.getPosition(agent)));
+            }
+        }
+        return moved;
+    }
+}
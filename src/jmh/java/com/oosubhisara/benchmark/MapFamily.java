@@ -0,0 +1,160 @@
+package com.oosubhisara.benchmark;
+
+import java.util.Random;
+
+import com.oosubhisara.algorithm.WalkableGrid;
+
+// Generated maps the benchmarks run on. Every family is deterministic for
+// a given size and seed, so results are comparable between runs.
+public enum MapFamily {
+    OPEN {
+        void fill(WalkableGrid grid, Random random) {
+            fillAll(grid, true);
+        }
+    },
+    // Perfect maze with one-cell corridors: exactly one path between any
+    // two cells, so searches explore long dead ends
+    MAZE {
+        void fill(WalkableGrid grid, Random random) {
+            fillAll(grid, false);
+            carveMaze(grid, random);
+        }
+    },
+    ROOMS {
+        void fill(WalkableGrid grid, Random random) {
+            fillAll(grid, false);
+            carveRooms(grid, random);
+        }
+    },
+    RANDOM_10 {
+        void fill(WalkableGrid grid, Random random) {
+            fillRandom(grid, random, 0.10);
+        }
+    },
+    RANDOM_25 {
+        void fill(WalkableGrid grid, Random random) {
+            fillRandom(grid, random, 0.25);
+        }
+    },
+    RANDOM_40 {
+        void fill(WalkableGrid grid, Random random) {
+            fillRandom(grid, random, 0.40);
+        }
+    };
+
+    abstract void fill(WalkableGrid grid, Random random);
+
+    public WalkableGrid generate(int size, long seed) {
+        WalkableGrid grid = new WalkableGrid(size, size);
+        fill(grid, new Random(seed));
+        return grid;
+    }
+
+    private static void fillAll(WalkableGrid grid, boolean walkable) {
+        for (int row = 0; row < grid.getNumRows(); row++) {
+            for (int column = 0; column < grid.getNumColumns(); column++) {
+                grid.setWalkable(row, column, walkable);
+            }
+        }
+    }
+
+    private static void fillRandom(WalkableGrid grid, Random random,
+                                   double density) {
+        for (int row = 0; row < grid.getNumRows(); row++) {
+            for (int column = 0; column < grid.getNumColumns(); column++) {
+                grid.setWalkable(row, column, random.nextDouble() >= density);
+            }
+        }
+    }
+
+    // Depth-first carving over the cells with even coordinates, with an
+    // explicit stack so that the largest maps do not overflow the thread's
+    private static void carveMaze(WalkableGrid grid, Random random) {
+        int mazeRows = (grid.getNumRows() + 1) / 2;
+        int mazeColumns = (grid.getNumColumns() + 1) / 2;
+        boolean[] carved = new boolean[mazeRows * mazeColumns];
+        int[] stack = new int[mazeRows * mazeColumns];
+        int[] directions = new int[4];
+        int[] rowSteps = { -1, 0, 1, 0 };
+        int[] columnSteps = { 0, 1, 0, -1 };
+
+        int top = 0;
+        stack[top++] = 0;
+        carved[0] = true;
+        grid.setWalkable(0, 0, true);
+
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int row = cell / mazeColumns;
+            int column = cell % mazeColumns;
+
+            int numDirections = 0;
+            for (int i = 0; i < 4; i++) {
+                int nextRow = row + rowSteps[i];
+                int nextColumn = column + columnSteps[i];
+                if (nextRow >= 0 && nextRow < mazeRows &&
+                        nextColumn >= 0 && nextColumn < mazeColumns &&
+                        !carved[nextRow * mazeColumns + nextColumn]) {
+                    directions[numDirections++] = i;
+                }
+            }
+            if (numDirections == 0) {
+                top--;
+                continue;
+            }
+
+            int i = directions[random.nextInt(numDirections)];
+            int nextRow = row + rowSteps[i];
+            int nextColumn = column + columnSteps[i];
+            carved[nextRow * mazeColumns + nextColumn] = true;
+            grid.setWalkable(row * 2 + rowSteps[i], column * 2 + columnSteps[i],
+                             true);
+            grid.setWalkable(nextRow * 2, nextColumn * 2, true);
+            stack[top++] = nextRow * mazeColumns + nextColumn;
+        }
+    }
+
+    // Rectangular rooms joined in order by L-shaped corridors
+    private static void carveRooms(WalkableGrid grid, Random random) {
+        int numRows = grid.getNumRows();
+        int numColumns = grid.getNumColumns();
+        int maxRoomSize = Math.max(3, Math.min(numRows, numColumns) / 8);
+        int numRooms = Math.max(2, numRows * numColumns /
+                                   (maxRoomSize * maxRoomSize * 4));
+
+        int previousRow = -1;
+        int previousColumn = -1;
+        for (int i = 0; i < numRooms; i++) {
+            int height = 2 + random.nextInt(maxRoomSize - 1);
+            int width = 2 + random.nextInt(maxRoomSize - 1);
+            int top = random.nextInt(Math.max(1, numRows - height));
+            int left = random.nextInt(Math.max(1, numColumns - width));
+            carveRectangle(grid, top, left, top + height, left + width);
+
+            int centerRow = top + height / 2;
+            int centerColumn = left + width / 2;
+            if (previousRow >= 0) {
+                carveRectangle(grid, previousRow, 
+                               Math.min(previousColumn, centerColumn),
+                               previousRow + 1,
+                               Math.max(previousColumn, centerColumn) + 1);
+                carveRectangle(grid, Math.min(previousRow, centerRow),
+                               centerColumn,
+                               Math.max(previousRow, centerRow) + 1,
+                               centerColumn + 1);
+            }
+            previousRow = centerRow;
+            previousColumn = centerColumn;
+        }
+    }
+
+    private static void carveRectangle(WalkableGrid grid, int top, int left,
+                                       int bottom, int right) {
+        for (int row = top; row < Math.min(bottom, grid.getNumRows()); row++) {
+            for (int column = left; 
+                    column < Math.min(right, grid.getNumColumns()); column++) {
+                grid.setWalkable(row, column, true);
+            }
+        }
+    }
+}
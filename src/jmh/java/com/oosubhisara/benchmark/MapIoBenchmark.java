@@ -0,0 +1,82 @@
+package com.oosubhisara.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oosubhisara.algorithm.WalkableGrid;
+import com.oosubhisara.map.TextMapFormat;
+import com.oosubhisara.map.TileMap;
+
+// Load and save times of the text map format, as used by Grid.load and
+// Grid.save
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MapIoBenchmark {
+    @Param({ "20", "128", "1024", "8192" })
+    public int size;
+
+    private List<char[]> rows;
+    private Path loadFile;
+    private Path saveFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        WalkableGrid grid = MapFamily.RANDOM_25.generate(this.size, 42);
+        this.rows = new ArrayList<char[]>();
+        for (int row = 0; row < this.size; row++) {
+            char[] tiles = new char[this.size];
+            for (int column = 0; column < this.size; column++) {
+                tiles[column] = grid.isWalkable(row, column)
+                        ? TextMapFormat.TILE_EMPTY : TextMapFormat.TILE_WALL;
+            }
+            this.rows.add(tiles);
+        }
+
+        this.loadFile = Files.createTempFile("benchmark", ".map");
+        this.saveFile = Files.createTempFile("benchmark", ".map");
+        try (BufferedWriter writer = Files.newBufferedWriter(this.loadFile)) {
+            TextMapFormat.write(writer, this.rows);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.loadFile);
+        Files.deleteIfExists(this.saveFile);
+    }
+
+    @Benchmark
+    public TileMap load() throws IOException {
+        return TileMap.load(this.loadFile);
+    }
+
+    // Walkability only, as the batch runner loads maps
+    @Benchmark
+    public WalkableGrid loadGrid() throws IOException {
+        return TextMapFormat.readGrid(this.loadFile);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(this.saveFile)) {
+            TextMapFormat.write(writer, this.rows);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.oosubhisara.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oosubhisara.algorithm.Algorithm;
+import com.oosubhisara.algorithm.ConnectedComponents;
+import com.oosubhisara.algorithm.CornerCutting;
+import com.oosubhisara.algorithm.Neighborhood;
+import com.oosubhisara.algorithm.PathFinder;
+import com.oosubhisara.algorithm.SearchWorkspace;
+import com.oosubhisara.algorithm.WalkableGrid;
+
+// Time per query of every path finder on every map family. Each invocation
+// answers the next of a fixed set of reachable (start, target) pairs.
+// The expanded counter reports cells taken off the open list per query.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+    private static final int NUM_QUERIES = 256;
+    private static final long SEED = 42;
+
+    // D* Lite and flow fields reuse their work only while the target stays
+    // put, so every query here pays for a new target
+    @Param({ "BFS", "ASTAR", "ALT", "DIJKSTRA", "JPS", "HPA", "DSTAR_LITE",
+             "THETA_STAR", "FLOW_FIELD" })
+    public Algorithm algorithm;
+
+    @Param({ "OPEN", "MAZE", "ROOMS", "RANDOM_10", "RANDOM_25", "RANDOM_40" })
+    public MapFamily family;
+
+    @Param({ "20", "128", "1024", "8192" })
+    public int size;
+
+    // Moves for the algorithms that support a choice; override with
+    // -p neighborhood=EIGHT -p cornerCutting=ALLOW
+    @Param({ "FOUR" })
+    public Neighborhood neighborhood;
+
+    @Param({ "FORBID" })
+    public CornerCutting cornerCutting;
+
+    private PathFinder pathFinder;
+    private SearchWorkspace workspace;
+    private int[] starts;
+    private int[] targets;
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long expanded;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WalkableGrid grid = this.family.generate(this.size, SEED);
+        this.pathFinder = this.algorithm.create(grid, this.neighborhood,
+                                                this.cornerCutting, null);
+        this.workspace = new SearchWorkspace(grid.size());
+
+        // Pairs from one region of the moves searched, so every query
+        // finds a path
+        ConnectedComponents components = new ConnectedComponents(grid,
+                this.algorithm.getNeighborhood(this.neighborhood),
+                this.algorithm.getCornerCutting(this.cornerCutting));
+        Random random = new Random(SEED);
+        this.starts = new int[NUM_QUERIES];
+        this.targets = new int[NUM_QUERIES];
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            int start;
+            int target;
+            do {
+                start = randomWalkableCell(grid, random);
+                target = randomWalkableCell(grid, random);
+            } while (!components.isConnected(start, target));
+            this.starts[i] = start;
+            this.targets[i] = target;
+        }
+    }
+
+    private static int randomWalkableCell(WalkableGrid grid, Random random) {
+        while (true) {
+            int row = random.nextInt(grid.getNumRows());
+            int column = random.nextInt(grid.getNumColumns());
+            if (grid.isWalkable(row, column)) {
+                return grid.index(row, column);
+            }
+        }
+    }
+
+    @Benchmark
+    public int findPath(Counters counters) {
+        int i = this.next;
+        this.next = (i + 1) % NUM_QUERIES;
+
+        this.pathFinder.findPath(this.starts[i], this.targets[i], 
+                                 this.workspace);
+        counters.expanded += this.workspace.getExpanded();
+        return this.workspace.getPathCost();
+    }
+}
@@ -0,0 +1,142 @@
+package com.oosubhisara.algorithm;
+
+// A* search over a WalkableGrid. The open list is an IndexedMinHeap of cell
+// indices keyed by estimated total cost, with ties going to the cell closest
+// to the target. Landmarks, when given and still current for the grid,
+// tighten the heuristic estimate.
+public class AStar implements PathFinder {
+    private final WalkableGrid grid;
+    private final Neighborhood neighborhood;
+    private final CornerCutting cornerCutting;
+    private final Heuristic heuristic;
+    private final Landmarks landmarks;
+    private final int[] offsets;
+    private final int[] moveCosts;
+
+    public AStar(WalkableGrid grid) {
+        this(grid, Neighborhood.FOUR, Heuristic.MANHATTAN);
+    }
+
+    public AStar(WalkableGrid grid, Neighborhood neighborhood,
+                 Heuristic heuristic) {
+        this(grid, neighborhood, heuristic, null);
+    }
+
+    public AStar(WalkableGrid grid, Neighborhood neighborhood,
+                 Heuristic heuristic, Landmarks landmarks) {
+        this(grid, neighborhood, CornerCutting.FORBID, heuristic, landmarks);
+    }
+
+    public AStar(WalkableGrid grid, Neighborhood neighborhood,
+                 CornerCutting cornerCutting, Heuristic heuristic,
+                 Landmarks landmarks) {
+        // Manhattan distance overestimates diagonal moves, which would make
+        // the paths found longer than the shortest.
+        if (neighborhood == Neighborhood.EIGHT && 
+                heuristic == Heuristic.MANHATTAN) {
+            throw new IllegalArgumentException(
+                    "Manhattan heuristic is not admissible with diagonal moves.");
+        }
+        if (landmarks != null && 
+                (landmarks.getNeighborhood() != neighborhood ||
+                 landmarks.getCornerCutting() != cornerCutting)) {
+            throw new IllegalArgumentException(
+                    "Landmarks were computed for other moves.");
+        }
+
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        this.cornerCutting = cornerCutting;
+        this.heuristic = heuristic;
+        this.landmarks = landmarks;
+        this.offsets = neighborhood.offsets(grid.getStride());
+        this.moveCosts = neighborhood.costs();
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return this.neighborhood;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return this.cornerCutting;
+    }
+
+    public Landmarks getLandmarks() {
+        return this.landmarks;
+    }
+
+    @Override
+    public boolean findPath(int start, int target, SearchWorkspace workspace) {
+        WalkableGrid grid = this.grid;
+        workspace.prepare(grid.size());
+        if (!grid.isWalkable(target)) {
+            return false;
+        }
+
+        IndexedMinHeap open = workspace.heap();
+        int[] parent = workspace.parent;
+        CellBitSet visited = workspace.visited;
+        CellBitSet closed = workspace.closed;
+        int[] distance = workspace.distance;
+        int[] offsets = this.offsets;
+        int[] moveCosts = this.moveCosts;
+        CornerCutting cornerCutting = this.cornerCutting;
+        int targetRow = grid.row(target);
+        int targetColumn = grid.column(target);
+        // Tables of an older version of the grid may overestimate
+        Landmarks landmarks = this.landmarks != null && 
+                this.landmarks.isCurrent(grid) ? this.landmarks : null;
+
+        visited.set(start);
+        parent[start] = start;
+        distance[start] = 0;
+        open.push(start, 0);
+
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            if (cell == target) {
+                workspace.tracePath(start, target);
+                workspace.pathCost = distance[target];
+                return true;
+            }
+
+            closed.set(cell);
+            workspace.expanded++;
+            if (workspace.checkCancelled()) return false;
+
+            for (int i = 0; i < offsets.length; i++) {
+                int neighbor = cell + offsets[i];
+                if (!grid.isWalkable(neighbor)) continue;
+
+                if (!cornerCutting.allows(grid, cell, i)) continue;
+
+                if (closed.get(neighbor)) continue;
+
+                int newDistance = distance[cell] + 
+                        moveCosts[i] * grid.getCost(neighbor);
+                if (!visited.get(neighbor) || newDistance < distance[neighbor]) {
+                    visited.set(neighbor);
+                    parent[neighbor] = cell;
+                    distance[neighbor] = newDistance;
+
+                    int estimate = this.heuristic.estimate(
+                            Math.abs(grid.row(neighbor) - targetRow),
+                            Math.abs(grid.column(neighbor) - targetColumn));
+                    if (landmarks != null) {
+                        estimate = Math.max(estimate, 
+                                landmarks.estimate(neighbor, target));
+                    }
+                    open.push(neighbor, 
+                              (long) (newDistance + estimate) << 32 | estimate);
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,210 @@
+package com.oosubhisara.algorithm;
+
+// The path finders that can be selected by name
+public enum Algorithm {
+    BFS("BFS") {
+        public PathFinder create(WalkableGrid grid) {
+            return new BfsEngine(grid);
+        }
+
+        @Override
+        public Neighborhood getNeighborhood(Neighborhood neighborhood) {
+            return Neighborhood.FOUR;
+        }
+
+        @Override
+        public CornerCutting getCornerCutting(CornerCutting cornerCutting) {
+            return CornerCutting.FORBID;
+        }
+    },
+    ASTAR("A*") {
+        public PathFinder create(WalkableGrid grid) {
+            return new AStar(grid);
+        }
+
+        @Override
+        public PathFinder create(WalkableGrid grid, Neighborhood neighborhood,
+                                 CornerCutting cornerCutting,
+                                 Landmarks landmarks) {
+            return new AStar(grid, neighborhood, cornerCutting,
+                             heuristicFor(neighborhood), null);
+        }
+    },
+    ALT("A* (ALT)") {
+        public PathFinder create(WalkableGrid grid) {
+            return create(grid, null);
+        }
+
+        @Override
+        public PathFinder create(WalkableGrid grid, Neighborhood neighborhood,
+                                 CornerCutting cornerCutting,
+                                 Landmarks landmarks) {
+            if (landmarks == null || !landmarks.isCurrent(grid) ||
+                    landmarks.getNeighborhood() != neighborhood ||
+                    landmarks.getCornerCutting() != cornerCutting) {
+                landmarks = Landmarks.compute(grid, Landmarks.DEFAULT_COUNT,
+                                              neighborhood, cornerCutting);
+            }
+            return new AStar(grid, neighborhood, cornerCutting,
+                             heuristicFor(neighborhood), landmarks);
+        }
+    },
+    DIJKSTRA("Dijkstra") {
+        public PathFinder create(WalkableGrid grid) {
+            return new Dijkstra(grid);
+        }
+
+        @Override
+        public PathFinder create(WalkableGrid grid, Neighborhood neighborhood,
+                                 CornerCutting cornerCutting,
+                                 Landmarks landmarks) {
+            return new Dijkstra(grid, neighborhood, cornerCutting);
+        }
+    },
+    JPS("JPS") {
+        public PathFinder create(WalkableGrid grid) {
+            return new JumpPointSearch(grid);
+        }
+
+        @Override
+        public PathFinder create(WalkableGrid grid, Neighborhood neighborhood,
+                                 CornerCutting cornerCutting,
+                                 Landmarks landmarks) {
+            return new JumpPointSearch(grid, neighborhood);
+        }
+
+        @Override
+        public CornerCutting getCornerCutting(CornerCutting cornerCutting) {
+            return CornerCutting.FORBID;
+        }
+    },
+    HPA("HPA*") {
+        public PathFinder create(WalkableGrid grid) {
+            return new HierarchicalPathFinder(grid);
+        }
+
+        @Override
+        public Neighborhood getNeighborhood(Neighborhood neighborhood) {
+            return Neighborhood.FOUR;
+        }
+
+        @Override
+        public CornerCutting getCornerCutting(CornerCutting cornerCutting) {
+            return CornerCutting.FORBID;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return false;
+        }
+    },
+    DSTAR_LITE("D* Lite") {
+        public PathFinder create(WalkableGrid grid) {
+            return new IncrementalPlanner(grid);
+        }
+
+        @Override
+        public Neighborhood getNeighborhood(Neighborhood neighborhood) {
+            return Neighborhood.FOUR;
+        }
+
+        @Override
+        public CornerCutting getCornerCutting(CornerCutting cornerCutting) {
+            return CornerCutting.FORBID;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return false;
+        }
+    },
+    THETA_STAR("Theta*") {
+        public PathFinder create(WalkableGrid grid) {
+            return new ThetaStar(grid);
+        }
+
+        @Override
+        public PathFinder create(WalkableGrid grid, Neighborhood neighborhood,
+                                 CornerCutting cornerCutting,
+                                 Landmarks landmarks) {
+            return new ThetaStar(grid, neighborhood, cornerCutting);
+        }
+    },
+    FLOW_FIELD("Flow Field") {
+        public PathFinder create(WalkableGrid grid) {
+            return new FlowFieldPathFinder(grid);
+        }
+
+        @Override
+        public PathFinder create(WalkableGrid grid, Neighborhood neighborhood,
+                                 CornerCutting cornerCutting,
+                                 Landmarks landmarks) {
+            return new FlowFieldPathFinder(grid, neighborhood, cornerCutting);
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return false;
+        }
+    };
+
+    private final String displayName;
+
+    Algorithm(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public abstract PathFinder create(WalkableGrid grid);
+
+    // As above, reusing landmarks loaded for the grid by algorithms that
+    // need them
+    public PathFinder create(WalkableGrid grid, Landmarks landmarks) {
+        return create(grid, Neighborhood.FOUR, CornerCutting.FORBID,
+                      landmarks);
+    }
+
+    // With the given moves for the algorithms that support a choice.
+    // BFS, HPA* and D* Lite only move orthogonally, and JPS never cuts
+    // corners whatever cornerCutting says.
+    public PathFinder create(WalkableGrid grid, Neighborhood neighborhood,
+                             CornerCutting cornerCutting,
+                             Landmarks landmarks) {
+        return create(grid);
+    }
+
+    // The moves a path finder made with the given ones actually searches,
+    // for anything that must agree with it, such as connected components
+    public Neighborhood getNeighborhood(Neighborhood neighborhood) {
+        return neighborhood;
+    }
+
+    public CornerCutting getCornerCutting(CornerCutting cornerCutting) {
+        return cornerCutting;
+    }
+
+    // Whether one path finder can search for several threads at once, each
+    // with its own workspace. HPA*, D* Lite and flow fields keep search
+    // state of their own, and search for one thread at a time.
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    private static Heuristic heuristicFor(Neighborhood neighborhood) {
+        return neighborhood == Neighborhood.FOUR ? Heuristic.MANHATTAN
+                                                 : Heuristic.OCTILE;
+    }
+
+    public String getDisplayName() {
+        return this.displayName;
+    }
+
+    public static Algorithm fromDisplayName(String displayName) {
+        for (Algorithm algorithm : values()) {
+            if (algorithm.displayName.equals(displayName)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Unknown algorithm: " + displayName);
+    }
+}
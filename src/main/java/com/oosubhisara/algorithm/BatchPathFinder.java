@@ -0,0 +1,203 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+// Answers many path queries against one map in parallel. Every batch
+// searches an immutable snapshot of the grid, and every worker thread keeps
+// its own SearchWorkspace between batches, so the threads share nothing
+// mutable. The path finder and components built for a snapshot are kept
+// for the next batch, so batches on an unchanged grid build nothing.
+// Algorithms that are not thread safe get a path finder per worker.
+public class BatchPathFinder implements AutoCloseable {
+    // Queries a worker claims at a time
+    private static final int BLOCK_SIZE = 64;
+
+    private final Algorithm algorithm;
+    private final int numThreads;
+    private final ExecutorService executor;
+    private final ThreadLocal<SearchWorkspace> workspaces;
+    private Neighborhood neighborhood = Neighborhood.FOUR;
+    private CornerCutting cornerCutting = CornerCutting.FORBID;
+    private boolean smoothing;
+    private Landmarks landmarks;
+    private SearchMetrics metrics;
+    // Built for the snapshot searched last, or null
+    private WalkableGrid snapshot;
+    private ConnectedComponents components;
+    private PathFinder sharedPathFinder;
+    private final PathFinder[] workerPathFinders;
+
+    public BatchPathFinder(Algorithm algorithm) {
+        this(algorithm, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchPathFinder(Algorithm algorithm, int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException(
+                    "Number of threads must be at least 1.");
+        }
+
+        this.algorithm = algorithm;
+        this.numThreads = numThreads;
+        this.executor = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable, "path-finder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workspaces = ThreadLocal.withInitial(SearchWorkspace::new);
+        this.workerPathFinders = new PathFinder[numThreads];
+    }
+
+    public int getNumThreads() {
+        return this.numThreads;
+    }
+
+    // Moves for the algorithms that support a choice; orthogonal only by
+    // default
+    public synchronized void setMoves(Neighborhood neighborhood,
+                         CornerCutting cornerCutting) {
+        this.neighborhood = neighborhood;
+        this.cornerCutting = cornerCutting;
+        release();
+    }
+
+    // Whether paths are pulled tight into waypoints by a PathSmoother
+    public synchronized void setSmoothing(boolean smoothing) {
+        this.smoothing = smoothing;
+        release();
+    }
+
+    // Landmarks for algorithms that use them, reused while they are
+    // current for the grids searched
+    public synchronized void setLandmarks(Landmarks landmarks) {
+        this.landmarks = landmarks;
+        release();
+    }
+
+    // Metrics every search is recorded into, or null to not measure
+    // searches at all
+    public synchronized void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+        release();
+    }
+
+    // Results are in the same order as the queries
+    public List<PathResult> findPaths(WalkableGrid grid, 
+                                      List<PathQuery> queries) {
+        return findPaths(grid, queries, null);
+    }
+
+    // As above, also storing the time each query took in nanoseconds into
+    // nanos, unless it is null. Batches run one at a time.
+    public synchronized List<PathResult> findPaths(WalkableGrid grid, 
+            List<PathQuery> queries, long[] nanos) {
+        if (nanos != null && nanos.length < queries.size()) {
+            throw new IllegalArgumentException(
+                    "Need a time slot for every query.");
+        }
+
+        WalkableGrid snapshot = grid.snapshot();
+        if (snapshot != this.snapshot) {
+            release();
+            this.snapshot = snapshot;
+            this.components = new ConnectedComponents(snapshot,
+                    this.neighborhood, this.cornerCutting);
+            if (this.algorithm.isThreadSafe()) {
+                this.sharedPathFinder = createPathFinder(snapshot);
+            }
+        }
+        ConnectedComponents components = this.components;
+        PathResult[] results = new PathResult[queries.size()];
+        AtomicInteger nextBlock = new AtomicInteger();
+
+        IntConsumer worker = index -> {
+            SearchWorkspace workspace = this.workspaces.get();
+            PathFinder pathFinder = pathFinderFor(index);
+            int first;
+            while ((first = nextBlock.getAndAdd(BLOCK_SIZE)) < results.length) {
+                int last = Math.min(first + BLOCK_SIZE, results.length);
+                for (int i = first; i < last; i++) {
+                    PathQuery query = queries.get(i);
+                    long startTime = nanos != null ? System.nanoTime() : 0;
+                    // Only a search can tell where a walled-in start leads
+                    if (snapshot.isWalkable(query.start) && 
+                            !components.isConnected(query.start, 
+                                                    query.target)) {
+                        results[i] = PathResult.unreachable();
+                    } else {
+                        results[i] = pathFinder.search(query.start, 
+                                query.target, workspace);
+                    }
+                    if (nanos != null) {
+                        nanos[i] = System.nanoTime() - startTime;
+                    }
+                }
+            }
+        };
+
+        int numWorkers = Math.min(this.numThreads, 
+                (results.length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        Future<?>[] futures = new Future<?>[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            int index = i;
+            futures[i] = this.executor.submit(() -> worker.accept(index));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Batch interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Path query failed.", 
+                                                e.getCause());
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    // Worker index searches with this path finder for the whole batch. Each
+    // worker of an algorithm that is not thread safe builds its own the
+    // first time it needs one for the snapshot.
+    private PathFinder pathFinderFor(int index) {
+        if (this.sharedPathFinder != null) {
+            return this.sharedPathFinder;
+        }
+        if (this.workerPathFinders[index] == null) {
+            this.workerPathFinders[index] = createPathFinder(this.snapshot);
+        }
+        return this.workerPathFinders[index];
+    }
+
+    private PathFinder createPathFinder(WalkableGrid snapshot) {
+        PathFinder searcher = this.algorithm.create(snapshot, 
+                this.neighborhood, this.cornerCutting, this.landmarks);
+        PathFinder smoothed = this.smoothing
+                ? new PathSmoother(searcher, this.cornerCutting) : searcher;
+        return this.metrics != null
+                ? new MeasuredPathFinder(smoothed, this.metrics) : smoothed;
+    }
+
+    // Drops what was built for the last snapshot, so the next batch builds
+    // it again with the current settings
+    private void release() {
+        this.snapshot = null;
+        this.components = null;
+        this.sharedPathFinder = null;
+        Arrays.fill(this.workerPathFinders, null);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+}
@@ -1,8 +1,5 @@
 package com.oosubhisara.algorithm;
 
-import java.util.LinkedList;
-import java.util.Queue;
-
 public class Bfs {
     public static class Node {
         public int row, column;
@@ -37,71 +34,68 @@ public class Bfs {
         }
     }
     
-    private int numRows, numColumns;
+    private WalkableGrid grid;
+    private BfsEngine engine;
+    private SearchWorkspace workspace;
     private Node[][] nodes;
-    private Node start;
-    private Node target;
-    private Queue<Node> queue;
+    private int expanded;
     
     public Bfs(Node[][] nodes) {
-        this.numRows = nodes.length;
-        this.numColumns = nodes[0].length;
+        int numRows = nodes.length;
+        int numColumns = nodes[0].length;
         this.nodes = nodes;
-        System.out.println("BFS: " + this.numRows + "x" + this.numColumns);
+        this.grid = new WalkableGrid(numRows, numColumns);
+        for (int row = 0; row < numRows; row++) {
+            for (int column = 0; column < numColumns; column++) {
+                this.grid.setWalkable(row, column, nodes[row][column].walkable);
+            }
+        }
+        this.engine = new BfsEngine(this.grid);
+        this.workspace = new SearchWorkspace(this.grid.size());
     }
     
     public Bfs.Node findPath(Node start, Node target, boolean includeTarget) {
-        this.start = start;
-        this.target = target;
-        this.queue = new LinkedList<Node>();
-        
-        this.start.visited = true;
-        queue.add(this.start);
-        
-        while (!queue.isEmpty()) {
-            Node node = queue.remove();
-            visitNeighbors(node);
-        }
-        
-        Bfs.Node lastNode = includeTarget? this.target : this.target.previous;
-        relinkNodes(lastNode);
-
-        System.out.println("Length of path: " + this.start.getlength());
-        return this.start.next;
+        return findPath(start, target, includeTarget, SearchMode.FORWARD);
     }
+    
+    public Bfs.Node findPath(Node start, Node target, boolean includeTarget,
+                             SearchMode mode) {
+        int startIndex = this.grid.index(start.row, start.column);
+        int targetIndex = this.grid.index(target.row, target.column);
+        start.visited = true;
 
-    public void visitNeighbors(Node node) {
-        final int[][] OFFSETS = { {-1, 0}, {0, 1}, {1, 0}, {0, -1} };
+        boolean found = this.engine.findPath(startIndex, targetIndex, mode,
+                                             this.workspace);
+        this.expanded = this.workspace.getExpanded();
 
-        for (int i = 0; i < 4; i++) {
-            // Calculate position of the adjacent node
-            int row = node.row + OFFSETS[i][0];
-            int column = node.column + OFFSETS[i][1];
-            
-            // if row and column are out of bound then skip
-            if (row < 0 || row >= this.numRows ||
-                    column < 0 || column >= this.numColumns) {
-                continue;
-            }
-            
-            // Check if neighboring node is walkable
-            Node neighborNode = this.nodes[row][column];
-            if (!neighborNode.visited && neighborNode.walkable) {
-                neighborNode.visited = true;
-                neighborNode.previous = node;
-                this.queue.add(neighborNode);
+        if (found) {
+            int[] path = this.workspace.getPath();
+            int length = this.workspace.getPathLength();
+            if (!includeTarget) length--;
+
+            // Link the nodes on the path both ways
+            Bfs.Node previous = null;
+            for (int i = 0; i < length; i++) {
+                Bfs.Node node = toNode(path[i]);
+                node.visited = true;
+                node.previous = previous;
+                if (previous != null) {
+                    previous.next = node;
+                }
+                previous = node;
             }
         }
-        
+
+        return start.next;
     }
-    
-    private void relinkNodes(Bfs.Node node) {
-        while (node != null) {
-            if (node.previous != null) {
-                node.previous.next = node;
-            }
-            node = node.previous;
-        }
+
+    // Number of nodes expanded by the last call to findPath
+    public int getExpanded() {
+        return this.expanded;
+    }
+
+    private Bfs.Node toNode(int index) {
+        return this.nodes[this.grid.row(index)][this.grid.column(index)];
     }
     
 }
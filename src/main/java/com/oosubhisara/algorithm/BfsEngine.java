@@ -0,0 +1,178 @@
+package com.oosubhisara.algorithm;
+
+// Breadth-first search over a WalkableGrid using int cell indices and the
+// primitive arrays of a SearchWorkspace. Every step counts the same, whatever
+// the cost of the tiles.
+public class BfsEngine implements PathFinder {
+    private final WalkableGrid grid;
+    private final int[] offsets;
+
+    public BfsEngine(WalkableGrid grid) {
+        this.grid = grid;
+
+        // Up, right, down, left in index space
+        int stride = grid.getStride();
+        this.offsets = new int[] { -stride, 1, stride, -1 };
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    @Override
+    public boolean findPath(int start, int target, SearchWorkspace workspace) {
+        return findPath(start, target, SearchMode.FORWARD, workspace);
+    }
+
+    // Returns true when target is reachable from start. The path and the
+    // number of expanded cells are then available from the workspace.
+    public boolean findPath(int start, int target, SearchMode mode,
+                            SearchWorkspace workspace) {
+        workspace.prepare(this.grid.size());
+
+        if (start == target) {
+            workspace.tracePath(start, start);
+            return true;
+        }
+        if (!this.grid.isWalkable(target)) {
+            return false;
+        }
+
+        boolean found = mode == SearchMode.BIDIRECTIONAL
+                ? findPathBidirectional(start, target, workspace)
+                : findPathForward(start, target, workspace);
+        if (found) {
+            workspace.pathCost = 
+                    (workspace.pathLength - 1) * PathFinder.STRAIGHT_COST;
+        }
+        return found;
+    }
+
+    private boolean findPathForward(int start, int target,
+                                    SearchWorkspace workspace) {
+        int[] queue = workspace.queue;
+        int[] parent = workspace.parent;
+        CellBitSet visited = workspace.visited;
+        int[] offsets = this.offsets;
+
+        // Every cell enters the queue at most once, so the queue never has
+        // to wrap around.
+        int head = 0;
+        int tail = 0;
+        int peak = 0;
+        visited.set(start);
+        parent[start] = start;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            if (tail - head > peak) peak = tail - head;
+            int cell = queue[head++];
+            workspace.expanded++;
+            if (workspace.checkCancelled()) break;
+
+            for (int i = 0; i < offsets.length; i++) {
+                int neighbor = cell + offsets[i];
+
+                // The wall border keeps neighbor inside the array
+                if (!visited.get(neighbor) &&
+                        this.grid.isWalkable(neighbor)) {
+                    visited.set(neighbor);
+                    parent[neighbor] = cell;
+
+                    // No shorter path can be found once target is reached
+                    if (neighbor == target) {
+                        workspace.tracePath(start, target);
+                        workspace.peakFrontier = peak;
+                        return true;
+                    }
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+
+        workspace.peakFrontier = peak;
+        return false;
+    }
+
+    private boolean findPathBidirectional(int start, int target,
+                                          SearchWorkspace workspace) {
+        int[] queue = workspace.queue;
+        int[] parent = workspace.parent;
+        CellBitSet forwardVisited = workspace.visited;
+        CellBitSet backwardVisited = workspace.visitedBackward;
+        int[] offsets = this.offsets;
+
+        // Both frontiers share the queue array: the start side fills it from
+        // the front and the target side from the back. A cell is only ever
+        // claimed by one side, so together they hold each cell at most once.
+        int forwardHead = 0;
+        int forwardTail = 0;
+        int backwardHead = queue.length - 1;
+        int backwardTail = queue.length - 1;
+
+        forwardVisited.set(start);
+        parent[start] = start;
+        queue[forwardTail++] = start;
+        backwardVisited.set(target);
+        parent[target] = target;
+        queue[backwardTail--] = target;
+
+        while (forwardHead < forwardTail && backwardHead > backwardTail) {
+            // Expand one whole layer of the smaller frontier
+            int forwardSize = forwardTail - forwardHead;
+            int backwardSize = backwardHead - backwardTail;
+            // Taken between layers, when both frontiers are whole
+            workspace.peakFrontier = Math.max(workspace.peakFrontier,
+                                              forwardSize + backwardSize);
+
+            if (forwardSize <= backwardSize) {
+                int layerEnd = forwardTail;
+                while (forwardHead < layerEnd) {
+                    int cell = queue[forwardHead++];
+                    workspace.expanded++;
+                    if (workspace.checkCancelled()) return false;
+
+                    for (int i = 0; i < offsets.length; i++) {
+                        int neighbor = cell + offsets[i];
+
+                        if (backwardVisited.get(neighbor)) {
+                            workspace.tracePath(start, cell, neighbor, target);
+                            return true;
+                        }
+                        if (!forwardVisited.get(neighbor) &&
+                                this.grid.isWalkable(neighbor)) {
+                            forwardVisited.set(neighbor);
+                            parent[neighbor] = cell;
+                            queue[forwardTail++] = neighbor;
+                        }
+                    }
+                }
+            } else {
+                int layerEnd = backwardTail;
+                while (backwardHead > layerEnd) {
+                    int cell = queue[backwardHead--];
+                    workspace.expanded++;
+                    if (workspace.checkCancelled()) return false;
+
+                    for (int i = 0; i < offsets.length; i++) {
+                        int neighbor = cell + offsets[i];
+
+                        if (forwardVisited.get(neighbor)) {
+                            workspace.tracePath(start, neighbor, cell, target);
+                            return true;
+                        }
+                        if (!backwardVisited.get(neighbor) &&
+                                this.grid.isWalkable(neighbor)) {
+                            backwardVisited.set(neighbor);
+                            parent[neighbor] = cell;
+                            queue[backwardTail--] = neighbor;
+                        }
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+}
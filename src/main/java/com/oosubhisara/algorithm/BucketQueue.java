@@ -0,0 +1,135 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// Monotone priority queue of cell indices with small int keys (Dial's
+// algorithm). Keys are kept in a ring of buckets, each a doubly linked list
+// threaded through int arrays. Every key pushed must lie within
+// maxKeyStep of the smallest queued key, and keys never go below the last
+// popped key; Dijkstra's algorithm satisfies both when maxKeyStep is its
+// largest move cost.
+public class BucketQueue {
+    private static final int NONE = -1;
+
+    private final int[] heads;
+    private final int bucketMask;
+    private final int[] next;
+    private final int[] previous;
+    private final int[] keys;
+    private final boolean[] queued;
+    private int size;
+    private int peakSize;
+    private int current;
+
+    public BucketQueue(int capacity, int maxKeyStep) {
+        int numBuckets = Integer.highestOneBit(Math.max(1, maxKeyStep)) << 1;
+        this.heads = new int[numBuckets];
+        this.bucketMask = numBuckets - 1;
+        Arrays.fill(this.heads, NONE);
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        this.keys = new int[capacity];
+        this.queued = new boolean[capacity];
+        this.size = 0;
+        this.peakSize = 0;
+        this.current = 0;
+    }
+
+    public int capacity() {
+        return this.queued.length;
+    }
+
+    // Largest key step this queue was sized for
+    public int maxKeyStep() {
+        return this.bucketMask;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    // Most cells queued at once since the queue was created or cleared
+    public int peakSize() {
+        return this.peakSize;
+    }
+
+    public boolean contains(int cell) {
+        return this.queued[cell];
+    }
+
+    // Removes every queued cell in time proportional to their number plus
+    // the number of buckets
+    public void clear() {
+        for (int bucket = 0; bucket < this.heads.length; bucket++) {
+            for (int cell = this.heads[bucket]; cell != NONE;
+                    cell = this.next[cell]) {
+                this.queued[cell] = false;
+            }
+            this.heads[bucket] = NONE;
+        }
+        this.size = 0;
+        this.peakSize = 0;
+        this.current = 0;
+    }
+
+    // Queues cell with the given key, or lowers the key of an already
+    // queued cell. A higher key for a queued cell is ignored.
+    public void push(int cell, int key) {
+        if (this.queued[cell]) {
+            if (key >= this.keys[cell]) return;
+            unlink(cell);
+        } else {
+            // Scan from the smallest key, which need not be the first one
+            // pushed after the queue ran empty
+            if (this.size == 0 || key < this.current) {
+                this.current = key;
+            }
+            this.queued[cell] = true;
+            this.size++;
+            if (this.size > this.peakSize) {
+                this.peakSize = this.size;
+            }
+        }
+
+        int bucket = key & this.bucketMask;
+        int head = this.heads[bucket];
+        this.keys[cell] = key;
+        this.previous[cell] = NONE;
+        this.next[cell] = head;
+        if (head != NONE) {
+            this.previous[head] = cell;
+        }
+        this.heads[bucket] = cell;
+    }
+
+    public int pop() {
+        while (this.heads[this.current & this.bucketMask] == NONE) {
+            this.current++;
+        }
+
+        int cell = this.heads[this.current & this.bucketMask];
+        unlink(cell);
+        this.queued[cell] = false;
+        this.size--;
+        return cell;
+    }
+
+    // Key of the last popped cell
+    public int currentKey() {
+        return this.current;
+    }
+
+    private void unlink(int cell) {
+        int previous = this.previous[cell];
+        int next = this.next[cell];
+
+        if (previous != NONE) {
+            this.next[previous] = next;
+        } else {
+            this.heads[this.keys[cell] & this.bucketMask] = next;
+        }
+        if (next != NONE) {
+            this.previous[next] = previous;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// One bit per cell index. The set remembers the range of words it has
+// touched, so clearing after a search that stayed in a small part of a large
+// grid only clears that part.
+public class CellBitSet {
+    private long[] words;
+    private int firstWord;
+    private int lastWord;
+
+    public CellBitSet(int size) {
+        this.words = new long[(size + 63) >>> 6];
+        this.firstWord = Integer.MAX_VALUE;
+        this.lastWord = -1;
+    }
+
+    // Number of cell indices the set can hold
+    public int capacity() {
+        return this.words.length << 6;
+    }
+
+    public boolean get(int index) {
+        return (this.words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void set(int index) {
+        int word = index >>> 6;
+        this.words[word] |= 1L << index;
+        if (word < this.firstWord) this.firstWord = word;
+        if (word > this.lastWord) this.lastWord = word;
+    }
+
+    public void clear(int index) {
+        this.words[index >>> 6] &= ~(1L << index);
+    }
+
+    public void clear() {
+        if (this.lastWord >= this.firstWord) {
+            Arrays.fill(this.words, this.firstWord, this.lastWord + 1, 0L);
+        }
+        this.firstWord = Integer.MAX_VALUE;
+        this.lastWord = -1;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (int word = this.firstWord; word <= this.lastWord; word++) {
+            count += Long.bitCount(this.words[word]);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,255 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// Labels the 4-connected regions of walkable cells of a WalkableGrid, so
+// whether one cell can be reached from another is known before searching.
+// Diagonal moves that may not cut corners never reach a cell that
+// orthogonal moves cannot, so the same regions serve them. Diagonal moves
+// that may cut every corner join cells that only touch at a corner, so for
+// those the regions are 8-connected.
+// The labels follow the grid through its listener:
+// - opening a cell merges the regions around it in a union-find over labels,
+// - walling a cell relabels the regions around it only when the wall may
+//   have split them,
+// - a batch of edits that walls more than one cell relabels the grid once.
+public class ConnectedComponents implements GridListener {
+    private static final int NONE = -1;
+
+    private final WalkableGrid grid;
+    private final boolean eightConnected;
+    private final int[] offsets;
+    // Ring of the eight cells around a cell, each 4-adjacent to the next
+    private final int[] ring;
+    private final int[] label;
+    private final int[] queue;
+    private int[] labelParent;
+    private int numLabels;
+
+    public ConnectedComponents(WalkableGrid grid) {
+        this(grid, Neighborhood.FOUR, CornerCutting.FORBID);
+    }
+
+    // Regions of the cells that the given moves join
+    public ConnectedComponents(WalkableGrid grid, Neighborhood neighborhood,
+                               CornerCutting cornerCutting) {
+        this.grid = grid;
+        this.eightConnected = neighborhood == Neighborhood.EIGHT &&
+                              cornerCutting == CornerCutting.ALLOW;
+        int stride = grid.getStride();
+        this.ring = new int[] { -stride, -stride + 1, 1, stride + 1,
+                                stride, stride - 1, -1, -stride - 1 };
+        this.offsets = this.eightConnected
+                ? this.ring : new int[] { -stride, 1, stride, -1 };
+        this.label = new int[grid.size()];
+        this.queue = new int[grid.size()];
+        this.labelParent = new int[64];
+
+        relabel();
+        if (!grid.isReadOnly()) {
+            grid.addListener(this);
+        }
+    }
+
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    // Whether a path of connected walkable cells joins the two cells
+    public boolean isConnected(int from, int to) {
+        if (from == to) return true;
+        if (!this.grid.isWalkable(from) || !this.grid.isWalkable(to)) {
+            return false;
+        }
+        return find(this.label[from]) == find(this.label[to]);
+    }
+
+    // Current label of the region of a walkable cell, or -1 for a wall
+    public int getComponent(int cell) {
+        return this.grid.isWalkable(cell) ? find(this.label[cell]) : NONE;
+    }
+
+    @Override
+    public void cellChanged(WalkableGrid grid, int index) {
+        if (grid.isWalkable(index)) {
+            // A cost change leaves the regions as they were
+            if (this.label[index] != NONE) return;
+            open(index);
+        } else {
+            close(index);
+        }
+    }
+
+    // Cells opened by one batch join each other as each is opened, so
+    // until then their lack of a label is skipped
+    @Override
+    public void cellsChanged(WalkableGrid grid, int[] indices, int count) {
+        int walled = NONE;
+        for (int i = 0; i < count; i++) {
+            if (grid.isWalkable(indices[i])) continue;
+
+            // Several walls can split a region where no one of them is seen
+            // to, as when they stand in a thick line
+            if (walled != NONE) {
+                relabel();
+                return;
+            }
+            walled = indices[i];
+        }
+
+        for (int i = 0; i < count; i++) {
+            int cell = indices[i];
+            if (grid.isWalkable(cell) && this.label[cell] == NONE) {
+                open(cell);
+            }
+        }
+        if (walled != NONE) {
+            close(walled);
+        }
+    }
+
+    private void open(int cell) {
+        int root = NONE;
+        for (int offset : this.offsets) {
+            int neighbor = cell + offset;
+            if (!this.grid.isWalkable(neighbor)) continue;
+            if (this.label[neighbor] == NONE) continue;
+
+            int neighborRoot = find(this.label[neighbor]);
+            if (root == NONE) {
+                root = neighborRoot;
+            } else if (neighborRoot != root) {
+                this.labelParent[neighborRoot] = root;
+            }
+        }
+        this.label[cell] = root == NONE ? newLabel() : root;
+    }
+
+    private void close(int cell) {
+        this.label[cell] = NONE;
+        if (!maySplit(cell)) return;
+
+        // Too many labels have piled up in the union-find; start over
+        if (this.numLabels > this.label.length) {
+            relabel();
+            return;
+        }
+
+        // Flood each side that the wall may have cut off with a new label
+        int[] sides = new int[this.offsets.length];
+        int numSides = 0;
+        for (int offset : this.offsets) {
+            int neighbor = cell + offset;
+            if (this.grid.isWalkable(neighbor)) {
+                sides[numSides++] = neighbor;
+            }
+        }
+
+        int first = NONE;
+        for (int i = 0; i < numSides; i++) {
+            int side = sides[i];
+            if (first != NONE && this.label[side] >= first) continue;
+
+            int newLabel = newLabel();
+            if (first == NONE) first = newLabel;
+            flood(side, newLabel);
+        }
+    }
+
+    // Whether walling cell can disconnect its walkable neighbours. They
+    // stay connected if they all lie on one unbroken run of walkable cells
+    // around it.
+    private boolean maySplit(int cell) {
+        int numNeighbors = 0;
+        for (int offset : this.offsets) {
+            if (this.grid.isWalkable(cell + offset)) numNeighbors++;
+        }
+        if (numNeighbors <= 1) return false;
+
+        // Count the walkable runs round the ring that touch a neighbour,
+        // starting after a wall so that no run wraps around
+        int first = NONE;
+        for (int i = 0; i < this.ring.length; i++) {
+            if (!this.grid.isWalkable(cell + this.ring[i])) {
+                first = i;
+                break;
+            }
+        }
+        if (first == NONE) return false;
+
+        int runs = 0;
+        boolean inRun = false;
+        boolean touches = false;
+        for (int i = 1; i <= this.ring.length; i++) {
+            int position = (first + i) % this.ring.length;
+            if (this.grid.isWalkable(cell + this.ring[position])) {
+                inRun = true;
+                // Even positions of the ring are the orthogonal neighbours.
+                // Runs of 8-connected cells may also touch each other
+                // across a corner, which only costs a needless flood.
+                touches |= (position & 1) == 0 || this.eightConnected;
+            } else if (inRun) {
+                if (touches) runs++;
+                inRun = false;
+                touches = false;
+            }
+        }
+        return runs > 1;
+    }
+
+    private void flood(int from, int newLabel) {
+        int[] queue = this.queue;
+        int head = 0;
+        int tail = 0;
+        this.label[from] = newLabel;
+        queue[tail++] = from;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int offset : this.offsets) {
+                int neighbor = cell + offset;
+                if (this.label[neighbor] != newLabel &&
+                        this.grid.isWalkable(neighbor)) {
+                    this.label[neighbor] = newLabel;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    private void relabel() {
+        Arrays.fill(this.label, NONE);
+        this.numLabels = 0;
+
+        int size = this.grid.size();
+        for (int cell = 0; cell < size; cell++) {
+            if (this.label[cell] == NONE && this.grid.isWalkable(cell)) {
+                flood(cell, newLabel());
+            }
+        }
+    }
+
+    private int newLabel() {
+        if (this.numLabels == this.labelParent.length) {
+            this.labelParent = Arrays.copyOf(this.labelParent,
+                                             this.numLabels * 2);
+        }
+        int newLabel = this.numLabels++;
+        this.labelParent[newLabel] = newLabel;
+        return newLabel;
+    }
+
+    private int find(int label) {
+        int root = label;
+        while (this.labelParent[root] != root) {
+            root = this.labelParent[root];
+        }
+        // Point the whole chain straight at the root
+        while (this.labelParent[label] != root) {
+            int next = this.labelParent[label];
+            this.labelParent[label] = root;
+            label = next;
+        }
+        return root;
+    }
+}
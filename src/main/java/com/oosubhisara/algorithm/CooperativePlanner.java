@@ -0,0 +1,513 @@
+package com.oosubhisara.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Moves many agents over one WalkableGrid without collisions, by Windowed
+// Hierarchical Cooperative A* (WHCA*). Agents are planned one at a time in
+// priority order, lowest id first. Each runs a space-time A* over the next
+// window time steps around the reservations of the agents before it, then
+// reserves its own plan. Beyond the window the rest of the way costs its
+// true distance, read off a FlowField kept for every distinct target and
+// shared by the agents heading there, so that no dead end deeper than the
+// window looks closer than the way around it. Plans are redone every
+// replanInterval ticks, so the window rolls forward with the agents.
+//
+// One search can reach no further than window moves from its agent, so
+// its states live in dense arrays indexed by time and offset from the
+// agent, reused between searches without being cleared. Edits to the grid,
+// one at a time or a whole batch, have every agent planned again on the
+// next tick.
+public class CooperativePlanner implements GridListener {
+    public static final int DEFAULT_WINDOW = 16;
+    public static final int MAX_WINDOW = 128;
+    public static final int NONE = ReservationTable.NONE;
+
+    private final WalkableGrid grid;
+    private final Neighborhood neighborhood;
+    private final CornerCutting cornerCutting;
+    private final Heuristic heuristic;
+    private final int window;
+    private final int replanInterval;
+    private final int[] offsets;
+    private final int[] moveCosts;
+    private final ReservationTable reservations;
+
+    // Distances to every target of an agent, repaired as the grid changes
+    private final Map<Integer, FlowField> fields;
+
+    // Agent in every cell, and the agent stepping into every cell during
+    // a tick
+    private final int[] occupants;
+    private final int[] entering;
+
+    // Per agent state indexed by id. A plan holds the cell of its agent at
+    // every time step of the window, starting at planTime.
+    private int numAgents;
+    private int[] positions = new int[16];
+    private int[] targets = new int[16];
+    private int[][] plans = new int[16][];
+    private int[] nextCells = new int[16];
+    private int[] staying = new int[16];
+
+    private int time;
+    private int planTime;
+    private boolean replanNeeded;
+    private int expanded;
+
+    // Space-time search state, indexed by time * side^2 + (row offset +
+    // window) * side + column offset + window. A state belongs to the
+    // current search when its stamp matches.
+    private final int side;
+    private final IndexedMinHeap open;
+    private final int[] stamps;
+    private final int[] closedStamps;
+    private final int[] distances;
+    private final int[] parents;
+    private int stamp;
+
+    public CooperativePlanner(WalkableGrid grid) {
+        this(grid, Neighborhood.FOUR, CornerCutting.FORBID, DEFAULT_WINDOW);
+    }
+
+    public CooperativePlanner(WalkableGrid grid, Neighborhood neighborhood,
+                              CornerCutting cornerCutting, int window) {
+        this(grid, neighborhood, cornerCutting, window,
+             Math.max(1, window / 2));
+    }
+
+    public CooperativePlanner(WalkableGrid grid, Neighborhood neighborhood,
+                              CornerCutting cornerCutting, int window,
+                              int replanInterval) {
+        if (window < 1 || window > MAX_WINDOW) {
+            throw new IllegalArgumentException(
+                    "Window must be between 1 and " + MAX_WINDOW + ".");
+        }
+        if (replanInterval < 1 || replanInterval > window) {
+            throw new IllegalArgumentException(
+                    "Replan interval must be between 1 and the window.");
+        }
+
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        this.cornerCutting = cornerCutting;
+        this.heuristic = neighborhood == Neighborhood.FOUR
+                ? Heuristic.MANHATTAN : Heuristic.OCTILE;
+        this.window = window;
+        this.replanInterval = replanInterval;
+        this.offsets = neighborhood.offsets(grid.getStride());
+        this.moveCosts = neighborhood.costs();
+        this.reservations = new ReservationTable();
+        this.fields = new HashMap<Integer, FlowField>();
+
+        this.occupants = new int[grid.size()];
+        this.entering = new int[grid.size()];
+        Arrays.fill(this.occupants, NONE);
+        Arrays.fill(this.entering, NONE);
+
+        this.side = 2 * window + 1;
+        int numStates = (window + 1) * this.side * this.side;
+        this.open = new IndexedMinHeap(numStates);
+        this.stamps = new int[numStates];
+        this.closedStamps = new int[numStates];
+        this.distances = new int[numStates];
+        this.parents = new int[numStates];
+
+        if (!grid.isReadOnly()) {
+            grid.addListener(this);
+        }
+    }
+
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    @Override
+    public void cellChanged(WalkableGrid grid, int index) {
+        for (FlowField field : this.fields.values()) {
+            field.cellChanged(grid, index);
+        }
+        this.replanNeeded = true;
+    }
+
+    @Override
+    public void cellsChanged(WalkableGrid grid, int[] indices, int count) {
+        for (FlowField field : this.fields.values()) {
+            field.cellsChanged(grid, indices, count);
+        }
+        this.replanNeeded = true;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return this.neighborhood;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return this.cornerCutting;
+    }
+
+    public int getWindow() {
+        return this.window;
+    }
+
+    public int getReplanInterval() {
+        return this.replanInterval;
+    }
+
+    // Ticks made so far
+    public int getTime() {
+        return this.time;
+    }
+
+    public int getNumAgents() {
+        return this.numAgents;
+    }
+
+    // Space-time states expanded by the last round of planning
+    public int getExpanded() {
+        return this.expanded;
+    }
+
+    // Reservations of the last round of planning, by absolute time
+    public ReservationTable getReservations() {
+        return this.reservations;
+    }
+
+    // Adds an agent below every agent added before it in priority and
+    // returns its id
+    public int addAgent(int start, int target) {
+        if (!this.grid.isWalkable(start)) {
+            throw new IllegalArgumentException(
+                    "Agents must start on a walkable cell.");
+        }
+        if (this.occupants[start] != NONE) {
+            throw new IllegalArgumentException(
+                    "Another agent already stands on the start cell.");
+        }
+
+        if (this.numAgents == this.positions.length) {
+            int newLength = this.numAgents * 2;
+            this.positions = Arrays.copyOf(this.positions, newLength);
+            this.targets = Arrays.copyOf(this.targets, newLength);
+            this.plans = Arrays.copyOf(this.plans, newLength);
+            this.nextCells = new int[newLength];
+            this.staying = new int[newLength];
+        }
+
+        int agent = this.numAgents++;
+        this.positions[agent] = start;
+        this.targets[agent] = target;
+        this.plans[agent] = new int[this.window + 1];
+        Arrays.fill(this.plans[agent], start);
+        this.occupants[start] = agent;
+        this.replanNeeded = true;
+        return agent;
+    }
+
+    public int getPosition(int agent) {
+        checkAgent(agent);
+        return this.positions[agent];
+    }
+
+    public int getTarget(int agent) {
+        checkAgent(agent);
+        return this.targets[agent];
+    }
+
+    public void setTarget(int agent, int target) {
+        checkAgent(agent);
+        this.targets[agent] = target;
+        this.replanNeeded = true;
+    }
+
+    public boolean isAtTarget(int agent) {
+        checkAgent(agent);
+        return this.positions[agent] == this.targets[agent];
+    }
+
+    // Agent standing on cell, or NONE
+    public int getAgentAt(int cell) {
+        return this.occupants[cell];
+    }
+
+    // Cells the agent is planned to stand on from now to the end of the
+    // window, starting with its position, as of the last round of planning
+    public int[] getPlan(int agent) {
+        checkAgent(agent);
+        return Arrays.copyOfRange(this.plans[agent],
+                                  this.time - this.planTime, this.window + 1);
+    }
+
+    private void checkAgent(int agent) {
+        if (agent < 0 || agent >= this.numAgents) {
+            throw new IndexOutOfBoundsException("No agent " + agent + ".");
+        }
+    }
+
+    // Plans every agent over the window from now, in priority order
+    public void plan() {
+        updateFields();
+        this.reservations.clear();
+        this.planTime = this.time;
+        this.expanded = 0;
+
+        for (int agent = 0; agent < this.numAgents; agent++) {
+            int[] plan = this.plans[agent];
+            if (!search(agent, plan)) {
+                // Boxed in: wait, and let the agents it blocks wait too
+                Arrays.fill(plan, this.positions[agent]);
+            }
+            for (int t = 0; t <= this.window; t++) {
+                this.reservations.reserve(plan[t], this.planTime + t, agent);
+            }
+        }
+        this.replanNeeded = false;
+    }
+
+    // Moves every agent one step along its plan, planning first when the
+    // plans are due, and returns the number of agents that moved. An agent
+    // whose next cell is walled off or held by an agent that cannot move
+    // waits instead, and every agent is planned again on the next tick.
+    public int tick() {
+        if (this.replanNeeded ||
+                this.time - this.planTime >= this.replanInterval) {
+            plan();
+        }
+
+        WalkableGrid grid = this.grid;
+        int step = this.time - this.planTime + 1;
+        int[] positions = this.positions;
+        int[] next = this.nextCells;
+        int[] entering = this.entering;
+        int[] staying = this.staying;
+        int numStaying = 0;
+
+        for (int agent = 0; agent < this.numAgents; agent++) {
+            int position = positions[agent];
+            int cell = this.plans[agent][step];
+            if (cell != position &&
+                    (!grid.isWalkable(cell) || entering[cell] != NONE)) {
+                cell = position;
+                this.replanNeeded = true;
+            }
+
+            next[agent] = cell;
+            if (cell == position) {
+                staying[numStaying++] = agent;
+            } else {
+                entering[cell] = agent;
+            }
+        }
+
+        // An agent that stays blocks the one stepping into its cell, which
+        // then stays and blocks the one behind it
+        while (numStaying > 0) {
+            int cell = positions[staying[--numStaying]];
+            int blocked = entering[cell];
+            if (blocked != NONE) {
+                entering[cell] = NONE;
+                next[blocked] = positions[blocked];
+                staying[numStaying++] = blocked;
+                this.replanNeeded = true;
+            }
+        }
+
+        // Leave every cell before entering any, as agents may follow each
+        // other
+        int moved = 0;
+        for (int agent = 0; agent < this.numAgents; agent++) {
+            if (next[agent] != positions[agent]) {
+                this.occupants[positions[agent]] = NONE;
+            }
+        }
+        for (int agent = 0; agent < this.numAgents; agent++) {
+            int cell = next[agent];
+            if (cell != positions[agent]) {
+                entering[cell] = NONE;
+                this.occupants[cell] = agent;
+                positions[agent] = cell;
+                moved++;
+            }
+        }
+
+        this.time++;
+        return moved;
+    }
+
+    // Keeps a field for every target an agent has, handing the fields of
+    // targets nobody has any more over to the new ones
+    private void updateFields() {
+        Set<Integer> wanted = new HashSet<Integer>();
+        for (int agent = 0; agent < this.numAgents; agent++) {
+            wanted.add(this.targets[agent]);
+        }
+
+        List<FlowField> spare = new ArrayList<FlowField>();
+        Iterator<FlowField> iterator = this.fields.values().iterator();
+        while (iterator.hasNext()) {
+            FlowField field = iterator.next();
+            if (!wanted.contains(field.getTarget())) {
+                spare.add(field);
+                iterator.remove();
+            }
+        }
+
+        for (int target : wanted) {
+            if (this.fields.containsKey(target)) continue;
+
+            FlowField field;
+            if (spare.isEmpty()) {
+                field = new FlowField(this.grid, target, this.neighborhood,
+                                      this.cornerCutting, false);
+            } else {
+                field = spare.remove(spare.size() - 1);
+                field.retarget(target);
+            }
+            this.fields.put(target, field);
+        }
+    }
+
+    // Space-time A* from the agent's position. Stops at the first state
+    // taken off the open list that is at the end of the window, or on the
+    // target with nobody due there for the rest of the window, and writes
+    // the cells on the way to it into plan.
+    private boolean search(int agent, int[] plan) {
+        WalkableGrid grid = this.grid;
+        ReservationTable reservations = this.reservations;
+        CornerCutting cornerCutting = this.cornerCutting;
+        IndexedMinHeap open = this.open;
+        int[] stamps = this.stamps;
+        int[] closedStamps = this.closedStamps;
+        int[] distances = this.distances;
+        int[] parents = this.parents;
+        int[] offsets = this.offsets;
+        int[] moveCosts = this.moveCosts;
+        int window = this.window;
+        int side = this.side;
+        int area = side * side;
+        int stride = grid.getStride();
+        int start = this.positions[agent];
+        int target = this.targets[agent];
+        FlowField field = this.fields.get(target);
+        if (!field.isReachable(start)) {
+            // Cut off from the target: head for it as the crow flies
+            field = null;
+        }
+
+        if (++this.stamp == 0) {
+            // Wrapped around: no state may look current by accident
+            Arrays.fill(stamps, 0);
+            Arrays.fill(closedStamps, 0);
+            this.stamp = 1;
+        }
+        int stamp = this.stamp;
+        open.clear();
+
+        int first = window * side + window;
+        stamps[first] = stamp;
+        distances[first] = 0;
+        parents[first] = first;
+        open.push(first, (long) remaining(field, start, target) << 32);
+
+        while (!open.isEmpty()) {
+            int state = open.pop();
+            closedStamps[state] = stamp;
+            this.expanded++;
+
+            int t = state / area;
+            int local = state - t * area;
+            int cell = start + (local / side - window) * stride +
+                       local % side - window;
+            if (t == window ||
+                    (cell == target && isFreeFrom(target, t, agent))) {
+                tracePlan(state, start, plan);
+                return true;
+            }
+
+            int now = this.planTime + t;
+            // Waiting first, then every move
+            for (int i = -1; i < offsets.length; i++) {
+                int neighbor;
+                int neighborLocal;
+                int cost;
+                if (i < 0) {
+                    neighbor = cell;
+                    neighborLocal = local;
+                    cost = PathFinder.STRAIGHT_COST;
+                } else {
+                    neighbor = cell + offsets[i];
+                    if (!grid.isWalkable(neighbor)) continue;
+                    if (!cornerCutting.allows(grid, cell, i)) continue;
+                    neighborLocal = local + Neighborhood.ROW_OFFSETS[i] * side +
+                                    Neighborhood.COLUMN_OFFSETS[i];
+                    cost = moveCosts[i] * grid.getCost(neighbor);
+                }
+
+                int next = (t + 1) * area + neighborLocal;
+                if (closedStamps[next] == stamp) continue;
+                if (!reservations.canMove(cell, neighbor, now, agent)) continue;
+
+                int estimate = remaining(field, neighbor, target);
+                if (estimate < 0) continue;
+
+                int distance = distances[state] + cost;
+                if (stamps[next] != stamp || distance < distances[next]) {
+                    stamps[next] = stamp;
+                    distances[next] = distance;
+                    parents[next] = state;
+                    open.push(next, (long) (distance + estimate) << 32 |
+                                    estimate);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // Whether no other agent is due on cell after time t of the window
+    private boolean isFreeFrom(int cell, int t, int agent) {
+        for (int u = t + 1; u <= this.window; u++) {
+            int holder = this.reservations.getAgent(cell, this.planTime + u);
+            if (holder != NONE && holder != agent) return false;
+        }
+        return true;
+    }
+
+    // Fills plan with the cells of the parent chain ending at state, then
+    // with its cell up to the end of the window
+    private void tracePlan(int state, int start, int[] plan) {
+        int area = this.side * this.side;
+        int stride = this.grid.getStride();
+        int end = state / area;
+
+        for (int t = end; t >= 0; t--) {
+            int local = state - t * area;
+            plan[t] = start + (local / this.side - this.window) * stride +
+                      local % this.side - this.window;
+            state = this.parents[state];
+        }
+        Arrays.fill(plan, end + 1, this.window + 1, plan[end]);
+    }
+
+    // Cost of the rest of the way from cell to target by the field, or -1
+    // when the target cannot be reached from there. Without a field it is
+    // only estimated.
+    private int remaining(FlowField field, int cell, int target) {
+        if (field == null) {
+            return estimate(cell, target);
+        }
+        return field.isReachable(cell) ? field.getDistance(cell) : -1;
+    }
+
+    private int estimate(int from, int to) {
+        return this.heuristic.estimate(
+                Math.abs(this.grid.row(from) - this.grid.row(to)),
+                Math.abs(this.grid.column(from) - this.grid.column(to)));
+    }
+}
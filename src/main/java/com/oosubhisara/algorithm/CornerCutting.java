@@ -0,0 +1,43 @@
+package com.oosubhisara.algorithm;
+
+// Which diagonal moves may pass the corners of walls. Only matters for
+// Neighborhood.EIGHT; orthogonal moves are never restricted.
+public enum CornerCutting {
+    // A diagonal move needs both orthogonal cells next to it walkable, so
+    // paths keep clear of every wall corner
+    FORBID,
+    // A diagonal move may clip the corner of one wall, but not squeeze
+    // between two walls that touch at their corners
+    FORBID_THROUGH_WALLS,
+    // Any diagonal move between walkable cells
+    ALLOW;
+
+    // Whether move i from cell passes the walls beside it
+    boolean allows(WalkableGrid grid, int cell, int i) {
+        if (i < 4 || this == ALLOW) return true;
+
+        return allowsCorner(
+                grid.isWalkable(
+                        cell + Neighborhood.ROW_OFFSETS[i] * grid.getStride()),
+                grid.isWalkable(cell + Neighborhood.COLUMN_OFFSETS[i]));
+    }
+
+    // As above, for maps addressed by row and column
+    boolean allows(Walkability map, int row, int column, int i) {
+        if (i < 4 || this == ALLOW) return true;
+
+        return allowsCorner(
+                map.isWalkable(row + Neighborhood.ROW_OFFSETS[i], column),
+                map.isWalkable(row, column + Neighborhood.COLUMN_OFFSETS[i]));
+    }
+
+    // Whether a move may pass diagonally between two cells that touch at
+    // the corner it crosses, given whether each is walkable
+    boolean allowsCorner(boolean rowSide, boolean columnSide) {
+        switch (this) {
+            case FORBID: return rowSide && columnSide;
+            case FORBID_THROUGH_WALLS: return rowSide || columnSide;
+            default: return true;
+        }
+    }
+}
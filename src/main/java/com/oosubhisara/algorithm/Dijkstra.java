@@ -0,0 +1,98 @@
+package com.oosubhisara.algorithm;
+
+// Dijkstra's algorithm over a WalkableGrid with weighted tiles. Move costs
+// are small integers, so the open list is a BucketQueue rather than a heap.
+public class Dijkstra implements PathFinder {
+    private final WalkableGrid grid;
+    private final Neighborhood neighborhood;
+    private final CornerCutting cornerCutting;
+    private final int[] offsets;
+    private final int[] moveCosts;
+
+    public Dijkstra(WalkableGrid grid) {
+        this(grid, Neighborhood.FOUR);
+    }
+
+    public Dijkstra(WalkableGrid grid, Neighborhood neighborhood) {
+        this(grid, neighborhood, CornerCutting.FORBID);
+    }
+
+    public Dijkstra(WalkableGrid grid, Neighborhood neighborhood,
+                    CornerCutting cornerCutting) {
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        this.cornerCutting = cornerCutting;
+        this.offsets = neighborhood.offsets(grid.getStride());
+        this.moveCosts = neighborhood.costs();
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return this.neighborhood;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return this.cornerCutting;
+    }
+
+    @Override
+    public boolean findPath(int start, int target, SearchWorkspace workspace) {
+        WalkableGrid grid = this.grid;
+        workspace.prepare(grid.size());
+        if (!grid.isWalkable(target)) {
+            return false;
+        }
+
+        int[] moveCosts = this.moveCosts;
+        BucketQueue open = workspace.bucketQueue(
+                moveCosts[moveCosts.length - 1] * grid.getMaxCost());
+        int[] parent = workspace.parent;
+        CellBitSet visited = workspace.visited;
+        CellBitSet closed = workspace.closed;
+        int[] distance = workspace.distance;
+        int[] offsets = this.offsets;
+        CornerCutting cornerCutting = this.cornerCutting;
+
+        visited.set(start);
+        parent[start] = start;
+        distance[start] = 0;
+        open.push(start, 0);
+
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            if (cell == target) {
+                workspace.tracePath(start, target);
+                workspace.pathCost = distance[target];
+                return true;
+            }
+
+            closed.set(cell);
+            workspace.expanded++;
+            if (workspace.checkCancelled()) return false;
+
+            for (int i = 0; i < offsets.length; i++) {
+                int neighbor = cell + offsets[i];
+                if (!grid.isWalkable(neighbor)) continue;
+
+                if (!cornerCutting.allows(grid, cell, i)) continue;
+
+                if (closed.get(neighbor)) continue;
+
+                int newDistance = distance[cell] + 
+                        moveCosts[i] * grid.getCost(neighbor);
+                if (!visited.get(neighbor) || newDistance < distance[neighbor]) {
+                    visited.set(neighbor);
+                    parent[neighbor] = cell;
+                    distance[neighbor] = newDistance;
+                    open.push(neighbor, newDistance);
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,316 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// Cost to one target from every cell of a WalkableGrid, found by a single
+// reverse Dijkstra flood from the target, and the move each cell should
+// make next. Any number of agents heading to the target then read their
+// next step in constant time instead of searching.
+//
+// The field listens to its grid and repairs itself when cells change: the
+// cells whose route ran through a changed cell, or diagonally past a new
+// wall, are reset and refilled from the cells around them, and cheaper
+// routes through the cell flood outwards only as far as distances drop.
+//
+// A field is updated in place by the thread that edits the grid. Other
+// threads should read a snapshot.
+public class FlowField implements GridListener {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    // Direction of the target and of cells that cannot reach it
+    public static final int NO_MOVE = -1;
+
+    private final WalkableGrid grid;
+    private final Neighborhood neighborhood;
+    private final CornerCutting cornerCutting;
+    private int target;
+    private final int[] offsets;
+    private final int[] moveCosts;
+    private final int[] distance;
+    // Move towards the target per cell, as an index into the offsets
+    private final byte[] direction;
+    private final boolean readOnly;
+    private IndexedMinHeap open;
+    private int expanded;
+
+    public FlowField(WalkableGrid grid, int target) {
+        this(grid, target, Neighborhood.FOUR);
+    }
+
+    public FlowField(WalkableGrid grid, int target, Neighborhood neighborhood) {
+        this(grid, target, neighborhood, CornerCutting.FORBID);
+    }
+
+    public FlowField(WalkableGrid grid, int target, Neighborhood neighborhood,
+                     CornerCutting cornerCutting) {
+        this(grid, target, neighborhood, cornerCutting, true);
+    }
+
+    // Without listening, for owners that forward the grid events themselves
+    FlowField(WalkableGrid grid, int target, Neighborhood neighborhood,
+              CornerCutting cornerCutting, boolean listen) {
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        this.cornerCutting = cornerCutting;
+        this.target = target;
+        this.offsets = neighborhood.offsets(grid.getStride());
+        this.moveCosts = neighborhood.costs();
+        this.distance = new int[grid.size()];
+        this.direction = new byte[grid.size()];
+        this.readOnly = false;
+        this.open = new IndexedMinHeap(grid.size());
+
+        compute();
+        if (listen && !grid.isReadOnly()) {
+            grid.addListener(this);
+        }
+    }
+
+    private FlowField(FlowField other) {
+        this.grid = other.grid.snapshot();
+        this.neighborhood = other.neighborhood;
+        this.cornerCutting = other.cornerCutting;
+        this.target = other.target;
+        this.offsets = other.offsets;
+        this.moveCosts = other.moveCosts;
+        this.distance = other.distance.clone();
+        this.direction = other.direction.clone();
+        this.readOnly = true;
+        this.expanded = other.expanded;
+    }
+
+    // Immutable copy of the field and of the grid it was computed on, which
+    // can be read from any number of threads at once
+    public synchronized FlowField snapshot() {
+        return this.readOnly ? this : new FlowField(this);
+    }
+
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return this.neighborhood;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return this.cornerCutting;
+    }
+
+    public int getTarget() {
+        return this.target;
+    }
+
+    // Cost of the shortest path from cell to the target, or UNREACHABLE
+    public int getDistance(int cell) {
+        return this.distance[cell];
+    }
+
+    public boolean isReachable(int cell) {
+        return this.distance[cell] != UNREACHABLE;
+    }
+
+    // Index into the Neighborhood moves of the next step, or NO_MOVE
+    public int getDirection(int cell) {
+        return this.direction[cell];
+    }
+
+    // The cell to step to from cell, or -1 at the target or when the
+    // target cannot be reached
+    public int nextCell(int cell) {
+        int move = this.direction[cell];
+        return move == NO_MOVE ? -1 : cell + this.offsets[move];
+    }
+
+    // Cells settled by the last full computation or repair
+    public synchronized int getExpanded() {
+        return this.expanded;
+    }
+
+    @Override
+    public synchronized void cellChanged(WalkableGrid grid, int index) {
+        cellsChanged(grid, new int[] { index }, 1);
+    }
+
+    // A batch of edits is repaired in one pass, so the cells routed through
+    // several changed cells are reset and refilled only once
+    @Override
+    public synchronized void cellsChanged(WalkableGrid grid, int[] indices,
+                                          int count) {
+        if (this.readOnly) return;
+
+        this.expanded = 0;
+        for (int i = 0; i < count; i++) {
+            if (indices[i] == this.target) {
+                // Every distance is measured from the target
+                compute();
+                return;
+            }
+        }
+        repair(indices, count);
+    }
+
+    // Points the field at another target, refilling the arrays it has
+    // rather than allocating new ones
+    synchronized void retarget(int target) {
+        if (this.readOnly) {
+            throw new IllegalStateException(
+                    "Flow field snapshot is read-only.");
+        }
+        this.target = target;
+        compute();
+    }
+
+    private void compute() {
+        Arrays.fill(this.distance, UNREACHABLE);
+        Arrays.fill(this.direction, (byte) NO_MOVE);
+        this.expanded = 0;
+        if (!this.grid.isWalkable(this.target)) return;
+
+        this.distance[this.target] = 0;
+        this.open.push(this.target, 0);
+        flood();
+    }
+
+    // Works for walls, opened cells and cost changes alike: the cells whose
+    // route ran through a changed cell, or diagonally past a new wall, lose
+    // their distances and are refilled from the cells around them. A
+    // walkable cell then takes the best route through its neighbours, and
+    // its neighbours are reconsidered for the diagonal moves it may have
+    // unblocked.
+    private void repair(int[] cells, int count) {
+        int[] offsets = this.offsets;
+        int stride = this.grid.getStride();
+
+        int[] stack = new int[16];
+        int size = 0;
+        for (int c = 0; c < count; c++) {
+            int cell = cells[c];
+            if (isReachable(cell)) {
+                stack = push(stack, size++, cell);
+            }
+            // Diagonal moves past a new wall may no longer be allowed
+            if (this.grid.isWalkable(cell) ||
+                    this.cornerCutting == CornerCutting.ALLOW) {
+                continue;
+            }
+
+            for (int i = 0; i < offsets.length; i++) {
+                int neighbor = cell + offsets[i];
+                int move = this.direction[neighbor];
+                if (move < 4) continue;
+
+                int next = neighbor + offsets[move];
+                int rowSide = neighbor +
+                              Neighborhood.ROW_OFFSETS[move] * stride;
+                int columnSide = neighbor + Neighborhood.COLUMN_OFFSETS[move];
+                if (next != cell && (rowSide == cell || columnSide == cell)) {
+                    stack = push(stack, size++, neighbor);
+                }
+            }
+        }
+
+        // Everything routed through those cells loses its distance too
+        int[] lost = new int[16];
+        int numLost = 0;
+        while (size > 0) {
+            int lostCell = stack[--size];
+            if (!isReachable(lostCell)) continue;
+
+            lost = push(lost, numLost++, lostCell);
+            this.distance[lostCell] = UNREACHABLE;
+            this.direction[lostCell] = (byte) NO_MOVE;
+            for (int i = 0; i < offsets.length; i++) {
+                int neighbor = lostCell - offsets[i];
+                if (this.direction[neighbor] == i) {
+                    stack = push(stack, size++, neighbor);
+                }
+            }
+        }
+
+        // Refill the lost cells from the cells that kept their distances
+        for (int i = 0; i < numLost; i++) {
+            if (this.grid.isWalkable(lost[i])) {
+                relaxFromNeighbors(lost[i]);
+            }
+        }
+        for (int c = 0; c < count; c++) {
+            int cell = cells[c];
+            if (!this.grid.isWalkable(cell)) continue;
+
+            relaxFromNeighbors(cell);
+            for (int i = 0; i < offsets.length; i++) {
+                int neighbor = cell + offsets[i];
+                if (isReachable(neighbor)) {
+                    this.open.push(neighbor, this.distance[neighbor]);
+                }
+            }
+        }
+        flood();
+    }
+
+    private static int[] push(int[] stack, int size, int cell) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, size * 2);
+        }
+        stack[size] = cell;
+        return stack;
+    }
+
+    // Gives cell the best distance through a reachable neighbour and queues
+    // it if that improves on its own
+    private void relaxFromNeighbors(int cell) {
+        for (int i = 0; i < this.offsets.length; i++) {
+            int neighbor = cell + this.offsets[i];
+            if (!isReachable(neighbor) || !canMove(cell, i)) continue;
+
+            int newDistance = this.distance[neighbor] +
+                    this.moveCosts[i] * this.grid.getCost(neighbor);
+            if (newDistance < this.distance[cell]) {
+                this.distance[cell] = newDistance;
+                this.direction[cell] = (byte) i;
+                this.open.push(cell, newDistance);
+            }
+        }
+    }
+
+    // Dijkstra from the queued cells outwards, lowering distances only
+    private void flood() {
+        WalkableGrid grid = this.grid;
+        int[] offsets = this.offsets;
+        int[] moveCosts = this.moveCosts;
+        int[] distance = this.distance;
+        IndexedMinHeap open = this.open;
+
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            this.expanded++;
+            int cellCost = grid.getCost(cell);
+
+            // Relax the cells that can step into this one; moves are
+            // symmetric, so the cell one move back steps here with the
+            // opposite move
+            for (int i = 0; i < offsets.length; i++) {
+                int from = cell - offsets[i];
+                if (!grid.isWalkable(from) || !canMove(from, i)) continue;
+
+                int newDistance = distance[cell] + moveCosts[i] * cellCost;
+                if (newDistance < distance[from]) {
+                    distance[from] = newDistance;
+                    this.direction[from] = (byte) i;
+                    open.push(from, newDistance);
+                }
+            }
+        }
+    }
+
+    // Whether move i from cell ends on a walkable cell and passes the walls
+    // beside it
+    private boolean canMove(int cell, int i) {
+        return this.grid.isWalkable(cell + this.offsets[i]) &&
+               this.cornerCutting.allows(this.grid, cell, i);
+    }
+}
@@ -0,0 +1,186 @@
+package com.oosubhisara.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Answers queries by following the FlowField of their target, so that many
+// queries towards one target share a single flood. The fields of the last
+// few targets are kept and repaired as the grid changes. A new target takes
+// over the arrays of the field used longest ago once there are as many as
+// the capacity, so queries to ever new targets flood the map but allocate
+// nothing. Searches run one at a time.
+public class FlowFieldPathFinder implements PathFinder, GridListener {
+    public static final int DEFAULT_CAPACITY = 4;
+
+    private final WalkableGrid grid;
+    private final Neighborhood neighborhood;
+    private final CornerCutting cornerCutting;
+    private final int capacity;
+    // Most recently used last
+    private final List<FlowField> fields;
+
+    public FlowFieldPathFinder(WalkableGrid grid) {
+        this(grid, Neighborhood.FOUR);
+    }
+
+    public FlowFieldPathFinder(WalkableGrid grid, Neighborhood neighborhood) {
+        this(grid, neighborhood, CornerCutting.FORBID);
+    }
+
+    public FlowFieldPathFinder(WalkableGrid grid, Neighborhood neighborhood,
+                               CornerCutting cornerCutting) {
+        this(grid, neighborhood, cornerCutting, DEFAULT_CAPACITY);
+    }
+
+    // Keeping the fields of up to capacity targets
+    public FlowFieldPathFinder(WalkableGrid grid, Neighborhood neighborhood,
+                               CornerCutting cornerCutting, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity must be at least 1.");
+        }
+
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        this.cornerCutting = cornerCutting;
+        this.capacity = capacity;
+        this.fields = new ArrayList<FlowField>(capacity);
+        if (!grid.isReadOnly()) {
+            grid.addListener(this);
+        }
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return this.neighborhood;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return this.cornerCutting;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    // The field of the last target, or null before the first query
+    public synchronized FlowField getField() {
+        return this.fields.isEmpty()
+                ? null : this.fields.get(this.fields.size() - 1);
+    }
+
+    // Number of fields kept
+    public synchronized int getNumFields() {
+        return this.fields.size();
+    }
+
+    @Override
+    public synchronized void cellChanged(WalkableGrid grid, int index) {
+        for (FlowField field : this.fields) {
+            field.cellChanged(grid, index);
+        }
+    }
+
+    @Override
+    public synchronized void cellsChanged(WalkableGrid grid, int[] indices,
+                                          int count) {
+        for (FlowField field : this.fields) {
+            field.cellsChanged(grid, indices, count);
+        }
+    }
+
+    @Override
+    public synchronized boolean findPath(int start, int target,
+                                         SearchWorkspace workspace) {
+        workspace.prepare(this.grid.size());
+        FlowField field = findField(target);
+        if (field == null) {
+            field = fieldTo(target);
+            // Only the query that floods the field pays for it
+            workspace.expanded = field.getExpanded();
+        }
+
+        // Like the other engines, a walled-in start may still step out
+        int first = start;
+        int cost = 0;
+        if (!this.grid.isWalkable(start)) {
+            first = bestStepFromWall(field, start);
+            if (first < 0) return false;
+            cost = field.getDistance(first) + stepCost(start, first);
+        } else if (field.isReachable(start)) {
+            cost = field.getDistance(start);
+        } else {
+            return false;
+        }
+
+        int[] path = workspace.path;
+        int length = 0;
+        if (first != start) {
+            path[length++] = start;
+        }
+        for (int cell = first; cell >= 0; cell = field.nextCell(cell)) {
+            path[length++] = cell;
+        }
+        workspace.pathLength = length;
+        workspace.pathCost = cost;
+        return true;
+    }
+
+    // The neighbour of a wall cell with the cheapest route to the target,
+    // or -1 if none has one
+    private int bestStepFromWall(FlowField field, int cell) {
+        int[] offsets = this.neighborhood.offsets(this.grid.getStride());
+
+        int best = -1;
+        int bestCost = Integer.MAX_VALUE;
+        for (int i = 0; i < offsets.length; i++) {
+            int neighbor = cell + offsets[i];
+            if (!field.isReachable(neighbor)) continue;
+            if (!this.cornerCutting.allows(this.grid, cell, i)) continue;
+
+            int cost = field.getDistance(neighbor) + stepCost(cell, neighbor);
+            if (cost < bestCost) {
+                best = neighbor;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    private int stepCost(int from, int to) {
+        boolean diagonal = this.grid.row(from) != this.grid.row(to) &&
+                           this.grid.column(from) != this.grid.column(to);
+        return (diagonal ? DIAGONAL_COST : STRAIGHT_COST) *
+               this.grid.getCost(to);
+    }
+
+    // The kept field of target, now the most recently used, or null
+    private FlowField findField(int target) {
+        for (int i = this.fields.size() - 1; i >= 0; i--) {
+            FlowField field = this.fields.get(i);
+            if (field.getTarget() == target) {
+                this.fields.remove(i);
+                this.fields.add(field);
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private FlowField fieldTo(int target) {
+        FlowField field;
+        if (this.fields.size() < this.capacity) {
+            field = new FlowField(this.grid, target, this.neighborhood,
+                                  this.cornerCutting, false);
+        } else {
+            field = this.fields.remove(0);
+            field.retarget(target);
+        }
+        this.fields.add(field);
+        return field;
+    }
+}
@@ -0,0 +1,18 @@
+package com.oosubhisara.algorithm;
+
+// Notified by a WalkableGrid when the walkability of a cell changes, or the
+// cost of a walkable cell. The cell is walkable afterwards in the second
+// case, so listeners cannot tell a cost change from an opened cell.
+public interface GridListener {
+    void cellChanged(WalkableGrid grid, int index);
+
+    // Notified once for a committed WalkableGrid.Edit, with the first count
+    // indices holding every cell it changed, in index order. The grid
+    // already shows all of the changes, so a listener hearing of them one
+    // at a time must not expect the other cells as they were.
+    default void cellsChanged(WalkableGrid grid, int[] indices, int count) {
+        for (int i = 0; i < count; i++) {
+            cellChanged(grid, indices[i]);
+        }
+    }
+}
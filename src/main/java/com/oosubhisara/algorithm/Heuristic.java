@@ -0,0 +1,33 @@
+package com.oosubhisara.algorithm;
+
+// Lower bounds on the cost between two cells on an open grid
+public enum Heuristic {
+    // Exact on an open 4-connected grid
+    MANHATTAN {
+        public int estimate(int rowDistance, int columnDistance) {
+            return PathFinder.STRAIGHT_COST * (rowDistance + columnDistance);
+        }
+    },
+    // Exact on an open 8-connected grid
+    OCTILE {
+        public int estimate(int rowDistance, int columnDistance) {
+            int diagonal = Math.min(rowDistance, columnDistance);
+            int straight = Math.max(rowDistance, columnDistance) - diagonal;
+            return PathFinder.DIAGONAL_COST * diagonal + 
+                   PathFinder.STRAIGHT_COST * straight;
+        }
+    },
+    // Straight-line distance, for paths at any angle. Capped by OCTILE,
+    // which rounds the cost of a diagonal step down.
+    EUCLIDEAN {
+        public int estimate(int rowDistance, int columnDistance) {
+            int straightLine = (int) (PathFinder.STRAIGHT_COST *
+                    Math.hypot(rowDistance, columnDistance));
+            return Math.min(straightLine,
+                            OCTILE.estimate(rowDistance, columnDistance));
+        }
+    };
+
+    // Both distances are absolute differences in rows and columns
+    public abstract int estimate(int rowDistance, int columnDistance);
+}
@@ -0,0 +1,620 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// Hierarchical path finding (HPA*) with 4-connected moves. The grid is split
+// into square clusters. Where a run of walkable cells crosses the border of
+// two clusters, one or two transitions are placed, each a pair of abstract
+// nodes facing each other across the border. Distances between the nodes of
+// a cluster are precomputed by a BFS that stays inside the cluster.
+//
+// A query links start and target to the nodes of their clusters, runs A* on
+// the small abstract graph and then refines each abstract edge into cells
+// with another in-cluster BFS. Paths are close to, but not always exactly,
+// the shortest. Every step counts the same, whatever the cost of the
+// tiles.
+//
+// Edits to the grid mark only the cluster of the changed cell, and the
+// borders the cell lies on, for rebuilding before the next query.
+public class HierarchicalPathFinder implements PathFinder, GridListener {
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    // Runs of walkable border cells at least this long get a transition at
+    // both ends instead of one in the middle
+    private static final int LONG_RUN = 6;
+    private static final int NONE = -1;
+    private static final int START_NODE = 0;
+    private static final int TARGET_NODE = 1;
+
+    private final WalkableGrid grid;
+    private final int clusterSize;
+    private final int numClusterRows;
+    private final int numClusterColumns;
+
+    // Abstract nodes, allocated from a pool with a free list
+    private int[] nodeCell;
+    private int[] nodeCluster;
+    private int[] nodePartner;
+    private int[] nodeSlot;
+    private int numNodes;
+    private int[] freeNodes;
+    private int numFreeNodes;
+
+    // Transitions across the east and south border of every cluster, stored
+    // as pairs of node ids: the node inside the cluster, then the node in
+    // the neighbouring cluster
+    private final int[][] eastTransitions;
+    private final int[][] southTransitions;
+
+    // Node ids of every cluster and the step distances between them, with
+    // NONE where one cannot be reached from another inside the cluster
+    private final int[][] clusterNodes;
+    private final int[][] clusterDistances;
+
+    private final boolean[] dirtyEast;
+    private final boolean[] dirtySouth;
+    private final boolean[] dirtyCluster;
+    private final int[] dirtyList;
+    private int numDirty;
+
+    // Scratch memory of the in-cluster BFS
+    private final int[] localQueue;
+    private final int[] localDistance;
+    private final int[] localParent;
+
+    // Scratch memory of the abstract search
+    private IndexedMinHeap abstractOpen;
+    private int[] abstractDistance;
+    private int[] abstractParent;
+    private CellBitSet abstractVisited;
+    private CellBitSet abstractClosed;
+    private int[] abstractPath;
+    private int[] startDistances;
+    private int[] targetDistances;
+    private int directDistance;
+
+    public HierarchicalPathFinder(WalkableGrid grid) {
+        this(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalPathFinder(WalkableGrid grid, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException(
+                    "Cluster size must be at least 2.");
+        }
+
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+        this.numClusterRows =
+                (grid.getNumRows() + clusterSize - 1) / clusterSize;
+        this.numClusterColumns =
+                (grid.getNumColumns() + clusterSize - 1) / clusterSize;
+
+        int numClusters = this.numClusterRows * this.numClusterColumns;
+        this.eastTransitions = new int[numClusters][];
+        this.southTransitions = new int[numClusters][];
+        this.clusterNodes = new int[numClusters][];
+        this.clusterDistances = new int[numClusters][];
+        this.dirtyEast = new boolean[numClusters];
+        this.dirtySouth = new boolean[numClusters];
+        this.dirtyCluster = new boolean[numClusters];
+        this.dirtyList = new int[numClusters];
+        this.numDirty = 0;
+
+        this.localQueue = new int[clusterSize * clusterSize];
+        this.localDistance = new int[clusterSize * clusterSize];
+        this.localParent = new int[clusterSize * clusterSize];
+
+        // Start and target get fixed nodes
+        int capacity = Math.max(16, numClusters * 4);
+        this.nodeCell = new int[capacity];
+        this.nodeCluster = new int[capacity];
+        this.nodePartner = new int[capacity];
+        this.nodeSlot = new int[capacity];
+        this.freeNodes = new int[capacity];
+        this.numNodes = 2;
+        this.numFreeNodes = 0;
+        this.nodePartner[START_NODE] = NONE;
+        this.nodePartner[TARGET_NODE] = NONE;
+
+        for (int cluster = 0; cluster < numClusters; cluster++) {
+            this.eastTransitions[cluster] = new int[0];
+            this.southTransitions[cluster] = new int[0];
+            markDirty(cluster, true, true);
+        }
+        rebuild();
+
+        if (!grid.isReadOnly()) {
+            grid.addListener(this);
+        }
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    public int getClusterSize() {
+        return this.clusterSize;
+    }
+
+    // Number of abstract nodes, not counting start and target
+    public int getNumNodes() {
+        return this.numNodes - 2 - this.numFreeNodes;
+    }
+
+    @Override
+    public synchronized void cellChanged(WalkableGrid grid, int index) {
+        int row = grid.row(index);
+        int column = grid.column(index);
+        int clusterRow = row / this.clusterSize;
+        int clusterColumn = column / this.clusterSize;
+        int cluster = clusterRow * this.numClusterColumns + clusterColumn;
+        int rowInCluster = row % this.clusterSize;
+        int columnInCluster = column % this.clusterSize;
+
+        markDirty(cluster, columnInCluster == this.clusterSize - 1,
+                  rowInCluster == this.clusterSize - 1);
+        if (columnInCluster == 0 && clusterColumn > 0) {
+            markDirty(cluster - 1, true, false);
+        }
+        if (rowInCluster == 0 && clusterRow > 0) {
+            markDirty(cluster - this.numClusterColumns, false, true);
+        }
+    }
+
+    // Queries on one instance are serialized, since they share the scratch
+    // memory of the abstract search
+    @Override
+    public synchronized boolean findPath(int start, int target,
+                                         SearchWorkspace workspace) {
+        workspace.prepare(this.grid.size());
+        if (!this.grid.isWalkable(target)) {
+            return false;
+        }
+        if (start == target) {
+            workspace.tracePath(start, start);
+            return true;
+        }
+
+        rebuild();
+        linkEndpoints(start, target, workspace);
+
+        int pathNodes = searchAbstract(workspace);
+        workspace.peakFrontier = this.abstractOpen.peakSize();
+        if (pathNodes == 0) {
+            return false;
+        }
+
+        refine(pathNodes, workspace);
+        workspace.pathCost = this.abstractDistance[TARGET_NODE] *
+                             PathFinder.STRAIGHT_COST;
+        return true;
+    }
+
+    private int clusterOf(int cell) {
+        return this.grid.row(cell) / this.clusterSize * this.numClusterColumns +
+               this.grid.column(cell) / this.clusterSize;
+    }
+
+    private void markDirty(int cluster, boolean east, boolean south) {
+        if (!this.dirtyCluster[cluster]) {
+            this.dirtyCluster[cluster] = true;
+            this.dirtyList[this.numDirty++] = cluster;
+        }
+        this.dirtyEast[cluster] |= east;
+        this.dirtySouth[cluster] |= south;
+    }
+
+    // Rebuilds the dirty borders, then the node lists and distances of the
+    // clusters touching them
+    private void rebuild() {
+        if (this.numDirty == 0) return;
+
+        int numBorderDirty = this.numDirty;
+        for (int i = 0; i < numBorderDirty; i++) {
+            int cluster = this.dirtyList[i];
+            int clusterColumn = cluster % this.numClusterColumns;
+            int clusterRow = cluster / this.numClusterColumns;
+
+            if (this.dirtyEast[cluster]) {
+                this.dirtyEast[cluster] = false;
+                if (clusterColumn + 1 < this.numClusterColumns) {
+                    this.eastTransitions[cluster] = buildTransitions(
+                            cluster, this.eastTransitions[cluster], true);
+                    markDirty(cluster + 1, false, false);
+                }
+            }
+            if (this.dirtySouth[cluster]) {
+                this.dirtySouth[cluster] = false;
+                if (clusterRow + 1 < this.numClusterRows) {
+                    this.southTransitions[cluster] = buildTransitions(
+                            cluster, this.southTransitions[cluster], false);
+                    markDirty(cluster + this.numClusterColumns, false, false);
+                }
+            }
+        }
+
+        for (int i = 0; i < this.numDirty; i++) {
+            int cluster = this.dirtyList[i];
+            this.dirtyCluster[cluster] = false;
+            buildCluster(cluster);
+        }
+        this.numDirty = 0;
+    }
+
+    // Replaces the transitions across the east or south border of cluster
+    private int[] buildTransitions(int cluster, int[] oldTransitions,
+                                   boolean east) {
+        for (int node : oldTransitions) {
+            releaseNode(node);
+        }
+
+        int clusterRow = cluster / this.numClusterColumns;
+        int clusterColumn = cluster % this.numClusterColumns;
+        int neighborCluster = east ? cluster + 1
+                                   : cluster + this.numClusterColumns;
+        int length;
+        int first;
+        int along;
+        int across;
+
+        // Walk the border cells inside the cluster, from first in steps of
+        // along; their neighbours across the border are across away
+        if (east) {
+            int column = clusterColumn * this.clusterSize +
+                         this.clusterSize - 1;
+            int row = clusterRow * this.clusterSize;
+            length = Math.min(this.clusterSize, this.grid.getNumRows() - row);
+            first = this.grid.index(row, column);
+            along = this.grid.getStride();
+            across = 1;
+        } else {
+            int row = clusterRow * this.clusterSize + this.clusterSize - 1;
+            int column = clusterColumn * this.clusterSize;
+            length = Math.min(this.clusterSize,
+                              this.grid.getNumColumns() - column);
+            first = this.grid.index(row, column);
+            along = 1;
+            across = this.grid.getStride();
+        }
+
+        int[] transitions = new int[4 * length];
+        int count = 0;
+        int runStart = NONE;
+
+        for (int i = 0; i <= length; i++) {
+            int cell = first + i * along;
+            boolean open = i < length && this.grid.isWalkable(cell) &&
+                           this.grid.isWalkable(cell + across);
+
+            if (open && runStart == NONE) {
+                runStart = i;
+            } else if (!open && runStart != NONE) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= LONG_RUN) {
+                    count = addTransition(transitions, count,
+                            first + runStart * along, across,
+                            cluster, neighborCluster);
+                    count = addTransition(transitions, count,
+                            first + runEnd * along, across,
+                            cluster, neighborCluster);
+                } else {
+                    count = addTransition(transitions, count,
+                            first + (runStart + runEnd) / 2 * along, across,
+                            cluster, neighborCluster);
+                }
+                runStart = NONE;
+            }
+        }
+
+        return Arrays.copyOf(transitions, count);
+    }
+
+    private int addTransition(int[] transitions, int count, int cell,
+                              int across, int cluster, int neighborCluster) {
+        int inside = allocateNode(cell, cluster);
+        int outside = allocateNode(cell + across, neighborCluster);
+        this.nodePartner[inside] = outside;
+        this.nodePartner[outside] = inside;
+        transitions[count++] = inside;
+        transitions[count++] = outside;
+        return count;
+    }
+
+    private int allocateNode(int cell, int cluster) {
+        int node;
+        if (this.numFreeNodes > 0) {
+            node = this.freeNodes[--this.numFreeNodes];
+        } else {
+            if (this.numNodes == this.nodeCell.length) {
+                int capacity = this.nodeCell.length * 2;
+                this.nodeCell = Arrays.copyOf(this.nodeCell, capacity);
+                this.nodeCluster = Arrays.copyOf(this.nodeCluster, capacity);
+                this.nodePartner = Arrays.copyOf(this.nodePartner, capacity);
+                this.nodeSlot = Arrays.copyOf(this.nodeSlot, capacity);
+                this.freeNodes = Arrays.copyOf(this.freeNodes, capacity);
+            }
+            node = this.numNodes++;
+        }
+
+        this.nodeCell[node] = cell;
+        this.nodeCluster[node] = cluster;
+        this.nodePartner[node] = NONE;
+        return node;
+    }
+
+    private void releaseNode(int node) {
+        this.nodeCluster[node] = NONE;
+        this.freeNodes[this.numFreeNodes++] = node;
+    }
+
+    // Collects the nodes on all four borders of cluster and computes the
+    // distances between them
+    private void buildCluster(int cluster) {
+        int clusterRow = cluster / this.numClusterColumns;
+        int clusterColumn = cluster % this.numClusterColumns;
+
+        int[] east = this.eastTransitions[cluster];
+        int[] south = this.southTransitions[cluster];
+        int[] west = clusterColumn > 0
+                ? this.eastTransitions[cluster - 1] : new int[0];
+        int[] north = clusterRow > 0
+                ? this.southTransitions[cluster - this.numClusterColumns]
+                : new int[0];
+
+        int numNodes = (east.length + south.length +
+                        west.length + north.length) / 2;
+        int[] nodes = new int[numNodes];
+        int count = 0;
+        for (int i = 0; i < east.length; i += 2) nodes[count++] = east[i];
+        for (int i = 0; i < south.length; i += 2) nodes[count++] = south[i];
+        for (int i = 1; i < west.length; i += 2) nodes[count++] = west[i];
+        for (int i = 1; i < north.length; i += 2) nodes[count++] = north[i];
+
+        // Distances are symmetric, so each BFS fills a row and a column
+        int[] distances = new int[numNodes * numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            this.nodeSlot[nodes[i]] = i;
+            if (i == numNodes - 1) break;
+
+            searchCluster(cluster, this.nodeCell[nodes[i]], NONE);
+            for (int j = i + 1; j < numNodes; j++) {
+                int distance = this.localDistance[localIndex(
+                        cluster, this.nodeCell[nodes[j]])];
+                distances[i * numNodes + j] = distance;
+                distances[j * numNodes + i] = distance;
+            }
+        }
+
+        this.clusterNodes[cluster] = nodes;
+        this.clusterDistances[cluster] = distances;
+    }
+
+    private int localIndex(int cluster, int cell) {
+        int row = this.grid.row(cell) -
+                  cluster / this.numClusterColumns * this.clusterSize;
+        int column = this.grid.column(cell) -
+                     cluster % this.numClusterColumns * this.clusterSize;
+        return row * this.clusterSize + column;
+    }
+
+    // BFS from source that stays inside cluster. Fills localDistance with
+    // step counts, NONE where unreachable, and stops early at stop unless
+    // it is NONE. Returns the number of cells expanded.
+    private int searchCluster(int cluster, int source, int stop) {
+        int clusterRow = cluster / this.numClusterColumns;
+        int clusterColumn = cluster % this.numClusterColumns;
+        int firstRow = clusterRow * this.clusterSize;
+        int firstColumn = clusterColumn * this.clusterSize;
+        int height = Math.min(this.clusterSize,
+                              this.grid.getNumRows() - firstRow);
+        int width = Math.min(this.clusterSize,
+                             this.grid.getNumColumns() - firstColumn);
+        int size = this.clusterSize;
+        int origin = this.grid.index(firstRow, firstColumn);
+        int stride = this.grid.getStride();
+        int[] queue = this.localQueue;
+        int[] distance = this.localDistance;
+        int[] parent = this.localParent;
+
+        Arrays.fill(distance, NONE);
+        int sourceLocal = localIndex(cluster, source);
+        int stopLocal = stop == NONE ? NONE : localIndex(cluster, stop);
+        int head = 0;
+        int tail = 0;
+        distance[sourceLocal] = 0;
+        parent[sourceLocal] = sourceLocal;
+        queue[tail++] = sourceLocal;
+
+        while (head < tail) {
+            int local = queue[head++];
+            if (local == stopLocal) break;
+
+            int row = local / size;
+            int column = local % size;
+            for (int i = 0; i < 4; i++) {
+                int neighborRow = row + Neighborhood.ROW_OFFSETS[i];
+                int neighborColumn = column + Neighborhood.COLUMN_OFFSETS[i];
+                if (neighborRow < 0 || neighborRow >= height ||
+                        neighborColumn < 0 || neighborColumn >= width) {
+                    continue;
+                }
+
+                int neighbor = neighborRow * size + neighborColumn;
+                if (distance[neighbor] == NONE && this.grid.isWalkable(
+                        origin + neighborRow * stride + neighborColumn)) {
+                    distance[neighbor] = distance[local] + 1;
+                    parent[neighbor] = local;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+
+        return head;
+    }
+
+    // Computes the distances from start and target to the nodes of their
+    // clusters, and between start and target if they share a cluster
+    private void linkEndpoints(int start, int target,
+                               SearchWorkspace workspace) {
+        int startCluster = clusterOf(start);
+        int targetCluster = clusterOf(target);
+        this.nodeCell[START_NODE] = start;
+        this.nodeCluster[START_NODE] = startCluster;
+        this.nodeCell[TARGET_NODE] = target;
+        this.nodeCluster[TARGET_NODE] = targetCluster;
+
+        workspace.expanded += searchCluster(startCluster, start, NONE);
+        this.startDistances = distancesToNodes(startCluster,
+                                               this.startDistances);
+        this.directDistance = startCluster == targetCluster
+                ? this.localDistance[localIndex(startCluster, target)] : NONE;
+
+        workspace.expanded += searchCluster(targetCluster, target, NONE);
+        this.targetDistances = distancesToNodes(targetCluster,
+                                                this.targetDistances);
+    }
+
+    private int[] distancesToNodes(int cluster, int[] buffer) {
+        int[] nodes = this.clusterNodes[cluster];
+        if (buffer == null || buffer.length < nodes.length) {
+            buffer = new int[Math.max(16, nodes.length)];
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            buffer[i] = this.localDistance[localIndex(cluster,
+                                                      this.nodeCell[nodes[i]])];
+        }
+        return buffer;
+    }
+
+    // A* from the start node to the target node. Returns the number of
+    // nodes on the path found, stored target first in abstractPath, or 0.
+    private int searchAbstract(SearchWorkspace workspace) {
+        int capacity = this.nodeCell.length;
+        if (this.abstractOpen == null ||
+                this.abstractOpen.capacity() < capacity) {
+            this.abstractOpen = new IndexedMinHeap(capacity);
+            this.abstractDistance = new int[capacity];
+            this.abstractParent = new int[capacity];
+            this.abstractVisited = new CellBitSet(capacity);
+            this.abstractClosed = new CellBitSet(capacity);
+            this.abstractPath = new int[capacity];
+        } else {
+            this.abstractOpen.clear();
+            this.abstractVisited.clear();
+            this.abstractClosed.clear();
+        }
+
+        this.abstractDistance[START_NODE] = 0;
+        this.abstractParent[START_NODE] = START_NODE;
+        this.abstractVisited.set(START_NODE);
+        this.abstractOpen.push(START_NODE, 0);
+
+        while (!this.abstractOpen.isEmpty()) {
+            int node = this.abstractOpen.pop();
+            if (node == TARGET_NODE) {
+                int count = 0;
+                for (int n = TARGET_NODE; n != START_NODE;
+                        n = this.abstractParent[n]) {
+                    this.abstractPath[count++] = n;
+                }
+                this.abstractPath[count++] = START_NODE;
+                return count;
+            }
+
+            this.abstractClosed.set(node);
+            workspace.expanded++;
+            if (workspace.checkCancelled()) return 0;
+
+            int cluster = this.nodeCluster[node];
+            int[] nodes = this.clusterNodes[cluster];
+
+            if (node == START_NODE) {
+                for (int i = 0; i < nodes.length; i++) {
+                    relax(node, nodes[i], this.startDistances[i]);
+                }
+                relax(node, TARGET_NODE, this.directDistance);
+                continue;
+            }
+
+            relax(node, this.nodePartner[node], 1);
+
+            int slot = this.nodeSlot[node];
+            int[] distances = this.clusterDistances[cluster];
+            for (int i = 0; i < nodes.length; i++) {
+                if (i != slot) {
+                    relax(node, nodes[i], distances[slot * nodes.length + i]);
+                }
+            }
+            if (cluster == this.nodeCluster[TARGET_NODE]) {
+                relax(node, TARGET_NODE, this.targetDistances[slot]);
+            }
+        }
+
+        return 0;
+    }
+
+    private void relax(int node, int neighbor, int edgeDistance) {
+        if (edgeDistance == NONE || this.abstractClosed.get(neighbor)) {
+            return;
+        }
+
+        int newDistance = this.abstractDistance[node] + edgeDistance;
+        if (!this.abstractVisited.get(neighbor) ||
+                newDistance < this.abstractDistance[neighbor]) {
+            this.abstractVisited.set(neighbor);
+            this.abstractDistance[neighbor] = newDistance;
+            this.abstractParent[neighbor] = node;
+
+            int cell = this.nodeCell[neighbor];
+            int target = this.nodeCell[TARGET_NODE];
+            int estimate = Math.abs(this.grid.row(cell) -
+                                    this.grid.row(target)) +
+                           Math.abs(this.grid.column(cell) -
+                                    this.grid.column(target));
+            this.abstractOpen.push(neighbor,
+                    (long) (newDistance + estimate) << 32 | estimate);
+        }
+    }
+
+    // Turns the abstract path into cells. Transitions are single steps;
+    // every other edge is found again by an in-cluster BFS.
+    private void refine(int pathNodes, SearchWorkspace workspace) {
+        int[] path = workspace.path;
+        int length = 0;
+        path[length++] = this.nodeCell[START_NODE];
+
+        for (int i = pathNodes - 1; i > 0; i--) {
+            int from = this.abstractPath[i];
+            int to = this.abstractPath[i - 1];
+            int fromCell = this.nodeCell[from];
+            int toCell = this.nodeCell[to];
+
+            if (this.nodeCluster[from] != this.nodeCluster[to]) {
+                path[length++] = toCell;
+                continue;
+            }
+            if (fromCell == toCell) continue;
+
+            int cluster = this.nodeCluster[from];
+            workspace.expanded += searchCluster(cluster, fromCell, toCell);
+
+            // Walk back from toCell, then copy the segment in order
+            int sourceLocal = localIndex(cluster, fromCell);
+            int local = localIndex(cluster, toCell);
+            int steps = this.localDistance[local];
+            int firstRow = cluster / this.numClusterColumns * this.clusterSize;
+            int firstColumn =
+                    cluster % this.numClusterColumns * this.clusterSize;
+            for (int j = length + steps - 1; local != sourceLocal; j--) {
+                path[j] = this.grid.index(firstRow + local / this.clusterSize,
+                        firstColumn + local % this.clusterSize);
+                local = this.localParent[local];
+            }
+            length += steps;
+        }
+
+        workspace.pathLength = length;
+    }
+}
@@ -0,0 +1,201 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// D* Lite over a WalkableGrid with 4-connected moves. The planner searches
+// backwards from the target and keeps its distances between queries. When a
+// cell of the grid changes, only the cells whose distance to the target
+// depended on it are repaired at the next query, and moving the start does
+// not invalidate anything, so replanning costs in proportion to the change
+// rather than to the map.
+//
+// Changing the target starts the search over.
+public class IncrementalPlanner implements PathFinder, GridListener {
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final int NONE = -1;
+
+    private final WalkableGrid grid;
+    private final int[] offsets;
+    private final int[] distance;
+    private final int[] lookahead;
+    private final IndexedMinHeap open;
+    private int target;
+    private int lastStart;
+    private int keyModifier;
+
+    public IncrementalPlanner(WalkableGrid grid) {
+        this.grid = grid;
+        int stride = grid.getStride();
+        this.offsets = new int[] { -stride, 1, stride, -1 };
+
+        // distance is the g value of D* Lite, lookahead its rhs value
+        this.distance = new int[grid.size()];
+        this.lookahead = new int[grid.size()];
+        this.open = new IndexedMinHeap(grid.size());
+        this.target = NONE;
+        this.lastStart = NONE;
+
+        if (!grid.isReadOnly()) {
+            grid.addListener(this);
+        }
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    @Override
+    public synchronized void cellChanged(WalkableGrid grid, int index) {
+        if (this.target == NONE) return;
+
+        // The moves into and out of the cell changed cost
+        updateCell(index);
+        for (int offset : this.offsets) {
+            updateCell(index + offset);
+        }
+    }
+
+    @Override
+    public synchronized boolean findPath(int start, int target,
+                                         SearchWorkspace workspace) {
+        workspace.prepare(this.grid.size());
+        if (!this.grid.isWalkable(target)) {
+            this.target = NONE;
+            return false;
+        }
+
+        if (target != this.target) {
+            reset(start, target);
+        } else if (start != this.lastStart) {
+            // Keys already queued were computed from the old start; raise
+            // new keys by the most the estimates can have dropped
+            this.keyModifier += estimate(this.lastStart, start);
+            this.lastStart = start;
+        }
+
+        computeShortestPath(start, workspace);
+        if (workspace.isCancelled() || this.distance[start] >= INFINITY) {
+            return false;
+        }
+
+        tracePath(start, workspace);
+        workspace.pathCost = this.distance[start];
+        return true;
+    }
+
+    private void reset(int start, int target) {
+        Arrays.fill(this.distance, INFINITY);
+        Arrays.fill(this.lookahead, INFINITY);
+        this.open.clear();
+        this.target = target;
+        this.lastStart = start;
+        this.keyModifier = 0;
+
+        this.lookahead[target] = 0;
+        this.open.push(target, key(target));
+    }
+
+    private int estimate(int from, int to) {
+        return Heuristic.MANHATTAN.estimate(
+                Math.abs(this.grid.row(from) - this.grid.row(to)),
+                Math.abs(this.grid.column(from) - this.grid.column(to)));
+    }
+
+    private long key(int cell) {
+        int best = Math.min(this.distance[cell], this.lookahead[cell]);
+        return (long) (best + estimate(this.lastStart, cell) +
+                       this.keyModifier) << 32 | best;
+    }
+
+    // Cost of moving between two cells, or INFINITY if either is a wall
+    private int moveCost(int from, int to) {
+        if (!this.grid.isWalkable(from) || !this.grid.isWalkable(to)) {
+            return INFINITY;
+        }
+        return PathFinder.STRAIGHT_COST * this.grid.getCost(to);
+    }
+
+    // Recomputes the lookahead of cell from its neighbours and queues it if
+    // it no longer matches its distance
+    private void updateCell(int cell) {
+        if (cell != this.target) {
+            int best = INFINITY;
+            for (int offset : this.offsets) {
+                int neighbor = cell + offset;
+                int cost = moveCost(cell, neighbor);
+                if (cost < INFINITY && this.distance[neighbor] < INFINITY) {
+                    best = Math.min(best, cost + this.distance[neighbor]);
+                }
+            }
+            this.lookahead[cell] = best;
+        }
+
+        this.open.remove(cell);
+        if (this.distance[cell] != this.lookahead[cell]) {
+            this.open.push(cell, key(cell));
+        }
+    }
+
+    private void computeShortestPath(int start, SearchWorkspace workspace) {
+        // The open list outlives the search, so its own peak would not do
+        int peak = this.open.size();
+        while (!this.open.isEmpty() &&
+                (this.open.peekKey() < key(start) ||
+                 this.lookahead[start] != this.distance[start])) {
+            peak = Math.max(peak, this.open.size());
+            int cell = this.open.peek();
+            long oldKey = this.open.peekKey();
+            long newKey = key(cell);
+            workspace.expanded++;
+            // Stopping between steps leaves the open list sound, so the
+            // next search carries on from here
+            if (workspace.checkCancelled()) break;
+
+            if (oldKey < newKey) {
+                this.open.remove(cell);
+                this.open.push(cell, newKey);
+            } else if (this.distance[cell] > this.lookahead[cell]) {
+                this.distance[cell] = this.lookahead[cell];
+                this.open.remove(cell);
+                for (int offset : this.offsets) {
+                    updateCell(cell + offset);
+                }
+            } else {
+                this.distance[cell] = INFINITY;
+                updateCell(cell);
+                for (int offset : this.offsets) {
+                    updateCell(cell + offset);
+                }
+            }
+        }
+        workspace.peakFrontier = peak;
+    }
+
+    // Follows the cheapest neighbour from start to the target
+    private void tracePath(int start, SearchWorkspace workspace) {
+        int[] path = workspace.path;
+        int length = 0;
+        int cell = start;
+        path[length++] = cell;
+
+        while (cell != this.target) {
+            int next = NONE;
+            int best = INFINITY;
+            for (int offset : this.offsets) {
+                int neighbor = cell + offset;
+                int cost = moveCost(cell, neighbor);
+                if (cost < INFINITY && this.distance[neighbor] < INFINITY &&
+                        cost + this.distance[neighbor] < best) {
+                    best = cost + this.distance[neighbor];
+                    next = neighbor;
+                }
+            }
+
+            cell = next;
+            path[length++] = cell;
+        }
+
+        workspace.pathLength = length;
+    }
+}
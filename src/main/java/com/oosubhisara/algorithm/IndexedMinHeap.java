@@ -0,0 +1,147 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// Binary min-heap of cell indices with long keys. The heap position of
+// every cell is tracked, so a queued cell can have its key lowered in place
+// instead of being queued a second time.
+public class IndexedMinHeap {
+    private int[] cells;
+    private long[] keys;
+    private int[] positions;
+    private int size;
+    private int peakSize;
+
+    public IndexedMinHeap(int capacity) {
+        this.cells = new int[16];
+        this.keys = new long[16];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, -1);
+        this.size = 0;
+        this.peakSize = 0;
+    }
+
+    public int capacity() {
+        return this.positions.length;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    // Most cells queued at once since the heap was created or cleared
+    public int peakSize() {
+        return this.peakSize;
+    }
+
+    public boolean contains(int cell) {
+        return this.positions[cell] >= 0;
+    }
+
+    // Removes every queued cell in time proportional to their number
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.positions[this.cells[i]] = -1;
+        }
+        this.size = 0;
+        this.peakSize = 0;
+    }
+
+    // Queues cell with the given key, or lowers the key of an already
+    // queued cell. A higher key for a queued cell is ignored.
+    public void push(int cell, long key) {
+        int position = this.positions[cell];
+
+        if (position < 0) {
+            if (this.size == this.cells.length) {
+                int newLength = Math.min(this.cells.length * 2, 
+                                         this.positions.length);
+                this.cells = Arrays.copyOf(this.cells, newLength);
+                this.keys = Arrays.copyOf(this.keys, newLength);
+            }
+            position = this.size++;
+            if (this.size > this.peakSize) {
+                this.peakSize = this.size;
+            }
+        } else if (key >= this.keys[position]) {
+            return;
+        }
+
+        siftUp(position, cell, key);
+    }
+
+    public long peekKey() {
+        return this.keys[0];
+    }
+
+    public int peek() {
+        return this.cells[0];
+    }
+
+    public int pop() {
+        int top = this.cells[0];
+        this.positions[top] = -1;
+        this.size--;
+
+        if (this.size > 0) {
+            siftDown(0, this.cells[this.size], this.keys[this.size]);
+        }
+        return top;
+    }
+
+    // Removes cell if it is queued
+    public void remove(int cell) {
+        int position = this.positions[cell];
+        if (position < 0) return;
+
+        this.positions[cell] = -1;
+        this.size--;
+        if (position == this.size) return;
+
+        int lastCell = this.cells[this.size];
+        long lastKey = this.keys[this.size];
+        if (lastKey < this.keys[position]) {
+            siftUp(position, lastCell, lastKey);
+        } else {
+            siftDown(position, lastCell, lastKey);
+        }
+    }
+
+    private void siftUp(int position, int cell, long key) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (this.keys[parent] <= key) break;
+
+            move(this.cells[parent], this.keys[parent], position);
+            position = parent;
+        }
+        move(cell, key, position);
+    }
+
+    private void siftDown(int position, int cell, long key) {
+        int half = this.size >>> 1;
+
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < this.size && this.keys[right] < this.keys[child]) {
+                child = right;
+            }
+            if (key <= this.keys[child]) break;
+
+            move(this.cells[child], this.keys[child], position);
+            position = child;
+        }
+        move(cell, key, position);
+    }
+
+    private void move(int cell, long key, int position) {
+        this.cells[position] = cell;
+        this.keys[position] = key;
+        this.positions[cell] = position;
+    }
+}
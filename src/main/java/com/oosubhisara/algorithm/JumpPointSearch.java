@@ -0,0 +1,262 @@
+package com.oosubhisara.algorithm;
+
+// Jump Point Search over a WalkableGrid where every walkable tile costs the
+// same. Instead of queueing every neighbour, the search jumps along straight
+// (and, with 8 neighbours, diagonal) lines and only queues cells where the
+// shortest paths can branch. The paths found are as short as those of BFS
+// and A*, but far fewer cells go through the open list.
+//
+// With 4 neighbours, paths are ordered so that they turn from vertical to
+// horizontal freely, but only turn from horizontal to vertical next to the
+// corner of a wall. With 8 neighbours, diagonal moves never cut corners,
+// as in Neighborhood.EIGHT.
+public class JumpPointSearch implements PathFinder {
+    private static final int NONE = -1;
+
+    private final WalkableGrid grid;
+    private final Neighborhood neighborhood;
+    private final Heuristic heuristic;
+    private final int stride;
+
+    public JumpPointSearch(WalkableGrid grid) {
+        this(grid, Neighborhood.FOUR);
+    }
+
+    public JumpPointSearch(WalkableGrid grid, Neighborhood neighborhood) {
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        this.heuristic = neighborhood == Neighborhood.FOUR
+                ? Heuristic.MANHATTAN : Heuristic.OCTILE;
+        this.stride = grid.getStride();
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return this.neighborhood;
+    }
+
+    @Override
+    public boolean findPath(int start, int target, SearchWorkspace workspace) {
+        WalkableGrid grid = this.grid;
+        workspace.prepare(grid.size());
+        if (!grid.isWalkable(target)) {
+            return false;
+        }
+
+        IndexedMinHeap open = workspace.heap();
+        int[] parent = workspace.parent;
+        CellBitSet visited = workspace.visited;
+        CellBitSet closed = workspace.closed;
+        int[] distance = workspace.distance;
+        int numMoves = this.neighborhood.getNumMoves();
+
+        visited.set(start);
+        parent[start] = start;
+        distance[start] = 0;
+        open.push(start, 0);
+
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            if (cell == target) {
+                tracePath(start, target, workspace);
+                workspace.pathCost = distance[target];
+                return true;
+            }
+
+            closed.set(cell);
+            workspace.expanded++;
+            if (workspace.checkCancelled()) return false;
+
+            for (int i = 0; i < numMoves; i++) {
+                int rowStep = Neighborhood.ROW_OFFSETS[i];
+                int columnStep = Neighborhood.COLUMN_OFFSETS[i];
+                if (!isSuccessor(cell, parent[cell], rowStep, columnStep)) {
+                    continue;
+                }
+
+                int jumpPoint = jump(cell, rowStep, columnStep, target);
+                if (jumpPoint == NONE) continue;
+
+                if (closed.get(jumpPoint)) continue;
+
+                int newDistance = distance[cell] + cost(cell, jumpPoint);
+                if (!visited.get(jumpPoint) || newDistance < distance[jumpPoint]) {
+                    visited.set(jumpPoint);
+                    parent[jumpPoint] = cell;
+                    distance[jumpPoint] = newDistance;
+
+                    int estimate = cost(jumpPoint, target);
+                    open.push(jumpPoint,
+                              (long) (newDistance + estimate) << 32 | estimate);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // Whether the search should jump from cell in the given direction,
+    // given the jump point it was reached from
+    private boolean isSuccessor(int cell, int from,
+                                int rowStep, int columnStep) {
+        int next = cell + rowStep * this.stride + columnStep;
+        if (!this.grid.isWalkable(next)) return false;
+
+        boolean diagonal = rowStep != 0 && columnStep != 0;
+        if (diagonal && (!this.grid.isWalkable(cell + rowStep * this.stride) ||
+                         !this.grid.isWalkable(cell + columnStep))) {
+            return false;
+        }
+        if (cell == from) return true;
+
+        int fromRowStep = Integer.signum(
+                this.grid.row(cell) - this.grid.row(from));
+        int fromColumnStep = Integer.signum(
+                this.grid.column(cell) - this.grid.column(from));
+
+        if (this.neighborhood == Neighborhood.FOUR) {
+            if (fromRowStep != 0) {
+                // Vertical moves may go on or turn either way
+                return rowStep == fromRowStep || rowStep == 0;
+            }
+            // Horizontal moves go on, or turn round a wall corner behind
+            return columnStep == fromColumnStep || (columnStep == 0 &&
+                    !this.grid.isWalkable(cell + rowStep * this.stride -
+                                          fromColumnStep));
+        }
+
+        if (fromRowStep != 0 && fromColumnStep != 0) {
+            // Diagonal moves go on or split into their two straight parts
+            return (rowStep == fromRowStep || rowStep == 0) &&
+                   (columnStep == fromColumnStep || columnStep == 0);
+        }
+        // Straight moves go on, or turn to the side or the diagonal ahead
+        if (fromRowStep != 0) {
+            return rowStep == fromRowStep || rowStep == 0;
+        }
+        return columnStep == fromColumnStep || columnStep == 0;
+    }
+
+    // Walks from cell in the given direction and returns the first jump
+    // point, or NONE when a wall is reached first
+    private int jump(int cell, int rowStep, int columnStep, int target) {
+        if (rowStep == 0) {
+            return jumpHorizontal(cell, columnStep, target);
+        }
+        if (columnStep == 0) {
+            return this.neighborhood == Neighborhood.FOUR
+                    ? jumpVertical4(cell, rowStep, target)
+                    : jumpVertical8(cell, rowStep, target);
+        }
+        return jumpDiagonal(cell, rowStep, columnStep, target);
+    }
+
+    private int jumpHorizontal(int cell, int columnStep, int target) {
+        // The row scan stops at the first wall, the target, or a cell where
+        // a wall corner behind opens a new way up or down
+        int stop = this.grid.scanRow(cell, columnStep, target);
+        return this.grid.isWalkable(stop) ? stop : NONE;
+    }
+
+    private int jumpVertical4(int cell, int rowStep, int target) {
+        int step = rowStep * this.stride;
+
+        while (true) {
+            cell += step;
+            if (!this.grid.isWalkable(cell)) return NONE;
+            if (cell == target) return cell;
+
+            // Vertical moves may turn at any cell, so stop where a
+            // horizontal jump would find something
+            if (jumpHorizontal(cell, 1, target) != NONE ||
+                    jumpHorizontal(cell, -1, target) != NONE) {
+                return cell;
+            }
+        }
+    }
+
+    private int jumpVertical8(int cell, int rowStep, int target) {
+        WalkableGrid grid = this.grid;
+        int step = rowStep * this.stride;
+
+        while (true) {
+            cell += step;
+            if (!grid.isWalkable(cell)) return NONE;
+            if (cell == target) return cell;
+
+            // A wall corner behind opens a new way left or right
+            if ((grid.isWalkable(cell - 1) && !grid.isWalkable(cell - 1 - step)) ||
+                    (grid.isWalkable(cell + 1) &&
+                    !grid.isWalkable(cell + 1 - step))) {
+                return cell;
+            }
+        }
+    }
+
+    private int jumpDiagonal(int cell, int rowStep, int columnStep,
+                             int target) {
+        WalkableGrid grid = this.grid;
+        int verticalStep = rowStep * this.stride;
+
+        while (true) {
+            cell += verticalStep + columnStep;
+            if (!grid.isWalkable(cell)) return NONE;
+            if (cell == target) return cell;
+
+            // Stop where either straight part of the move finds something
+            if (jumpHorizontal(cell, columnStep, target) != NONE ||
+                    jumpVertical8(cell, rowStep, target) != NONE) {
+                return cell;
+            }
+
+            // The next diagonal move must not cut a corner
+            if (!grid.isWalkable(cell + verticalStep) ||
+                    !grid.isWalkable(cell + columnStep)) {
+                return NONE;
+            }
+        }
+    }
+
+    // Cost of the straight or diagonal line between two jump points
+    private int cost(int from, int to) {
+        return this.heuristic.estimate(
+                Math.abs(this.grid.row(to) - this.grid.row(from)),
+                Math.abs(this.grid.column(to) - this.grid.column(from)));
+    }
+
+    // Fills in the cells between consecutive jump points
+    private void tracePath(int start, int target, SearchWorkspace workspace) {
+        int[] parent = workspace.parent;
+        int[] path = workspace.path;
+
+        int length = 1;
+        for (int cell = target; cell != start; cell = parent[cell]) {
+            length += Math.max(
+                    Math.abs(this.grid.row(cell) -
+                             this.grid.row(parent[cell])),
+                    Math.abs(this.grid.column(cell) -
+                             this.grid.column(parent[cell])));
+        }
+
+        int i = length - 1;
+        path[i] = target;
+        for (int cell = target; cell != start; cell = parent[cell]) {
+            int from = parent[cell];
+            int step = Integer.signum(this.grid.row(cell) -
+                                      this.grid.row(from)) * this.stride +
+                       Integer.signum(this.grid.column(cell) -
+                                      this.grid.column(from));
+
+            for (int between = cell - step; between != from;
+                    between -= step) {
+                path[--i] = between;
+            }
+            path[--i] = from;
+        }
+        workspace.pathLength = length;
+    }
+}
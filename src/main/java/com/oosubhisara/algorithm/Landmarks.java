@@ -0,0 +1,461 @@
+package com.oosubhisara.algorithm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Landmark (ALT) lower bounds for A*. The cost from every cell to each of a
+// few landmarks is precomputed; by the triangle inequality the cost from a
+// cell to a target is then at least the difference of their costs to any
+// landmark. On maps whose walls force long detours this bound is far
+// tighter than a distance heuristic.
+//
+// Landmarks are chosen by farthest-point selection: each new landmark is
+// the cell farthest from those already chosen, so they spread to the ends
+// of corridors and to every region of the map.
+//
+// The tables describe the grid as it was when they were computed. Once
+// the grid changes they are no longer current and must not be used.
+//
+// Tables can be saved next to a map, as little-endian numbers:
+//
+//     0  int    magic "PFLM"
+//     4  short  format version, 1
+//     6  byte   neighbourhood: 0 for FOUR, 1 for EIGHT
+//     7  byte   bytes per distance, 2 or 4
+//     8  int    rows
+//    12  int    columns
+//    16  int    landmarks
+//    20  int    CRC-32 of the walkability words and tile costs
+//    24  byte   1 if costs are symmetric, else 0
+//    25  byte   corner cutting: 0 for FORBID, 1 for FORBID_THROUGH_WALLS,
+//               2 for ALLOW
+//    26  6 bytes reserved, 0
+//
+// followed by the cell index of every landmark, then one table per
+// landmark of a distance per cell index of the grid.
+public class Landmarks {
+    public static final int DEFAULT_COUNT = 8;
+    public static final String EXTENSION = ".landmarks";
+
+    private static final int MAGIC = 'P' | 'F' << 8 | 'L' << 16 | 'M' << 24;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    // Unreachable in narrow tables
+    private static final char NARROW_UNREACHABLE = 0xFFFF;
+
+    private final Neighborhood neighborhood;
+    private final CornerCutting cornerCutting;
+    private final int numRows;
+    private final int numColumns;
+    private final int[] cells;
+    // One table per landmark: narrow if every distance fits, else wide
+    private final char[][] narrow;
+    private final int[][] wide;
+    // Whether a move costs the same both ways, which allows the bound in
+    // both directions
+    private final boolean symmetric;
+    private final int checksum;
+    private final long version;
+
+    private Landmarks(WalkableGrid grid, Neighborhood neighborhood,
+                      CornerCutting cornerCutting, int[] cells,
+                      char[][] narrow, int[][] wide, boolean symmetric,
+                      int checksum) {
+        this.neighborhood = neighborhood;
+        this.cornerCutting = cornerCutting;
+        this.numRows = grid.getNumRows();
+        this.numColumns = grid.getNumColumns();
+        this.cells = cells;
+        this.narrow = narrow;
+        this.wide = wide;
+        this.symmetric = symmetric;
+        this.checksum = checksum;
+        this.version = grid.getVersion();
+    }
+
+    // Chooses count landmarks on grid and computes their tables
+    public static Landmarks compute(WalkableGrid grid, int count,
+                                    Neighborhood neighborhood) {
+        return compute(grid, count, neighborhood, CornerCutting.FORBID);
+    }
+
+    public static Landmarks compute(WalkableGrid grid, int count,
+                                    Neighborhood neighborhood,
+                                    CornerCutting cornerCutting) {
+        if (count < 1) {
+            throw new IllegalArgumentException(
+                    "Need at least one landmark.");
+        }
+
+        int size = grid.size();
+        int first = firstWalkable(grid);
+        if (first < 0) {
+            return new Landmarks(grid, neighborhood, cornerCutting,
+                                 new int[0], new char[0][], null, true,
+                                 checksum(grid));
+        }
+
+        // Distance from every cell to its nearest landmark so far; cells
+        // no landmark reaches come first, so every region gets one
+        int[] nearest = new int[size];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        int[][] tables = new int[count][];
+        int[] cells = new int[count];
+        int numLandmarks = 0;
+        int maxDistance = 0;
+
+        // Start from the cell farthest from an arbitrary one
+        int next = farthest(new FlowField(grid, first, neighborhood,
+                                          cornerCutting, false), grid);
+        while (numLandmarks < count && next >= 0) {
+            FlowField field = new FlowField(grid, next, neighborhood,
+                                            cornerCutting, false);
+            int[] table = new int[size];
+            int farthest = -1;
+            int farthestDistance = -1;
+
+            for (int cell = 0; cell < size; cell++) {
+                int distance = field.getDistance(cell);
+                table[cell] = distance;
+                if (distance != FlowField.UNREACHABLE) {
+                    maxDistance = Math.max(maxDistance, distance);
+                    nearest[cell] = Math.min(nearest[cell], distance);
+                }
+                if (grid.isWalkable(cell) && nearest[cell] > 0 &&
+                        nearest[cell] > farthestDistance) {
+                    farthest = cell;
+                    farthestDistance = nearest[cell];
+                }
+            }
+
+            cells[numLandmarks] = next;
+            tables[numLandmarks++] = table;
+            next = farthest;
+        }
+
+        cells = Arrays.copyOf(cells, numLandmarks);
+        boolean symmetric = grid.getMaxCost() == 1;
+        if (maxDistance < NARROW_UNREACHABLE) {
+            char[][] narrow = new char[numLandmarks][size];
+            for (int i = 0; i < numLandmarks; i++) {
+                for (int cell = 0; cell < size; cell++) {
+                    int distance = tables[i][cell];
+                    narrow[i][cell] = distance == FlowField.UNREACHABLE
+                            ? NARROW_UNREACHABLE : (char) distance;
+                }
+            }
+            return new Landmarks(grid, neighborhood, cornerCutting, cells,
+                                 narrow, null, symmetric, checksum(grid));
+        }
+        return new Landmarks(grid, neighborhood, cornerCutting, cells, null,
+                             Arrays.copyOf(tables, numLandmarks),
+                             symmetric, checksum(grid));
+    }
+
+    public static Landmarks loadOrCompute(Path mapPath, WalkableGrid grid,
+                                          int count,
+                                          Neighborhood neighborhood) {
+        return loadOrCompute(mapPath, grid, count, neighborhood,
+                             CornerCutting.FORBID);
+    }
+
+    // As below, throwing UncheckedIOException when the tables cannot be
+    // saved
+    public static Landmarks loadOrCompute(Path mapPath, WalkableGrid grid,
+                                          int count,
+                                          Neighborhood neighborhood,
+                                          CornerCutting cornerCutting) {
+        return loadOrCompute(mapPath, grid, count, neighborhood,
+                             cornerCutting, e -> {
+                                 throw new UncheckedIOException(e);
+                             });
+    }
+
+    // The tables saved next to the map at mapPath if they match grid and
+    // the moves, whatever their number of landmarks. Otherwise new tables,
+    // which are saved there for the next time. Tables that cannot be saved
+    // are still returned, once the failure has been handed to saveFailed.
+    public static Landmarks loadOrCompute(Path mapPath, WalkableGrid grid,
+                                          int count,
+                                          Neighborhood neighborhood,
+                                          CornerCutting cornerCutting,
+                                          Consumer<IOException> saveFailed) {
+        Path path = pathFor(mapPath);
+        if (Files.exists(path)) {
+            try {
+                Landmarks landmarks = load(path, grid);
+                if (landmarks.neighborhood == neighborhood &&
+                        landmarks.cornerCutting == cornerCutting) {
+                    return landmarks;
+                }
+            } catch (IOException e) {
+                // Saved for an older version of the map; replaced below
+            }
+        }
+
+        Landmarks landmarks = compute(grid, count, neighborhood,
+                                      cornerCutting);
+        try {
+            landmarks.save(path);
+        } catch (IOException e) {
+            saveFailed.accept(e);
+        }
+        return landmarks;
+    }
+
+    // Where the tables of the map at mapPath are saved
+    public static Path pathFor(Path mapPath) {
+        return Paths.get(mapPath.toString() + EXTENSION);
+    }
+
+    public int getCount() {
+        return this.cells.length;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return this.neighborhood;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return this.cornerCutting;
+    }
+
+    // Cell index of landmark i
+    public int getCell(int i) {
+        return this.cells[i];
+    }
+
+    // Whether the tables still describe grid, which is true until the
+    // grid or the grid they were computed on is edited
+    public boolean isCurrent(WalkableGrid grid) {
+        return grid.getVersion() == this.version &&
+               grid.getNumRows() == this.numRows &&
+               grid.getNumColumns() == this.numColumns;
+    }
+
+    // Lower bound on the cost from cell to target
+    public int estimate(int cell, int target) {
+        int best = 0;
+        if (this.narrow != null) {
+            for (char[] table : this.narrow) {
+                int fromCell = table[cell];
+                int fromTarget = table[target];
+                if (fromCell == NARROW_UNREACHABLE ||
+                        fromTarget == NARROW_UNREACHABLE) {
+                    continue;
+                }
+                best = Math.max(best, bound(fromCell, fromTarget));
+            }
+        } else {
+            for (int[] table : this.wide) {
+                int fromCell = table[cell];
+                int fromTarget = table[target];
+                if (fromCell == FlowField.UNREACHABLE ||
+                        fromTarget == FlowField.UNREACHABLE) {
+                    continue;
+                }
+                best = Math.max(best, bound(fromCell, fromTarget));
+            }
+        }
+        return best;
+    }
+
+    // d(cell, target) >= d(cell, L) - d(target, L), and with symmetric
+    // costs also d(target, L) - d(cell, L)
+    private int bound(int fromCell, int fromTarget) {
+        int difference = fromCell - fromTarget;
+        return this.symmetric ? Math.abs(difference) : difference;
+    }
+
+    public void save(Path path) throws IOException {
+        int count = this.cells.length;
+        int width = this.narrow != null ? Character.BYTES : Integer.BYTES;
+        int size = tableSize();
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE +
+                    count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.put((byte) this.neighborhood.ordinal());
+            header.put((byte) width);
+            header.putInt(this.numRows);
+            header.putInt(this.numColumns);
+            header.putInt(count);
+            header.putInt(this.checksum);
+            header.put((byte) (this.symmetric ? 1 : 0));
+            header.put((byte) this.cornerCutting.ordinal());
+            header.position(HEADER_SIZE);
+            for (int cell : this.cells) {
+                header.putInt(cell);
+            }
+            header.flip();
+            writeFully(channel, header);
+
+            // A table at a time, so no mapping exceeds the 2 GB limit
+            ByteBuffer buffer = ByteBuffer.allocate(size * width)
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) {
+                buffer.clear();
+                if (this.narrow != null) {
+                    buffer.asCharBuffer().put(this.narrow[i]);
+                } else {
+                    buffer.asIntBuffer().put(this.wide[i]);
+                }
+                writeFully(channel, buffer);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Reads tables saved for grid. Throws IOException if the file is not a
+    // landmark table or was saved for a different grid.
+    public static Landmarks load(Path path, WalkableGrid grid)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading
+            }
+            header.flip();
+            if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a landmark table.");
+            }
+            if (header.getShort(4) != VERSION) {
+                throw new IOException(String.format(
+                        "%s has unsupported format version %d.",
+                        path, header.getShort(4)));
+            }
+
+            int neighborhood = header.get(6);
+            int width = header.get(7);
+            int count = header.getInt(16);
+            int cornerCutting = header.get(25);
+            if (neighborhood < 0 ||
+                    neighborhood >= Neighborhood.values().length ||
+                    cornerCutting < 0 ||
+                    cornerCutting >= CornerCutting.values().length ||
+                    (width != Character.BYTES && width != Integer.BYTES) ||
+                    count < 0) {
+                throw new IOException(path + " has an invalid header.");
+            }
+            if (header.getInt(8) != grid.getNumRows() ||
+                    header.getInt(12) != grid.getNumColumns() ||
+                    header.getInt(20) != checksum(grid)) {
+                throw new IOException(path + " was saved for another map.");
+            }
+
+            int size = grid.size();
+            long tableBytes = (long) size * width;
+            long expectedSize = HEADER_SIZE + (long) count * Integer.BYTES +
+                                count * tableBytes;
+            if (channel.size() < expectedSize) {
+                throw new IOException(path + " is truncated.");
+            }
+
+            long position = HEADER_SIZE;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, (long) count * Integer.BYTES);
+            int[] cells = new int[count];
+            buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(cells);
+            position += (long) count * Integer.BYTES;
+
+            char[][] narrow = width == Character.BYTES
+                    ? new char[count][size] : null;
+            int[][] wide = width == Integer.BYTES
+                    ? new int[count][size] : null;
+            for (int i = 0; i < count; i++) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                     position, tableBytes);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                if (narrow != null) {
+                    buffer.asCharBuffer().get(narrow[i]);
+                } else {
+                    buffer.asIntBuffer().get(wide[i]);
+                }
+                position += tableBytes;
+            }
+
+            return new Landmarks(grid, Neighborhood.values()[neighborhood],
+                                 CornerCutting.values()[cornerCutting],
+                                 cells, narrow, wide, header.get(24) != 0,
+                                 checksum(grid));
+        }
+    }
+
+    private int tableSize() {
+        return this.narrow != null
+                ? (this.narrow.length > 0 ? this.narrow[0].length : 0)
+                : (this.wide.length > 0 ? this.wide[0].length : 0);
+    }
+
+    // CRC-32 of the walkability and costs, which identifies the map a table
+    // is for
+    static int checksum(WalkableGrid grid) {
+        long[] words = grid.words();
+        ByteBuffer buffer = ByteBuffer.allocate(8192)
+                                      .order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 crc = new CRC32();
+        for (long word : words) {
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+            buffer.putLong(word);
+        }
+        buffer.flip();
+        crc.update(buffer);
+        if (grid.costs() != null) {
+            crc.update(grid.costs());
+        }
+        return (int) crc.getValue();
+    }
+
+    private static int firstWalkable(WalkableGrid grid) {
+        for (int row = 0; row < grid.getNumRows(); row++) {
+            for (int column = 0; column < grid.getNumColumns(); column++) {
+                if (grid.isWalkable(row, column)) {
+                    return grid.index(row, column);
+                }
+            }
+        }
+        return -1;
+    }
+
+    // The reachable cell of field farthest from its target
+    private static int farthest(FlowField field, WalkableGrid grid) {
+        int farthest = field.getTarget();
+        int farthestDistance = 0;
+        for (int cell = 0; cell < grid.size(); cell++) {
+            int distance = field.getDistance(cell);
+            if (distance != FlowField.UNREACHABLE &&
+                    distance > farthestDistance) {
+                farthest = cell;
+                farthestDistance = distance;
+            }
+        }
+        return farthest;
+    }
+}
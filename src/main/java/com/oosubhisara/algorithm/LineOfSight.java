@@ -0,0 +1,131 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// Straight lines between cell centres of a WalkableGrid. A line is clear
+// when every cell it passes through, the supercover of the segment, is
+// walkable. Where the line crosses a grid corner exactly, the two cells
+// touching at that corner are judged by the CornerCutting policy, as for a
+// diagonal move. The walk steps through cell indices, so the wall border
+// keeps it inside the grid without bounds checks.
+//
+// Straight lines only cross cells of cost 1. Crossing a dearer cell along
+// a line would cost a fraction of a tile, which grid costs cannot express,
+// so paths over dearer terrain keep their grid steps.
+public class LineOfSight {
+    private final WalkableGrid grid;
+    private final CornerCutting cornerCutting;
+
+    public LineOfSight(WalkableGrid grid) {
+        this(grid, CornerCutting.FORBID);
+    }
+
+    public LineOfSight(WalkableGrid grid, CornerCutting cornerCutting) {
+        this.grid = grid;
+        this.cornerCutting = cornerCutting;
+    }
+
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return this.cornerCutting;
+    }
+
+    // Whether the line from the centre of from to the centre of to is
+    // clear. The cell the line starts from is not checked.
+    public boolean isClear(int from, int to) {
+        WalkableGrid grid = this.grid;
+        int stride = grid.getStride();
+        int rowDistance = grid.row(to) - grid.row(from);
+        int columnDistance = grid.column(to) - grid.column(from);
+        int rowStep = rowDistance < 0 ? -stride : stride;
+        int columnStep = columnDistance < 0 ? -1 : 1;
+        int rowSpan = 2 * Math.abs(rowDistance);
+        int columnSpan = 2 * Math.abs(columnDistance);
+
+        // Positive while the line leaves the cell through a side edge
+        // before it leaves through the top or bottom, zero at a corner
+        int error = Math.abs(columnDistance) - Math.abs(rowDistance);
+        int cell = from;
+        while (cell != to) {
+            if (error > 0) {
+                cell += columnStep;
+                error -= rowSpan;
+            } else if (error < 0) {
+                cell += rowStep;
+                error += columnSpan;
+            } else {
+                if (!this.cornerCutting.allowsCorner(
+                        grid.isWalkable(cell + rowStep),
+                        grid.isWalkable(cell + columnStep))) {
+                    return false;
+                }
+                cell += rowStep + columnStep;
+                error += columnSpan - rowSpan;
+            }
+
+            if (!grid.isWalkable(cell) || grid.getCost(cell) != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Cost of moving straight from the centre of from to the centre of to,
+    // where a cell of cost c costs c times as much to enter. Matches the
+    // cost of a single grid step to a neighbour, and never exceeds the
+    // cost of grid steps between the two, whose diagonals round the cost
+    // down.
+    public int cost(int from, int to) {
+        int rowDistance = Math.abs(this.grid.row(to) - this.grid.row(from));
+        int columnDistance = Math.abs(
+                this.grid.column(to) - this.grid.column(from));
+        int straightLine = (int) Math.round(PathFinder.STRAIGHT_COST *
+                Math.hypot(rowDistance, columnDistance));
+        return Math.min(straightLine, 
+                        Heuristic.OCTILE.estimate(rowDistance, columnDistance)) *
+               this.grid.getCost(to);
+    }
+
+    // Removes the waypoints of path that a clear line between their
+    // neighbours can skip (string pulling), keeping the first and last
+    // cell, and returns the new length. A start inside a wall keeps its
+    // first step out.
+    public int pull(int[] path, int length) {
+        if (length <= 2) return length;
+
+        int numWaypoints = 1;
+        int first = 1;
+        if (!this.grid.isWalkable(path[0])) {
+            path[numWaypoints++] = path[1];
+            first = 2;
+        }
+
+        int anchor = path[numWaypoints - 1];
+        for (int i = first; i < length - 1; i++) {
+            if (!isClear(anchor, path[i + 1])) {
+                anchor = path[i];
+                path[numWaypoints++] = anchor;
+            }
+        }
+        path[numWaypoints++] = path[length - 1];
+        return numWaypoints;
+    }
+
+    // Waypoints of the pulled path in an array of their own
+    public int[] waypoints(int[] path, int length) {
+        int[] waypoints = Arrays.copyOf(path, length);
+        return Arrays.copyOf(waypoints, pull(waypoints, length));
+    }
+
+    // Total cost of a path of waypoints joined by clear lines
+    public int pathCost(int[] path, int length) {
+        int cost = 0;
+        for (int i = 1; i < length; i++) {
+            cost += cost(path[i - 1], path[i]);
+        }
+        return cost;
+    }
+}
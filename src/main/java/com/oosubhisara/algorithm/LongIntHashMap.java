@@ -0,0 +1,141 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// Open-addressing hash map from long keys to int values, without boxing.
+// Long.MIN_VALUE is reserved and cannot be used as a key.
+public class LongIntHashMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1))
+                       << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return this.keys[slot(key)] != EMPTY;
+    }
+
+    // Value stored for key, or missing if there is none
+    public int get(long key, int missing) {
+        int slot = slot(key);
+        return this.keys[slot] == EMPTY ? missing : this.values[slot];
+    }
+
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Reserved key.");
+        }
+
+        int slot = slot(key);
+        if (this.keys[slot] == EMPTY) {
+            // Keep at least half of the slots empty
+            if ((this.size + 1) * 2 > this.keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            this.keys[slot] = key;
+            this.size++;
+        }
+        this.values[slot] = value;
+    }
+
+    // Adds delta to the value of key, starting from zero, and returns the sum
+    public int increment(long key, int delta) {
+        int value = get(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, EMPTY);
+        this.size = 0;
+    }
+
+    // As clear(), given the first count of keys are all the keys in the
+    // map, in time for their number rather than for the table, which
+    // never shrinks
+    public void clear(long[] keys, int count) {
+        if (count != this.size) {
+            throw new IllegalArgumentException(String.format(
+                    "Map has %d keys, got %d.", this.size, count));
+        }
+        if (count * 4 > this.keys.length) {
+            clear();
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            long key = keys[i];
+            // Keys of the chain cleared before leave empty slots to pass
+            int slot = hash(key) & this.mask;
+            for (int probes = 0; this.keys[slot] != key; probes++) {
+                if (probes > this.mask) {
+                    throw new IllegalArgumentException(
+                            "Key " + key + " is not in the map.");
+                }
+                slot = (slot + 1) & this.mask;
+            }
+            this.keys[slot] = EMPTY;
+        }
+        this.size = 0;
+    }
+
+    // Slot holding key, or the empty slot where it would go
+    private int slot(long key) {
+        int slot = hash(key) & this.mask;
+        while (this.keys[slot] != EMPTY && this.keys[slot] != key) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        // Finalizer of MurmurHash3, so nearby cells spread over the table
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+}
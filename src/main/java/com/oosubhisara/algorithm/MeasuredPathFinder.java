@@ -0,0 +1,89 @@
+package com.oosubhisara.algorithm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// Measures the searches of another PathFinder into SearchMetrics, and
+// emits a SearchEvent for each while Flight Recorder records them. The
+// search itself is untouched, and searches made without this wrapper are
+// not measured at all, so leaving it out switches metrics off for free.
+public class MeasuredPathFinder implements PathFinder {
+    // Null when the JVM cannot count the bytes a thread allocates
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+            allocationCounter();
+
+    private final PathFinder pathFinder;
+    private final SearchMetrics metrics;
+
+    public MeasuredPathFinder(PathFinder pathFinder, SearchMetrics metrics) {
+        this.pathFinder = pathFinder;
+        this.metrics = metrics;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean counter = 
+                (com.sun.management.ThreadMXBean) threads;
+        if (!counter.isThreadAllocatedMemorySupported() ||
+                !counter.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        return counter;
+    }
+
+    // The path finder whose searches are measured
+    public PathFinder getPathFinder() {
+        return this.pathFinder;
+    }
+
+    public SearchMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.pathFinder.getGrid();
+    }
+
+    @Override
+    public boolean findPath(int start, int target, SearchWorkspace workspace) {
+        // Created before the counters are read, so it is not counted
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long allocatedBefore = ALLOCATIONS != null 
+                ? ALLOCATIONS.getCurrentThreadAllocatedBytes() : 0;
+        long startTime = System.nanoTime();
+
+        boolean found = this.pathFinder.findPath(start, target, workspace);
+
+        long wallNanos = System.nanoTime() - startTime;
+        long allocatedBytes = ALLOCATIONS != null
+                ? ALLOCATIONS.getCurrentThreadAllocatedBytes() - allocatedBefore
+                : -1;
+        event.end();
+        // Cut short, the search says nothing about the map
+        if (workspace.isCancelled()) return false;
+
+        this.metrics.record(found, workspace.getExpanded(),
+                            workspace.getPeakFrontier(), wallNanos,
+                            allocatedBytes);
+
+        if (event.shouldCommit()) {
+            event.metrics = this.metrics.getName();
+            event.start = start;
+            event.target = target;
+            event.found = found;
+            event.pathLength = workspace.getPathLength();
+            event.pathCost = workspace.getPathCost();
+            event.expanded = workspace.getExpanded();
+            event.peakFrontier = workspace.getPeakFrontier();
+            event.allocatedBytes = allocatedBytes;
+            event.commit();
+        }
+        return found;
+    }
+}
@@ -0,0 +1,42 @@
+package com.oosubhisara.algorithm;
+
+public enum Neighborhood {
+    // Orthogonal moves only
+    FOUR(4),
+    // Orthogonal and diagonal moves. Which diagonal moves may pass wall
+    // corners is up to the CornerCutting of the search; by default none.
+    EIGHT(8);
+
+    // Straight moves first (up, right, down, left), then diagonals
+    static final int[] ROW_OFFSETS = { -1, 0, 1, 0, -1, 1, 1, -1 };
+    static final int[] COLUMN_OFFSETS = { 0, 1, 0, -1, 1, 1, -1, -1 };
+
+    private final int numMoves;
+
+    Neighborhood(int numMoves) {
+        this.numMoves = numMoves;
+    }
+
+    public int getNumMoves() {
+        return this.numMoves;
+    }
+
+    // Index space offsets of every move on a grid with the given stride
+    int[] offsets(int stride) {
+        int[] offsets = new int[this.numMoves];
+        for (int i = 0; i < this.numMoves; i++) {
+            offsets[i] = ROW_OFFSETS[i] * stride + COLUMN_OFFSETS[i];
+        }
+        return offsets;
+    }
+
+    // Cost of every move over a tile of cost one
+    int[] costs() {
+        int[] costs = new int[this.numMoves];
+        for (int i = 0; i < this.numMoves; i++) {
+            costs[i] = i < 4 ? PathFinder.STRAIGHT_COST 
+                             : PathFinder.DIAGONAL_COST;
+        }
+        return costs;
+    }
+}
@@ -0,0 +1,283 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded least-recently-used cache of path results in front of another
+// PathFinder. Edits to the grid only drop the entries they can affect:
+// - a new wall drops the paths that run through or diagonally past it,
+// - an opened cell drops the paths that a route through it could beat,
+//   and every pair cached as unreachable,
+// - a changed cost counts as both, as it may have risen or dropped.
+public class PathCache implements PathFinder, GridListener {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static class Entry {
+        final int[] path;
+        final int length;
+        final int cost;
+        final int minRow, maxRow, minColumn, maxColumn;
+
+        Entry(int[] path, int length, int cost, WalkableGrid grid) {
+            this.path = path;
+            this.length = length;
+            this.cost = cost;
+
+            int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE;
+            int minColumn = Integer.MAX_VALUE, maxColumn = Integer.MIN_VALUE;
+            for (int i = 0; i < length; i++) {
+                int row = grid.row(path[i]);
+                int column = grid.column(path[i]);
+                minRow = Math.min(minRow, row);
+                maxRow = Math.max(maxRow, row);
+                minColumn = Math.min(minColumn, column);
+                maxColumn = Math.max(maxColumn, column);
+            }
+            this.minRow = minRow;
+            this.maxRow = maxRow;
+            this.minColumn = minColumn;
+            this.maxColumn = maxColumn;
+        }
+
+        boolean isFound() {
+            return this.length > 0;
+        }
+
+        // Whether the path runs through cell or cuts diagonally past it.
+        // Paths of waypoints, such as smoothed ones, touch every cell
+        // between two waypoints that are not neighbours.
+        boolean touches(int cell, int row, int column, WalkableGrid grid) {
+            if (row < this.minRow - 1 || row > this.maxRow + 1 ||
+                    column < this.minColumn - 1 ||
+                    column > this.maxColumn + 1) {
+                return false;
+            }
+
+            int stride = grid.getStride();
+            for (int i = 0; i < this.length; i++) {
+                int from = this.path[i];
+                if (from == cell) return true;
+                if (i + 1 == this.length) break;
+
+                // The two corners a diagonal step passes between
+                int to = this.path[i + 1];
+                int step = to - from;
+                int verticalStep = step < -1 ? -stride : step > 1 ? stride : 0;
+                int horizontalStep = step - verticalStep;
+                if (horizontalStep < -1 || horizontalStep > 1) {
+                    // A straight line crosses cells between the two only
+                    if (isBetween(row, grid.row(from), grid.row(to)) &&
+                            isBetween(column, grid.column(from),
+                                      grid.column(to))) {
+                        return true;
+                    }
+                } else if (verticalStep != 0 && horizontalStep != 0 &&
+                        (from + verticalStep == cell ||
+                         from + horizontalStep == cell)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isBetween(int value, int a, int b) {
+            return value >= Math.min(a, b) && value <= Math.max(a, b);
+        }
+    }
+
+    private final PathFinder pathFinder;
+    private final WalkableGrid grid;
+    private final int capacity;
+    private final LinkedHashMap<Long, Entry> entries;
+    // Grid version the entries were last brought up to date with
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public PathCache(PathFinder pathFinder) {
+        this(pathFinder, DEFAULT_CAPACITY);
+    }
+
+    public PathCache(PathFinder pathFinder, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Cache capacity must be at least 1.");
+        }
+
+        this.pathFinder = pathFinder;
+        this.grid = pathFinder.getGrid();
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > PathCache.this.capacity) {
+                    PathCache.this.evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.version = this.grid.getVersion();
+
+        if (!this.grid.isReadOnly()) {
+            this.grid.addListener(this);
+        }
+    }
+
+    // The path finder that answers the queries the cache misses
+    public PathFinder getPathFinder() {
+        return this.pathFinder;
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    // Searches run outside the lock, so the cache can search for several
+    // threads at once if the path finder it wraps can
+    @Override
+    public boolean findPath(int start, int target, SearchWorkspace workspace) {
+        Long key = (long) start << 32 | target;
+        long version;
+        synchronized (this) {
+            // Edits made while the cache was not listening could touch
+            // anything
+            if (this.grid.getVersion() != this.version) {
+                this.invalidations += this.entries.size();
+                this.entries.clear();
+                this.version = this.grid.getVersion();
+            }
+
+            Entry entry = this.entries.get(key);
+            if (entry != null) {
+                this.hits++;
+                workspace.prepare(this.grid.size());
+                System.arraycopy(entry.path, 0, workspace.path, 0,
+                                 entry.length);
+                workspace.pathLength = entry.length;
+                workspace.pathCost = entry.cost;
+                return entry.isFound();
+            }
+            this.misses++;
+            version = this.version;
+        }
+
+        boolean found = this.pathFinder.findPath(start, target, workspace);
+        // A cancelled search proves nothing about the pair
+        if (workspace.isCancelled()) return false;
+
+        int length = found ? workspace.pathLength : 0;
+        int[] path = new int[length];
+        System.arraycopy(workspace.path, 0, path, 0, length);
+        Entry entry = new Entry(path, length, found ? workspace.pathCost : 0,
+                                this.grid);
+        synchronized (this) {
+            // The result may predate an edit made during the search
+            if (this.version == version &&
+                    this.grid.getVersion() == version) {
+                this.entries.put(key, entry);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized void cellChanged(WalkableGrid grid, int index) {
+        this.version = grid.getVersion();
+
+        Iterator<Map.Entry<Long, Entry>> iterator =
+                this.entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Entry> mapEntry = iterator.next();
+            if (isStale(mapEntry.getKey(), mapEntry.getValue(), index,
+                        grid)) {
+                iterator.remove();
+                this.invalidations++;
+            }
+        }
+    }
+
+    // One pass over the entries for a whole batch of edits
+    @Override
+    public synchronized void cellsChanged(WalkableGrid grid, int[] indices,
+                                          int count) {
+        this.version = grid.getVersion();
+
+        Iterator<Map.Entry<Long, Entry>> iterator =
+                this.entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Entry> mapEntry = iterator.next();
+            for (int i = 0; i < count; i++) {
+                if (isStale(mapEntry.getKey(), mapEntry.getValue(), 
+                            indices[i], grid)) {
+                    iterator.remove();
+                    this.invalidations++;
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean isStale(long key, Entry entry, int index, 
+                            WalkableGrid grid) {
+        int row = grid.row(index);
+        int column = grid.column(index);
+
+        if (grid.isWalkable(index)) {
+            // New paths pass through the cell, or diagonally past it
+            // through a neighbour, so they cost at least the estimates to
+            // it from both ends less a diagonal step each way
+            int start = (int) (key >>> 32);
+            int target = (int) key;
+            // The cell may also be a walkable cell whose cost rose
+            return !entry.isFound() ||
+                   estimate(start, index) + estimate(index, target) -
+                   2 * PathFinder.DIAGONAL_COST < entry.cost ||
+                   entry.touches(index, row, column, grid);
+        }
+
+        // A new wall can never make a path shorter
+        return entry.isFound() && entry.touches(index, row, column, grid);
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    public synchronized long getInvalidations() {
+        return this.invalidations;
+    }
+
+    // Lower bound on the cost between two cells for any path finder,
+    // including those whose paths run at any angle, as Theta* and smoothed
+    // ones do
+    private int estimate(int from, int to) {
+        return Heuristic.EUCLIDEAN.estimate(
+                Math.abs(this.grid.row(from) - this.grid.row(to)),
+                Math.abs(this.grid.column(from) - this.grid.column(to)));
+    }
+}
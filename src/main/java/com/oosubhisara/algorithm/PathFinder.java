@@ -0,0 +1,23 @@
+package com.oosubhisara.algorithm;
+
+// A search algorithm bound to one WalkableGrid. Implementations keep all
+// per-query state in the SearchWorkspace, so one instance can answer queries
+// from several threads as long as each thread has its own workspace.
+public interface PathFinder {
+    // Cost of one orthogonal and one diagonal step over a tile of cost one
+    int STRAIGHT_COST = 10;
+    int DIAGONAL_COST = 14;
+
+    WalkableGrid getGrid();
+
+    // Returns true when target is reachable from start. The path, its cost
+    // and the number of expanded cells are then available from the
+    // workspace. Allocates nothing once the workspace has grown to the grid.
+    boolean findPath(int start, int target, SearchWorkspace workspace);
+
+    default PathResult search(int start, int target, 
+                              SearchWorkspace workspace) {
+        findPath(start, target, workspace);
+        return PathResult.from(workspace);
+    }
+}
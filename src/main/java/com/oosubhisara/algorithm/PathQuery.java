@@ -0,0 +1,16 @@
+package com.oosubhisara.algorithm;
+
+// One start/target pair of cell indices
+public class PathQuery {
+    public final int start;
+    public final int target;
+
+    public PathQuery(int start, int target) {
+        this.start = start;
+        this.target = target;
+    }
+
+    public String toString() {
+        return String.format("%d -> %d", this.start, this.target);
+    }
+}
@@ -0,0 +1,84 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// Immutable copy of the outcome of one search, safe to keep after the
+// workspace that produced it has been reused.
+public class PathResult {
+    public enum Status {
+        FOUND,
+        UNREACHABLE,
+        CANCELLED
+    }
+
+    private static final int[] NO_PATH = new int[0];
+
+    private final Status status;
+    private final int[] path;
+    private final int cost;
+    private final int expanded;
+
+    public PathResult(int[] path, int cost, int expanded) {
+        this(path.length > 0 ? Status.FOUND : Status.UNREACHABLE, path, cost,
+             expanded);
+    }
+
+    private PathResult(Status status, int[] path, int cost, int expanded) {
+        this.status = status;
+        this.path = path;
+        this.cost = cost;
+        this.expanded = expanded;
+    }
+
+    public static PathResult from(SearchWorkspace workspace) {
+        if (workspace.isCancelled()) {
+            return new PathResult(Status.CANCELLED, NO_PATH, 0,
+                                  workspace.getExpanded());
+        }
+        return new PathResult(
+                Arrays.copyOf(workspace.getPath(), workspace.getPathLength()),
+                workspace.getPathCost(), workspace.getExpanded());
+    }
+
+    // Result of a query known to be unreachable without searching
+    public static PathResult unreachable() {
+        return new PathResult(NO_PATH, 0, 0);
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public boolean isFound() {
+        return this.status == Status.FOUND;
+    }
+
+    // Cell indices from start to target inclusive; empty if not found
+    public int[] getPath() {
+        return this.path;
+    }
+
+    // Number of steps on the path, or -1 if no path was found
+    public int getLength() {
+        return this.path.length - 1;
+    }
+
+    // Cost of the path in PathFinder cost units
+    public int getCost() {
+        return this.cost;
+    }
+
+    // Number of cells taken off the open list during the search
+    public int getExpanded() {
+        return this.expanded;
+    }
+
+    public String toString() {
+        if (this.status != Status.FOUND) {
+            return String.format("%s, expanded %d", this.status, 
+                                 this.expanded);
+        }
+        return String.format("length %d, cost %d, expanded %d", 
+                             getLength(), this.cost, this.expanded);
+    }
+}
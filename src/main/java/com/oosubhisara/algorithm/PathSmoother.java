@@ -0,0 +1,44 @@
+package com.oosubhisara.algorithm;
+
+// Pulls the paths of another PathFinder tight. Waypoints that a clear
+// line between their neighbours can skip are dropped, which leaves the
+// corners of the path and turns staircases into straight runs. The path
+// left in the workspace holds the waypoints only, and its cost is the sum
+// of the straight-line costs between them.
+public class PathSmoother implements PathFinder {
+    private final PathFinder pathFinder;
+    private final LineOfSight lineOfSight;
+
+    public PathSmoother(PathFinder pathFinder) {
+        this(pathFinder, CornerCutting.FORBID);
+    }
+
+    public PathSmoother(PathFinder pathFinder, CornerCutting cornerCutting) {
+        this.pathFinder = pathFinder;
+        this.lineOfSight = new LineOfSight(pathFinder.getGrid(),
+                                           cornerCutting);
+    }
+
+    // The path finder whose paths are smoothed
+    public PathFinder getPathFinder() {
+        return this.pathFinder;
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.pathFinder.getGrid();
+    }
+
+    @Override
+    public boolean findPath(int start, int target, SearchWorkspace workspace) {
+        if (!this.pathFinder.findPath(start, target, workspace)) {
+            return false;
+        }
+
+        int length = this.lineOfSight.pull(workspace.path,
+                                           workspace.pathLength);
+        workspace.pathLength = length;
+        workspace.pathCost = this.lineOfSight.pathCost(workspace.path, length);
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package com.oosubhisara.algorithm;
+
+// Which agent holds each cell at each time step, for planning several
+// agents whose paths must not collide. Only reserved (cell, time) pairs are
+// stored, packed into longs as time << 32 | cell in a LongIntHashMap, so
+// the table grows with the number of agents and the length of their plans
+// rather than with the map.
+public class ReservationTable {
+    public static final int NONE = -1;
+
+    private final LongIntHashMap reservations;
+
+    public ReservationTable() {
+        this(1024);
+    }
+
+    public ReservationTable(int expectedSize) {
+        this.reservations = new LongIntHashMap(expectedSize);
+    }
+
+    private static long key(int cell, int time) {
+        return (long) time << 32 | cell;
+    }
+
+    // Number of (cell, time) pairs reserved
+    public int size() {
+        return this.reservations.size();
+    }
+
+    // Agent holding cell at time, or NONE
+    public int getAgent(int cell, int time) {
+        return this.reservations.get(key(cell, time), NONE);
+    }
+
+    public boolean isReserved(int cell, int time) {
+        return this.reservations.containsKey(key(cell, time));
+    }
+
+    // Gives cell at time to agent. A pair already held by another agent is
+    // not taken from it.
+    public boolean reserve(int cell, int time, int agent) {
+        if (time < 0) {
+            throw new IllegalArgumentException("Time cannot be negative.");
+        }
+
+        long key = key(cell, time);
+        int holder = this.reservations.get(key, NONE);
+        if (holder != NONE) {
+            return holder == agent;
+        }
+        this.reservations.put(key, agent);
+        return true;
+    }
+
+    // Whether agent may move from one cell at time to another, or stay
+    // when both are the same, without meeting another agent in a cell or
+    // swapping cells with one on the way
+    public boolean canMove(int from, int to, int time, int agent) {
+        int holder = getAgent(to, time + 1);
+        if (holder != NONE && holder != agent) return false;
+        if (from == to) return true;
+
+        // The agent coming the other way would cross this one
+        int oncoming = getAgent(to, time);
+        return oncoming == NONE || oncoming == agent ||
+               getAgent(from, time + 1) != oncoming;
+    }
+
+    public void clear() {
+        this.reservations.clear();
+    }
+}
@@ -0,0 +1,47 @@
+package com.oosubhisara.algorithm;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Java Flight Recorder event for one search made through a
+// MeasuredPathFinder. Recorded only while a recording enables it, e.g.
+// java -XX:StartFlightRecording=filename=search.jfr ...
+@Name("com.oosubhisara.Search")
+@Label("Path Search")
+@Category("Path Finding")
+@Description("One search for a path between two cells")
+@StackTrace(false)
+public class SearchEvent extends Event {
+    @Label("Metrics")
+    String metrics;
+
+    @Label("Start")
+    int start;
+
+    @Label("Target")
+    int target;
+
+    @Label("Found")
+    boolean found;
+
+    @Label("Path Length")
+    int pathLength;
+
+    @Label("Path Cost")
+    int pathCost;
+
+    @Label("Expanded")
+    int expanded;
+
+    @Label("Peak Frontier")
+    int peakFrontier;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
@@ -0,0 +1,200 @@
+package com.oosubhisara.algorithm;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Histograms of the searches recorded by MeasuredPathFinder: cells
+// expanded, peak frontier, wall time and bytes allocated by the searching
+// thread. Safe to record into from many threads at once, and can be
+// published as an MXBean on the platform MBean server.
+public class SearchMetrics implements SearchMetricsMXBean {
+    private static final String DOMAIN = "com.oosubhisara.pathfinding";
+
+    private final String name;
+    private final LongAdder searches;
+    private final LongAdder found;
+    private final Histogram expanded;
+    private final Histogram peakFrontier;
+    private final Histogram wallNanos;
+    private final Histogram allocatedBytes;
+
+    public SearchMetrics(String name) {
+        this.name = name;
+        this.searches = new LongAdder();
+        this.found = new LongAdder();
+        this.expanded = new Histogram();
+        this.peakFrontier = new Histogram();
+        this.wallNanos = new Histogram();
+        this.allocatedBytes = new Histogram();
+    }
+
+    // Adds one search. allocatedBytes is negative when the JVM cannot
+    // count allocations, and is then left out.
+    public void record(boolean found, int expanded, int peakFrontier,
+                       long wallNanos, long allocatedBytes) {
+        this.searches.increment();
+        if (found) {
+            this.found.increment();
+        }
+        this.expanded.record(expanded);
+        this.peakFrontier.record(peakFrontier);
+        this.wallNanos.record(wallNanos);
+        if (allocatedBytes >= 0) {
+            this.allocatedBytes.record(allocatedBytes);
+        }
+    }
+
+    public Histogram getExpandedHistogram() {
+        return this.expanded;
+    }
+
+    public Histogram getPeakFrontierHistogram() {
+        return this.peakFrontier;
+    }
+
+    public Histogram getWallNanosHistogram() {
+        return this.wallNanos;
+    }
+
+    public Histogram getAllocatedBytesHistogram() {
+        return this.allocatedBytes;
+    }
+
+    public ObjectName getObjectName() {
+        try {
+            return new ObjectName(DOMAIN + ":type=SearchMetrics,name=" +
+                                  ObjectName.quote(this.name));
+        } catch (JMException e) {
+            throw new IllegalStateException(
+                    "Invalid metrics name " + this.name + ".", e);
+        }
+    }
+
+    // Publishes the metrics under getObjectName() on the platform MBean
+    // server
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, getObjectName());
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException(
+                    "Metrics " + this.name + " are already registered.", e);
+        } catch (JMException e) {
+            throw new IllegalStateException(
+                    "Cannot register metrics " + this.name + ".", e);
+        }
+    }
+
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(getObjectName());
+        } catch (InstanceNotFoundException e) {
+            // Not registered, nothing to do
+        } catch (JMException e) {
+            throw new IllegalStateException(
+                    "Cannot unregister metrics " + this.name + ".", e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public long getSearches() {
+        return this.searches.sum();
+    }
+
+    @Override
+    public long getFound() {
+        return this.found.sum();
+    }
+
+    @Override
+    public double getExpandedMean() {
+        return this.expanded.getMean();
+    }
+
+    @Override
+    public long getExpandedP50() {
+        return this.expanded.getPercentile(50);
+    }
+
+    @Override
+    public long getExpandedP99() {
+        return this.expanded.getPercentile(99);
+    }
+
+    @Override
+    public long getExpandedMax() {
+        return this.expanded.getMax();
+    }
+
+    @Override
+    public double getPeakFrontierMean() {
+        return this.peakFrontier.getMean();
+    }
+
+    @Override
+    public long getPeakFrontierP99() {
+        return this.peakFrontier.getPercentile(99);
+    }
+
+    @Override
+    public long getPeakFrontierMax() {
+        return this.peakFrontier.getMax();
+    }
+
+    @Override
+    public double getWallNanosMean() {
+        return this.wallNanos.getMean();
+    }
+
+    @Override
+    public long getWallNanosP50() {
+        return this.wallNanos.getPercentile(50);
+    }
+
+    @Override
+    public long getWallNanosP99() {
+        return this.wallNanos.getPercentile(99);
+    }
+
+    @Override
+    public long getWallNanosMax() {
+        return this.wallNanos.getMax();
+    }
+
+    @Override
+    public double getAllocatedBytesMean() {
+        return this.allocatedBytes.getMean();
+    }
+
+    @Override
+    public long getAllocatedBytesP99() {
+        return this.allocatedBytes.getPercentile(99);
+    }
+
+    @Override
+    public long getAllocatedBytesMax() {
+        return this.allocatedBytes.getMax();
+    }
+
+    @Override
+    public void reset() {
+        this.searches.reset();
+        this.found.reset();
+        this.expanded.reset();
+        this.peakFrontier.reset();
+        this.wallNanos.reset();
+        this.allocatedBytes.reset();
+    }
+}
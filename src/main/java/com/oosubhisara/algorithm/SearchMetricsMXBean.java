@@ -0,0 +1,42 @@
+package com.oosubhisara.algorithm;
+
+// Management interface of SearchMetrics, as shown by JConsole or any other
+// JMX client. Percentiles are of every search recorded since the last
+// reset.
+public interface SearchMetricsMXBean {
+    String getName();
+
+    long getSearches();
+
+    long getFound();
+
+    double getExpandedMean();
+
+    long getExpandedP50();
+
+    long getExpandedP99();
+
+    long getExpandedMax();
+
+    double getPeakFrontierMean();
+
+    long getPeakFrontierP99();
+
+    long getPeakFrontierMax();
+
+    double getWallNanosMean();
+
+    long getWallNanosP50();
+
+    long getWallNanosP99();
+
+    long getWallNanosMax();
+
+    double getAllocatedBytesMean();
+
+    long getAllocatedBytesP99();
+
+    long getAllocatedBytesMax();
+
+    void reset();
+}
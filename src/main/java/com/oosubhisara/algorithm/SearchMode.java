@@ -0,0 +1,8 @@
+package com.oosubhisara.algorithm;
+
+public enum SearchMode {
+    // Grow one frontier from start until it reaches target
+    FORWARD,
+    // Grow frontiers from start and target in turn until they meet
+    BIDIRECTIONAL
+}
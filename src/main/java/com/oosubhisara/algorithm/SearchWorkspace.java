@@ -0,0 +1,197 @@
+package com.oosubhisara.algorithm;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Per-query scratch memory for the search engines. A workspace grows to the
+// largest grid it has seen and is then reused, so a search in steady state
+// allocates nothing. A workspace must not be shared between threads, but
+// another thread may raise its cancel flag to stop the search running in
+// it.
+public class SearchWorkspace {
+    // Cells expanded between reads of the cancel flag; a power of two
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    int[] queue;
+    int[] parent;
+    CellBitSet visited;
+    CellBitSet visitedBackward;
+    CellBitSet closed;
+    int[] path;
+    int pathLength;
+    int pathCost;
+    int expanded;
+    // Largest frontier of a search that keeps its own, rather than the
+    // heap or bucket queue of the workspace
+    int peakFrontier;
+    int[] distance;
+    private AtomicBoolean cancelFlag;
+    private boolean cancelled;
+    private int size;
+    private IndexedMinHeap heap;
+    private BucketQueue bucketQueue;
+    private boolean heapInUse;
+    private boolean bucketQueueInUse;
+
+    public SearchWorkspace() {
+        this(0);
+    }
+
+    public SearchWorkspace(int size) {
+        allocate(size);
+    }
+
+    private void allocate(int size) {
+        this.size = size;
+        this.queue = new int[size];
+        this.parent = new int[size];
+        this.visited = new CellBitSet(size);
+        this.visitedBackward = new CellBitSet(size);
+        this.closed = new CellBitSet(size);
+        this.path = new int[size];
+        this.distance = new int[size];
+        this.pathLength = 0;
+        this.pathCost = 0;
+        this.expanded = 0;
+        this.peakFrontier = 0;
+    }
+
+    // Readies the workspace for a search over a grid with the given number
+    // of indices. The visited sets are bit-packed and only clear the words
+    // the previous search touched. Searches with an open list mark cells
+    // as visited once their distance is known, and closed once expanded.
+    void prepare(int size) {
+        if (this.size < size) {
+            allocate(size);
+        } else {
+            this.visited.clear();
+            this.visitedBackward.clear();
+            this.closed.clear();
+        }
+
+        this.pathLength = 0;
+        this.pathCost = 0;
+        this.expanded = 0;
+        this.peakFrontier = 0;
+        this.cancelled = false;
+        this.heapInUse = false;
+        this.bucketQueueInUse = false;
+    }
+
+    // Called by the engines for every cell they expand; true when the
+    // search must stop. Reads the flag only every CANCEL_CHECK_INTERVAL
+    // cells, so searches that cannot be cancelled hardly pay for it.
+    boolean checkCancelled() {
+        if ((this.expanded & (CANCEL_CHECK_INTERVAL - 1)) != 0 ||
+                this.cancelFlag == null) {
+            return false;
+        }
+        this.cancelled = this.cancelFlag.get();
+        return this.cancelled;
+    }
+
+    // Empty heap with room for the prepared grid, created on first use
+    IndexedMinHeap heap() {
+        if (this.heap == null || this.heap.capacity() < this.size) {
+            this.heap = new IndexedMinHeap(this.size);
+        } else {
+            this.heap.clear();
+        }
+        this.heapInUse = true;
+        return this.heap;
+    }
+
+    // Empty bucket queue with room for the prepared grid and keys up to
+    // maxKeyStep apart, created on first use
+    BucketQueue bucketQueue(int maxKeyStep) {
+        if (this.bucketQueue == null || 
+                this.bucketQueue.capacity() < this.size ||
+                this.bucketQueue.maxKeyStep() < maxKeyStep) {
+            this.bucketQueue = new BucketQueue(this.size, maxKeyStep);
+        } else {
+            this.bucketQueue.clear();
+        }
+        this.bucketQueueInUse = true;
+        return this.bucketQueue;
+    }
+
+    // Copies the parent chain ending at target into the path buffer, start
+    // first.
+    void tracePath(int start, int target) {
+        int length = 1;
+        for (int cell = target; cell != start; cell = this.parent[cell]) {
+            length++;
+        }
+
+        int cell = target;
+        for (int i = length - 1; i >= 0; i--) {
+            this.path[i] = cell;
+            cell = this.parent[cell];
+        }
+        this.pathLength = length;
+    }
+
+    // Copies the start side chain ending at forward, followed by the target
+    // side chain starting at backward. The parent of a cell reached from the
+    // target side is its next cell towards the target.
+    void tracePath(int start, int forward, int backward, int target) {
+        tracePath(start, forward);
+
+        int length = this.pathLength;
+        int cell = backward;
+        while (true) {
+            this.path[length++] = cell;
+            if (cell == target) break;
+            cell = this.parent[cell];
+        }
+        this.pathLength = length;
+    }
+
+    // Cell indices of the last path found, from start to target inclusive.
+    // Only the first getPathLength() entries are valid.
+    public int[] getPath() {
+        return this.path;
+    }
+
+    public int getPathLength() {
+        return this.pathLength;
+    }
+
+    // Cost of the last path found in PathFinder cost units
+    public int getPathCost() {
+        return this.pathCost;
+    }
+
+    // Number of cells expanded by the last search
+    public int getExpanded() {
+        return this.expanded;
+    }
+
+    // Flag that stops the searches in this workspace once raised, from any
+    // thread, or null to not let them be cancelled
+    public void setCancelFlag(AtomicBoolean cancelFlag) {
+        this.cancelFlag = cancelFlag;
+    }
+
+    public AtomicBoolean getCancelFlag() {
+        return this.cancelFlag;
+    }
+
+    // Whether the last search stopped early because its cancel flag was
+    // raised, in which case it found no path
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    // Most cells waiting on the open list or queue at once during the last
+    // search, or 0 for searches that keep no frontier in the workspace
+    public int getPeakFrontier() {
+        int peak = this.peakFrontier;
+        if (this.heapInUse) {
+            peak = Math.max(peak, this.heap.peakSize());
+        }
+        if (this.bucketQueueInUse) {
+            peak = Math.max(peak, this.bucketQueue.peakSize());
+        }
+        return peak;
+    }
+}
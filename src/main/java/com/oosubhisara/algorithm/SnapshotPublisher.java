@@ -0,0 +1,58 @@
+package com.oosubhisara.algorithm;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Latest snapshot of a grid that one thread edits, for searches on any
+// number of other threads. The editing thread only records the version of
+// every change or committed Edit, and a reader takes a new snapshot the
+// first time it asks after one, so a run of edits nobody reads copies
+// nothing. Readers otherwise take the current snapshot with a single
+// atomic read. A search should take one snapshot and keep it for its whole
+// run; snapshots are immutable, so later edits never show up part way
+// through.
+//
+// A snapshot shares the grid's arrays until the next change, which copies
+// the array it writes to, so only edits after a read pay for a copy.
+public class SnapshotPublisher implements GridListener {
+    private final WalkableGrid grid;
+    private final AtomicReference<WalkableGrid> latest;
+    private volatile long version;
+
+    public SnapshotPublisher(WalkableGrid grid) {
+        if (grid.isReadOnly()) {
+            throw new IllegalArgumentException(
+                    "Grid is already a snapshot.");
+        }
+
+        this.grid = grid;
+        this.latest = new AtomicReference<WalkableGrid>(grid.snapshot());
+        this.version = grid.getVersion();
+        grid.addListener(this);
+    }
+
+    // The grid being edited, for the editing thread only
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    // Snapshot of the grid as of its last change. Waits for a change in
+    // progress only when the current snapshot is out of date.
+    public WalkableGrid get() {
+        WalkableGrid snapshot = this.latest.get();
+        if (snapshot.getVersion() < this.version) {
+            snapshot = this.grid.snapshot();
+            this.latest.set(snapshot);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void cellChanged(WalkableGrid grid, int index) {
+        this.version = grid.getVersion();
+    }
+
+    @Override
+    public void cellsChanged(WalkableGrid grid, int[] indices, int count) {
+        this.version = grid.getVersion();
+    }
+}
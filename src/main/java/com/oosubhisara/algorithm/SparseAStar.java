@@ -0,0 +1,251 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Arrays;
+
+// A* over any Walkability, for maps too large to hold as one WalkableGrid.
+// Cells are packed into longs as row << 32 | column and the search state
+// lives in a hash map and arrays sized to the cells the search reaches, so
+// only the part of the map near the frontier is ever asked about. Searches
+// are serialized, since the state is reused between them.
+public class SparseAStar {
+    // Cells a single search may reach before it gives up
+    public static final int DEFAULT_NODE_LIMIT = 1 << 24;
+
+    private final Walkability map;
+    private final Neighborhood neighborhood;
+    private final CornerCutting cornerCutting;
+    private final Heuristic heuristic;
+    private final int nodeLimit;
+    private final int[] moveCosts;
+
+    // Node ids of the cells reached, and per node state indexed by id
+    private final LongIntHashMap ids = new LongIntHashMap(1024);
+    private long[] cells = new long[1024];
+    private int[] parents = new int[1024];
+    private int[] distances = new int[1024];
+    private boolean[] closed = new boolean[1024];
+    private int numNodes;
+
+    // Binary min heap of nodes; a node pushed again after its distance
+    // dropped leaves a stale entry that is skipped once it is closed
+    private long[] heapKeys = new long[1024];
+    private int[] heapNodes = new int[1024];
+    private int heapSize;
+
+    private int expanded;
+    private int cost;
+
+    public SparseAStar(Walkability map) {
+        this(map, Neighborhood.FOUR, Heuristic.MANHATTAN, DEFAULT_NODE_LIMIT);
+    }
+
+    public SparseAStar(Walkability map, Neighborhood neighborhood,
+                       Heuristic heuristic, int nodeLimit) {
+        this(map, neighborhood, CornerCutting.FORBID, heuristic, nodeLimit);
+    }
+
+    public SparseAStar(Walkability map, Neighborhood neighborhood,
+                       CornerCutting cornerCutting, Heuristic heuristic,
+                       int nodeLimit) {
+        if (neighborhood == Neighborhood.EIGHT && 
+                heuristic == Heuristic.MANHATTAN) {
+            throw new IllegalArgumentException(
+                    "Manhattan heuristic is not admissible with diagonal moves.");
+        }
+        if (nodeLimit < 1) {
+            throw new IllegalArgumentException(
+                    "Node limit must be at least 1.");
+        }
+
+        this.map = map;
+        this.neighborhood = neighborhood;
+        this.cornerCutting = cornerCutting;
+        this.heuristic = heuristic;
+        this.nodeLimit = nodeLimit;
+        this.moveCosts = neighborhood.costs();
+    }
+
+    public static long cell(int row, int column) {
+        return (long) row << 32 | (column & 0xFFFFFFFFL);
+    }
+
+    public static int row(long cell) {
+        return (int) (cell >> 32);
+    }
+
+    public static int column(long cell) {
+        return (int) cell;
+    }
+
+    public Walkability getMap() {
+        return this.map;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return this.neighborhood;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return this.cornerCutting;
+    }
+
+    // Cells of the shortest path from start to target, both included, or an
+    // empty array when target cannot be reached. Throws
+    // IllegalStateException when the search reaches more cells than the
+    // node limit allows.
+    public synchronized long[] findPath(int startRow, int startColumn,
+                                        int targetRow, int targetColumn) {
+        reset();
+        if (!this.map.isWalkable(targetRow, targetColumn)) {
+            return new long[0];
+        }
+
+        Walkability map = this.map;
+        int[] moveCosts = this.moveCosts;
+        int numMoves = this.neighborhood.getNumMoves();
+
+        int start = addNode(cell(startRow, startColumn), -1, 0);
+        push(start, 0);
+
+        while (this.heapSize > 0) {
+            int node = pop();
+            if (this.closed[node]) continue;
+
+            long cell = this.cells[node];
+            int row = row(cell);
+            int column = column(cell);
+            if (row == targetRow && column == targetColumn) {
+                this.cost = this.distances[node];
+                return tracePath(node);
+            }
+
+            this.closed[node] = true;
+            this.expanded++;
+
+            for (int i = 0; i < numMoves; i++) {
+                int neighborRow = row + Neighborhood.ROW_OFFSETS[i];
+                int neighborColumn = column + Neighborhood.COLUMN_OFFSETS[i];
+                if (!map.isWalkable(neighborRow, neighborColumn)) continue;
+
+                if (!this.cornerCutting.allows(map, row, column, i)) continue;
+
+                long neighborCell = cell(neighborRow, neighborColumn);
+                int newDistance = this.distances[node] + moveCosts[i];
+                int neighbor = this.ids.get(neighborCell, -1);
+                if (neighbor < 0) {
+                    neighbor = addNode(neighborCell, node, newDistance);
+                } else if (this.closed[neighbor] || 
+                        newDistance >= this.distances[neighbor]) {
+                    continue;
+                } else {
+                    this.parents[neighbor] = node;
+                    this.distances[neighbor] = newDistance;
+                }
+
+                int estimate = this.heuristic.estimate(
+                        Math.abs(neighborRow - targetRow),
+                        Math.abs(neighborColumn - targetColumn));
+                push(neighbor, (long) (newDistance + estimate) << 32 | estimate);
+            }
+        }
+
+        return new long[0];
+    }
+
+    // Cells expanded by the last search
+    public synchronized int getExpanded() {
+        return this.expanded;
+    }
+
+    // Cost of the last path found
+    public synchronized int getCost() {
+        return this.cost;
+    }
+
+    private void reset() {
+        // Only the cells of the last search, however large the map grew
+        this.ids.clear(this.cells, this.numNodes);
+        this.numNodes = 0;
+        this.heapSize = 0;
+        this.expanded = 0;
+        this.cost = 0;
+    }
+
+    private int addNode(long cell, int parent, int distance) {
+        int node = this.numNodes;
+        if (node == this.nodeLimit) {
+            throw new IllegalStateException(String.format(
+                    "Search reached more than %d cells.", this.nodeLimit));
+        }
+        if (node == this.cells.length) {
+            int capacity = (int) Math.min(this.nodeLimit, node * 2L);
+            this.cells = Arrays.copyOf(this.cells, capacity);
+            this.parents = Arrays.copyOf(this.parents, capacity);
+            this.distances = Arrays.copyOf(this.distances, capacity);
+            this.closed = Arrays.copyOf(this.closed, capacity);
+        }
+
+        this.cells[node] = cell;
+        this.parents[node] = parent;
+        this.distances[node] = distance;
+        this.closed[node] = false;
+        this.ids.put(cell, node);
+        this.numNodes++;
+        return node;
+    }
+
+    private long[] tracePath(int target) {
+        int length = 0;
+        for (int node = target; node >= 0; node = this.parents[node]) {
+            length++;
+        }
+
+        long[] path = new long[length];
+        for (int node = target; node >= 0; node = this.parents[node]) {
+            path[--length] = this.cells[node];
+        }
+        return path;
+    }
+
+    private void push(int node, long key) {
+        if (this.heapSize == this.heapKeys.length) {
+            this.heapKeys = Arrays.copyOf(this.heapKeys, this.heapSize * 2);
+            this.heapNodes = Arrays.copyOf(this.heapNodes, this.heapSize * 2);
+        }
+
+        int i = this.heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (this.heapKeys[parent] <= key) break;
+            this.heapKeys[i] = this.heapKeys[parent];
+            this.heapNodes[i] = this.heapNodes[parent];
+            i = parent;
+        }
+        this.heapKeys[i] = key;
+        this.heapNodes[i] = node;
+    }
+
+    private int pop() {
+        int top = this.heapNodes[0];
+        int size = --this.heapSize;
+        long key = this.heapKeys[size];
+        int node = this.heapNodes[size];
+
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && 
+                    this.heapKeys[child + 1] < this.heapKeys[child]) {
+                child++;
+            }
+            if (key <= this.heapKeys[child]) break;
+            this.heapKeys[i] = this.heapKeys[child];
+            this.heapNodes[i] = this.heapNodes[child];
+            i = child;
+        }
+        this.heapKeys[i] = key;
+        this.heapNodes[i] = node;
+        return top;
+    }
+}
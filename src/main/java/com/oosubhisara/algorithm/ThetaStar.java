@@ -0,0 +1,119 @@
+package com.oosubhisara.algorithm;
+
+// Theta*: A* whose paths may run at any angle. When a neighbour of the
+// expanded cell can be seen from that cell's parent, the neighbour links
+// to the parent directly, so the parent chain is a list of waypoints
+// joined by clear lines rather than of adjacent cells. Paths are close
+// to, though not always, the shortest any-angle paths.
+//
+// The path left in the workspace holds the waypoints only, and its cost
+// is the sum of the straight-line costs between them.
+public class ThetaStar implements PathFinder {
+    private final WalkableGrid grid;
+    private final Neighborhood neighborhood;
+    private final CornerCutting cornerCutting;
+    private final LineOfSight lineOfSight;
+    private final int[] offsets;
+    private final int[] moveCosts;
+
+    public ThetaStar(WalkableGrid grid) {
+        this(grid, Neighborhood.EIGHT, CornerCutting.FORBID);
+    }
+
+    public ThetaStar(WalkableGrid grid, Neighborhood neighborhood,
+                     CornerCutting cornerCutting) {
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        this.cornerCutting = cornerCutting;
+        this.lineOfSight = new LineOfSight(grid, cornerCutting);
+        this.offsets = neighborhood.offsets(grid.getStride());
+        this.moveCosts = neighborhood.costs();
+    }
+
+    @Override
+    public WalkableGrid getGrid() {
+        return this.grid;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return this.neighborhood;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return this.cornerCutting;
+    }
+
+    @Override
+    public boolean findPath(int start, int target, SearchWorkspace workspace) {
+        WalkableGrid grid = this.grid;
+        workspace.prepare(grid.size());
+        if (!grid.isWalkable(target)) {
+            return false;
+        }
+
+        IndexedMinHeap open = workspace.heap();
+        int[] parent = workspace.parent;
+        CellBitSet visited = workspace.visited;
+        CellBitSet closed = workspace.closed;
+        int[] distance = workspace.distance;
+        int[] offsets = this.offsets;
+        int[] moveCosts = this.moveCosts;
+        CornerCutting cornerCutting = this.cornerCutting;
+        LineOfSight lineOfSight = this.lineOfSight;
+        int targetRow = grid.row(target);
+        int targetColumn = grid.column(target);
+
+        visited.set(start);
+        parent[start] = start;
+        distance[start] = 0;
+        open.push(start, 0);
+
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            if (cell == target) {
+                workspace.tracePath(start, target);
+                workspace.pathCost = distance[target];
+                return true;
+            }
+
+            closed.set(cell);
+            workspace.expanded++;
+            if (workspace.checkCancelled()) return false;
+            // A walled-in start is left by a grid step, never by a line
+            int from = grid.isWalkable(parent[cell]) ? parent[cell] : cell;
+
+            for (int i = 0; i < offsets.length; i++) {
+                int neighbor = cell + offsets[i];
+                if (!grid.isWalkable(neighbor)) continue;
+                if (!cornerCutting.allows(grid, cell, i)) continue;
+                if (closed.get(neighbor)) continue;
+
+                int newParent = cell;
+                int newDistance = distance[cell] +
+                        moveCosts[i] * grid.getCost(neighbor);
+                if (from != cell && lineOfSight.isClear(from, neighbor)) {
+                    int lineDistance = distance[from] +
+                            lineOfSight.cost(from, neighbor);
+                    if (lineDistance <= newDistance) {
+                        newParent = from;
+                        newDistance = lineDistance;
+                    }
+                }
+
+                if (!visited.get(neighbor) || newDistance < distance[neighbor]) {
+                    visited.set(neighbor);
+                    parent[neighbor] = newParent;
+                    distance[neighbor] = newDistance;
+
+                    int estimate = Heuristic.EUCLIDEAN.estimate(
+                            Math.abs(grid.row(neighbor) - targetRow),
+                            Math.abs(grid.column(neighbor) - targetColumn));
+                    open.push(neighbor,
+                              (long) (newDistance + estimate) << 32 | estimate);
+                }
+            }
+        }
+
+        return false;
+    }
+}
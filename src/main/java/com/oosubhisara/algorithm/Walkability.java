@@ -0,0 +1,11 @@
+package com.oosubhisara.algorithm;
+
+// Which cells of a map of rows and columns can be walked on, however the map
+// is stored. Cells outside the map are not walkable.
+public interface Walkability {
+    int getNumRows();
+
+    int getNumColumns();
+
+    boolean isWalkable(int row, int column);
+}
@@ -0,0 +1,576 @@
+package com.oosubhisara.algorithm;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Walkability of every tile packed one bit per cell into a long[]. Cells are
+// addressed by an int index that is also the bit index. The grid is padded
+// with a one-cell wall border and every row is padded with walls to a whole
+// number of words, so:
+// - the neighbours of any cell can be read without bounds checks, and
+// - word w of a row lies directly above word w of the next row, which lets
+//   row scans test 64 cells at once.
+//
+// Walkable cells also have a cost of entering them, from 1 to MAX_COST,
+// kept one byte per cell index. The bytes are only allocated once a cell
+// costs more than 1.
+//
+// Changes and snapshots are serialized on the grid, so a snapshot taken
+// from another thread never shows half of an Edit. Snapshots are copy on
+// write: one shares the grid's arrays, and the grid copies an array only
+// when it next changes it, so taking a snapshot costs nothing and a change
+// after one copies the bits or the costs, not both.
+public class WalkableGrid implements Walkability {
+    public static final int MAX_COST = Byte.MAX_VALUE;
+
+    // Changes of an Edit that are not costs
+    private static final int WALL = -1;
+    private static final int OPEN = -2;
+
+    private final int numRows;
+    private final int numColumns;
+    private final int stride;
+    private final int wordsPerRow;
+    private long[] words;
+    private byte[] costs;
+    // Whether the last snapshot holds the arrays, which must then be
+    // copied before they change
+    private boolean sharedWords;
+    private boolean sharedCosts;
+    private WalkableGrid lastSnapshot;
+    // Costs of the snapshot last copied from, while this grid's costs
+    // still match them. A snapshot's costs never change, so copying from
+    // one with the same costs again need not compare them.
+    private byte[] copiedCosts;
+    private boolean costsCopied;
+    private int maxCost = 1;
+    private final boolean readOnly;
+    private final List<GridListener> listeners;
+    private long version;
+
+    public WalkableGrid(int numRows, int numColumns) {
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.wordsPerRow = (numColumns + 2 + 63) >>> 6;
+        this.stride = this.wordsPerRow << 6;
+        this.words = new long[(numRows + 2) * this.wordsPerRow];
+        this.readOnly = false;
+        this.listeners = new ArrayList<GridListener>();
+    }
+
+    // A grid whose walkability is read in bulk from words laid out as in
+    // words(): one bit per cell, border and row padding included. Bits in
+    // the border and padding are ignored.
+    public WalkableGrid(int numRows, int numColumns, LongBuffer words) {
+        this(numRows, numColumns);
+        if (words.remaining() < this.words.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Need %d words for a %dx%d grid, got %d.", 
+                    this.words.length, numRows, numColumns, 
+                    words.remaining()));
+        }
+        words.get(this.words);
+        clearBorder();
+    }
+
+    private WalkableGrid(WalkableGrid other) {
+        this.numRows = other.numRows;
+        this.numColumns = other.numColumns;
+        this.wordsPerRow = other.wordsPerRow;
+        this.stride = other.stride;
+        this.words = other.words;
+        this.costs = other.costs;
+        this.maxCost = other.maxCost;
+        this.readOnly = true;
+        this.listeners = new ArrayList<GridListener>();
+        this.version = other.version;
+    }
+
+    // Immutable copy of the current walkability. Unlike this grid, which
+    // its owner keeps editing, a snapshot can be searched from any number
+    // of threads at once. Returns the last snapshot again while nothing
+    // has changed since.
+    public synchronized WalkableGrid snapshot() {
+        if (this.readOnly) return this;
+
+        if (this.lastSnapshot == null) {
+            this.lastSnapshot = new WalkableGrid(this);
+            this.sharedWords = true;
+            this.sharedCosts = true;
+        }
+        return this.lastSnapshot;
+    }
+
+    // Number of words in the layout written by writeWords
+    public int getNumWords() {
+        return this.words.length;
+    }
+
+    // Writes the packed walkability in the layout the LongBuffer
+    // constructor reads
+    public void writeWords(LongBuffer out) {
+        out.put(this.words);
+    }
+
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    // Number of walkability and cost changes so far, where a committed Edit
+    // counts once; never decreases
+    public long getVersion() {
+        return this.version;
+    }
+
+    // Snapshots never change, so nothing may listen to them; a listener
+    // left on a snapshot that is shared and kept would never be removed
+    public void addListener(GridListener listener) {
+        if (this.readOnly) {
+            throw new IllegalStateException(
+                    "Grid snapshot has nothing to listen to.");
+        }
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(GridListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    @Override
+    public int getNumRows() {
+        return this.numRows;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return this.numColumns;
+    }
+
+    // Distance between vertically adjacent cells in index space
+    public int getStride() {
+        return this.stride;
+    }
+
+    // Number of indices, including the border and row padding
+    public int size() {
+        return this.words.length << 6;
+    }
+
+    public int index(int row, int column) {
+        return (row + 1) * this.stride + column + 1;
+    }
+
+    public int row(int index) {
+        return index / this.stride - 1;
+    }
+
+    public int column(int index) {
+        return index % this.stride - 1;
+    }
+
+    public boolean contains(int row, int column) {
+        return row >= 0 && row < this.numRows &&
+                column >= 0 && column < this.numColumns;
+    }
+
+    public boolean isWalkable(int index) {
+        return (this.words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean isWalkable(int row, int column) {
+        return contains(row, column) && isWalkable(index(row, column));
+    }
+
+    // Cost of entering a walkable cell
+    public int getCost(int index) {
+        byte[] costs = this.costs;
+        return costs == null ? 1 : costs[index];
+    }
+
+    public int getCost(int row, int column) {
+        checkContains(row, column);
+        return getCost(index(row, column));
+    }
+
+    // At least the cost of every cell; never decreases, so search queues
+    // sized for it stay valid
+    public int getMaxCost() {
+        return this.maxCost;
+    }
+
+    // Whether any cell has ever cost more than 1
+    public boolean hasCosts() {
+        return this.costs != null;
+    }
+
+    // Listeners hear of the change only if the cell is walkable, since the
+    // cost of a wall does not matter until it is opened
+    public synchronized void setCost(int row, int column, int cost) {
+        checkWritable();
+        checkContains(row, column);
+        checkCost(cost);
+
+        int index = index(row, column);
+        if (getCost(index) == cost) return;
+
+        writeCost(index, cost);
+        if (!isWalkable(index)) return;
+
+        this.version++;
+        for (GridListener listener : this.listeners) {
+            listener.cellChanged(this, index);
+        }
+    }
+
+    public synchronized void setWalkable(int row, int column,
+                                         boolean walkable) {
+        checkWritable();
+        checkContains(row, column);
+
+        int index = index(row, column);
+        if (isWalkable(index) == walkable) return;
+
+        writeWalkable(index, walkable);
+        this.version++;
+
+        for (GridListener listener : this.listeners) {
+            listener.cellChanged(this, index);
+        }
+    }
+
+    // Starts a batch of changes to apply together
+    public Edit edit() {
+        checkWritable();
+        return new Edit();
+    }
+
+    // Makes this grid match other, usually a snapshot of a grid edited on
+    // another thread, in one Edit of the cells that differ. Only the words
+    // and costs that differ are visited cell by cell.
+    public void copyFrom(WalkableGrid other) {
+        if (other.numRows != this.numRows ||
+                other.numColumns != this.numColumns) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot copy a %dx%d grid into a %dx%d grid.",
+                    other.numRows, other.numColumns, this.numRows,
+                    this.numColumns));
+        }
+
+        Edit edit = edit();
+        long[] words = this.words;
+        long[] otherWords = other.words;
+        int word = 0;
+        while ((word = mismatch(words, otherWords, word)) >= 0) {
+            long differences = words[word] ^ otherWords[word];
+            while (differences != 0) {
+                int index = word << 6 |
+                            Long.numberOfTrailingZeros(differences);
+                edit.add(index, other.isWalkable(index) ? OPEN : WALL);
+                differences &= differences - 1;
+            }
+            word++;
+        }
+
+        // Grids sharing costs, or both without any, have the same costs
+        byte[] costs = this.costs;
+        byte[] otherCosts = other.costs;
+        boolean copied = this.costsCopied && other.readOnly &&
+                         this.copiedCosts == otherCosts;
+        if (costs != otherCosts && !copied) {
+            int index = 0;
+            while ((index = mismatch(costs, otherCosts, index)) >= 0) {
+                edit.add(index, other.getCost(index));
+                index++;
+            }
+        }
+        edit.commit();
+
+        this.copiedCosts = otherCosts;
+        this.costsCopied = other.readOnly;
+    }
+
+    // First word from index on where the arrays differ, or -1
+    private static int mismatch(long[] words, long[] otherWords, int index) {
+        int found = Arrays.mismatch(words, index, words.length,
+                                    otherWords, index, otherWords.length);
+        return found < 0 ? -1 : index + found;
+    }
+
+    // Missing costs are all 1, as if filled in
+    private static int mismatch(byte[] costs, byte[] otherCosts, int index) {
+        if (costs == null) return mismatchOnes(otherCosts, index);
+        if (otherCosts == null) return mismatchOnes(costs, index);
+
+        int found = Arrays.mismatch(costs, index, costs.length,
+                                    otherCosts, index, otherCosts.length);
+        return found < 0 ? -1 : index + found;
+    }
+
+    private static int mismatchOnes(byte[] costs, int index) {
+        for (int i = index; i < costs.length; i++) {
+            if (costs[i] != 1) return i;
+        }
+        return -1;
+    }
+
+    // Walkability and cost changes that commit() applies in one go: the
+    // version goes up once, and every listener hears of all the changed
+    // cells in a single call. Changes are checked as they are made, so a
+    // commit cannot fail part way through.
+    public class Edit {
+        // Per change the cell index, and WALL, OPEN or the new cost
+        private int[] cells = new int[16];
+        private int[] values = new int[16];
+        private int numChanges;
+
+        private Edit() {
+        }
+
+        public WalkableGrid getGrid() {
+            return WalkableGrid.this;
+        }
+
+        // Number of changes made since the last commit
+        public int size() {
+            return this.numChanges;
+        }
+
+        public void setWalkable(int row, int column, boolean walkable) {
+            checkContains(row, column);
+            add(index(row, column), walkable ? OPEN : WALL);
+        }
+
+        public void setCost(int row, int column, int cost) {
+            checkContains(row, column);
+            checkCost(cost);
+            add(index(row, column), cost);
+        }
+
+        // Applies the changes in the order they were made and starts an
+        // empty batch
+        public void commit() {
+            WalkableGrid.this.commit(this.cells, this.values,
+                                     this.numChanges);
+            this.numChanges = 0;
+        }
+
+        private void add(int cell, int value) {
+            if (this.numChanges == this.cells.length) {
+                this.cells = Arrays.copyOf(this.cells, this.numChanges * 2);
+                this.values = Arrays.copyOf(this.values, this.numChanges * 2);
+            }
+            this.cells[this.numChanges] = cell;
+            this.values[this.numChanges] = value;
+            this.numChanges++;
+        }
+    }
+
+    private synchronized void commit(int[] cells, int[] values,
+                                     int numChanges) {
+        if (numChanges == 0) return;
+
+        // Every cell touched, once, with how it stood before the batch
+        int[] touched = Arrays.copyOf(cells, numChanges);
+        Arrays.sort(touched);
+        int numTouched = 0;
+        for (int i = 0; i < numChanges; i++) {
+            if (i == 0 || touched[i] != touched[i - 1]) {
+                touched[numTouched++] = touched[i];
+            }
+        }
+        boolean[] wasWalkable = new boolean[numTouched];
+        int[] oldCosts = new int[numTouched];
+        for (int i = 0; i < numTouched; i++) {
+            wasWalkable[i] = isWalkable(touched[i]);
+            oldCosts[i] = getCost(touched[i]);
+        }
+
+        for (int i = 0; i < numChanges; i++) {
+            int value = values[i];
+            if (value == WALL || value == OPEN) {
+                writeWalkable(cells[i], value == OPEN);
+            } else {
+                writeCost(cells[i], value);
+            }
+        }
+
+        // As for single changes, the cost of a wall is no change
+        int numChanged = 0;
+        for (int i = 0; i < numTouched; i++) {
+            int cell = touched[i];
+            boolean walkable = isWalkable(cell);
+            if (walkable != wasWalkable[i] ||
+                    (walkable && getCost(cell) != oldCosts[i])) {
+                touched[numChanged++] = cell;
+            }
+        }
+        if (numChanged == 0) return;
+
+        this.version++;
+        for (GridListener listener : this.listeners) {
+            listener.cellsChanged(this, touched, numChanged);
+        }
+    }
+
+    private void writeWalkable(int index, boolean walkable) {
+        if (isWalkable(index) == walkable) return;
+
+        if (this.sharedWords) {
+            this.words = this.words.clone();
+            this.sharedWords = false;
+        }
+        this.lastSnapshot = null;
+        if (walkable) {
+            this.words[index >>> 6] |= 1L << index;
+        } else {
+            this.words[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private void writeCost(int index, int cost) {
+        if (getCost(index) == cost) return;
+
+        if (this.costs == null) {
+            this.costs = new byte[size()];
+            Arrays.fill(this.costs, (byte) 1);
+        } else if (this.sharedCosts) {
+            this.costs = this.costs.clone();
+        }
+        this.sharedCosts = false;
+        this.lastSnapshot = null;
+        this.costsCopied = false;
+        this.costs[index] = (byte) cost;
+        this.maxCost = Math.max(this.maxCost, cost);
+    }
+
+    private void checkWritable() {
+        if (this.readOnly) {
+            throw new IllegalStateException("Grid snapshot is read-only.");
+        }
+    }
+
+    private static void checkCost(int cost) {
+        if (cost < 1 || cost > MAX_COST) {
+            throw new IllegalArgumentException(String.format(
+                    "Cost must be from 1 to %d, got %d.", MAX_COST, cost));
+        }
+    }
+
+    private void checkContains(int row, int column) {
+        if (!contains(row, column)) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Cell %d, %d is outside the grid.",
+                                  row, column));
+        }
+    }
+
+    private void clearBorder() {
+        int wordsPerRow = this.wordsPerRow;
+        int lastRow = this.numRows + 1;
+        for (int i = 0; i < wordsPerRow; i++) {
+            this.words[i] = 0;
+            this.words[lastRow * wordsPerRow + i] = 0;
+        }
+
+        // Bits of the columns inside the grid, per word of a row
+        long[] masks = new long[wordsPerRow];
+        for (int column = 1; column <= this.numColumns; column++) {
+            masks[column >>> 6] |= 1L << column;
+        }
+        for (int row = 1; row < lastRow; row++) {
+            for (int i = 0; i < wordsPerRow; i++) {
+                this.words[row * wordsPerRow + i] &= masks[i];
+            }
+        }
+    }
+
+    int getNumListeners() {
+        return this.listeners.size();
+    }
+
+    // Number of words between vertically adjacent words
+    int getWordsPerRow() {
+        return this.wordsPerRow;
+    }
+
+    // The packed walkability bits, for word-level scans
+    long[] words() {
+        return this.words;
+    }
+
+    // Cost per cell index, or null while every cell costs 1
+    byte[] costs() {
+        return this.costs;
+    }
+
+    // Returns the first cell after index along its row, in the direction of
+    // step (1 or -1), that is a wall, is target, or has a walkable cell
+    // above or below it whose neighbour behind is a wall. Scans a word of
+    // the row at a time. The wall border guarantees a result within the row.
+    int scanRow(int index, int step, int target) {
+        long[] words = this.words;
+        int wordsPerRow = this.wordsPerRow;
+        int word = index >>> 6;
+
+        if (step > 0) {
+            // Ignore index and the cells before it in the first word, which
+            // also makes the carry from the word before irrelevant
+            long ignore = -1L >>> (63 - (index & 63));
+            long upCarry = 0;
+            long downCarry = 0;
+
+            while (true) {
+                long up = words[word - wordsPerRow];
+                long down = words[word + wordsPerRow];
+                long upBehind = (up << 1) | upCarry;
+                long downBehind = (down << 1) | downCarry;
+
+                long stops = ~words[word] | (up & ~upBehind) |
+                             (down & ~downBehind);
+                if ((target >>> 6) == word) {
+                    stops |= 1L << target;
+                }
+                stops &= ~ignore;
+
+                if (stops != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(stops);
+                }
+                ignore = 0;
+                upCarry = up >>> 63;
+                downCarry = down >>> 63;
+                word++;
+            }
+        } else {
+            // Ignore index and the cells after it in the first word, which
+            // also makes the carry from the word after irrelevant
+            long ignore = -1L << (index & 63);
+            long upCarry = 0;
+            long downCarry = 0;
+
+            while (true) {
+                long up = words[word - wordsPerRow];
+                long down = words[word + wordsPerRow];
+                long upBehind = (up >>> 1) | upCarry;
+                long downBehind = (down >>> 1) | downCarry;
+
+                long stops = ~words[word] | (up & ~upBehind) |
+                             (down & ~downBehind);
+                if ((target >>> 6) == word) {
+                    stops |= 1L << target;
+                }
+                stops &= ~ignore;
+
+                if (stops != 0) {
+                    return (word << 6) + 63 - Long.numberOfLeadingZeros(stops);
+                }
+                ignore = 0;
+                upCarry = up << 63;
+                downCarry = down << 63;
+                word--;
+            }
+        }
+    }
+}
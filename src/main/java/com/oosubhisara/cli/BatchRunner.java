@@ -0,0 +1,409 @@
+package com.oosubhisara.cli;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.oosubhisara.algorithm.Algorithm;
+import com.oosubhisara.algorithm.BatchPathFinder;
+import com.oosubhisara.algorithm.CornerCutting;
+import com.oosubhisara.algorithm.Histogram;
+import com.oosubhisara.algorithm.Landmarks;
+import com.oosubhisara.algorithm.Neighborhood;
+import com.oosubhisara.algorithm.PathQuery;
+import com.oosubhisara.algorithm.PathResult;
+import com.oosubhisara.algorithm.SearchMetrics;
+import com.oosubhisara.algorithm.WalkableGrid;
+import com.oosubhisara.map.BinaryMapFormat;
+import com.oosubhisara.map.TextMapFormat;
+
+// Runs the queries of a scenario file against a map without a display and
+// reports the path of every query and percentiles of the query times.
+// Needs nothing but the JDK, so it runs on servers without JavaFX.
+public class BatchRunner {
+    private static final String USAGE =
+            "Usage: BatchRunner --map FILE --scenario FILE [options]\n" +
+            "  --algorithm NAME  BFS, ASTAR, ALT, DIJKSTRA, JPS, HPA, " +
+            "DSTAR_LITE,\n" +
+            "                    THETA_STAR or FLOW_FIELD (default BFS)\n" +
+            "  --neighborhood N  FOUR or EIGHT moves for ASTAR, ALT, " +
+            "DIJKSTRA,\n" +
+            "                    THETA_STAR and FLOW_FIELD (default FOUR)\n" +
+            "  --corners POLICY  FORBID, FORBID_THROUGH_WALLS or ALLOW " +
+            "corner cutting\n" +
+            "                    by diagonal moves (default FORBID)\n" +
+            "  --smooth          pull paths tight into waypoints\n" +
+            "  --metrics         report histograms of cells expanded, peak " +
+            "frontier\n" +
+            "                    and bytes allocated, also published over " +
+            "JMX\n" +
+            "  --threads N       worker threads (default: processors)\n" +
+            "  --format FORMAT   csv or json (default csv)\n" +
+            "  --output FILE     write the report to FILE instead of stdout";
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private Path mapPath;
+    private Path scenarioPath;
+    private Path outputPath;
+    private Algorithm algorithm = Algorithm.BFS;
+    private Neighborhood neighborhood = Neighborhood.FOUR;
+    private CornerCutting cornerCutting = CornerCutting.FORBID;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+    private boolean smooth;
+    private boolean measure;
+    private boolean json;
+
+    public static void main(String[] args) {
+        BatchRunner runner = new BatchRunner();
+        try {
+            runner.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            runner.run();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--help")) {
+                throw new IllegalArgumentException("");
+            }
+            if (option.equals("--smooth")) {
+                this.smooth = true;
+                continue;
+            }
+            if (option.equals("--metrics")) {
+                this.measure = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException(
+                        "Missing value for " + option + ".");
+            }
+            String value = args[++i];
+
+            switch (option) {
+                case "--map": this.mapPath = Paths.get(value); break;
+                case "--scenario": this.scenarioPath = Paths.get(value); break;
+                case "--output": this.outputPath = Paths.get(value); break;
+                case "--algorithm":
+                    this.algorithm = parseAlgorithm(value);
+                    break;
+                case "--neighborhood":
+                    this.neighborhood = parseEnum(Neighborhood.class, value,
+                                                  "neighborhood");
+                    break;
+                case "--corners":
+                    this.cornerCutting = parseEnum(CornerCutting.class, value,
+                                                   "corner cutting");
+                    break;
+                case "--threads": this.numThreads = parseThreads(value); break;
+                case "--format": this.json = parseFormat(value); break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown option " + option + ".");
+            }
+        }
+
+        if (this.mapPath == null || this.scenarioPath == null) {
+            throw new IllegalArgumentException(
+                    "Both --map and --scenario are required.");
+        }
+    }
+
+    private static Algorithm parseAlgorithm(String value) {
+        for (Algorithm algorithm : Algorithm.values()) {
+            if (algorithm.name().equalsIgnoreCase(value) ||
+                    algorithm.getDisplayName().equalsIgnoreCase(value)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown algorithm " + value + ".");
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type,
+                                                   String value,
+                                                   String what) {
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(value)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Unknown " + what + " " + value + ".");
+    }
+
+    private static int parseThreads(String value) {
+        try {
+            int numThreads = Integer.parseInt(value);
+            if (numThreads >= 1) return numThreads;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(
+                "Number of threads must be a positive number.");
+    }
+
+    private static boolean parseFormat(String value) {
+        if (value.equalsIgnoreCase("json")) return true;
+        if (value.equalsIgnoreCase("csv")) return false;
+        throw new IllegalArgumentException("Unknown format " + value + ".");
+    }
+
+    private void run() throws IOException {
+        // Only the walkability is needed, not the tiles
+        WalkableGrid grid = BinaryMapFormat.isBinary(this.mapPath)
+                ? BinaryMapFormat.open(this.mapPath).toWalkableGrid()
+                : TextMapFormat.readGrid(this.mapPath);
+        List<PathQuery> queries = Scenario.load(this.scenarioPath, grid)
+                                          .getQueries();
+
+        // Saved next to the map, so later runs skip the floods
+        Landmarks landmarks = this.algorithm == Algorithm.ALT
+                ? Landmarks.loadOrCompute(this.mapPath, grid,
+                        Landmarks.DEFAULT_COUNT, this.neighborhood,
+                        this.cornerCutting, e -> System.err.println(
+                                "Cannot save landmarks: " + e.getMessage()))
+                : null;
+
+        // Published while the batch runs, for JConsole and the like
+        SearchMetrics metrics = null;
+        if (this.measure) {
+            metrics = new SearchMetrics("batch");
+            metrics.register();
+        }
+
+        long[] nanos = new long[queries.size()];
+        List<PathResult> results;
+        long startTime = System.nanoTime();
+        try (BatchPathFinder finder = new BatchPathFinder(this.algorithm,
+                                                          this.numThreads)) {
+            finder.setMoves(this.neighborhood, this.cornerCutting);
+            finder.setSmoothing(this.smooth);
+            finder.setLandmarks(landmarks);
+            finder.setMetrics(metrics);
+            results = finder.findPaths(grid, queries, nanos);
+        } finally {
+            if (metrics != null) {
+                metrics.unregister();
+            }
+        }
+        long totalNanos = System.nanoTime() - startTime;
+
+        try (PrintWriter out = openOutput()) {
+            if (this.json) {
+                writeJson(out, grid, queries, results, nanos, totalNanos,
+                          metrics);
+            } else {
+                writeCsv(out, grid, queries, results, nanos, totalNanos,
+                         metrics);
+            }
+        }
+    }
+
+    private PrintWriter openOutput() throws IOException {
+        if (this.outputPath == null) {
+            return new PrintWriter(new OutputStreamWriter(
+                    System.out, StandardCharsets.UTF_8));
+        }
+        return new PrintWriter(Files.newBufferedWriter(this.outputPath));
+    }
+
+    private void writeCsv(PrintWriter out, WalkableGrid grid,
+                          List<PathQuery> queries, List<PathResult> results,
+                          long[] nanos, long totalNanos,
+                          SearchMetrics metrics) {
+        out.println("query,start_row,start_column,target_row,target_column," +
+                    "status,length,cost,expanded,micros");
+        for (int i = 0; i < queries.size(); i++) {
+            PathQuery query = queries.get(i);
+            PathResult result = results.get(i);
+            out.printf(Locale.ROOT, "%d,%d,%d,%d,%d,%s,%d,%d,%d,%.3f%n", i,
+                       grid.row(query.start), grid.column(query.start),
+                       grid.row(query.target), grid.column(query.target),
+                       result.getStatus(), result.getLength(),
+                       result.getCost(), result.getExpanded(),
+                       nanos[i] / 1000.0);
+        }
+
+        // Summary after a blank line, as name,value pairs
+        out.println();
+        out.println("statistic,value");
+        out.printf(Locale.ROOT, "algorithm,%s%n", this.algorithm.name());
+        out.printf(Locale.ROOT, "neighborhood,%s%n", this.neighborhood);
+        out.printf(Locale.ROOT, "corner_cutting,%s%n", this.cornerCutting);
+        out.printf(Locale.ROOT, "smooth,%b%n", this.smooth);
+        out.printf(Locale.ROOT, "threads,%d%n", this.numThreads);
+        out.printf(Locale.ROOT, "queries,%d%n", queries.size());
+        out.printf(Locale.ROOT, "found,%d%n", countFound(results));
+        out.printf(Locale.ROOT, "total_millis,%.3f%n", totalNanos / 1e6);
+        long[] sorted = sortedCopy(nanos);
+        out.printf(Locale.ROOT, "mean_micros,%.3f%n", mean(sorted) / 1000.0);
+        for (double percentile : PERCENTILES) {
+            out.printf(Locale.ROOT, "p%s_micros,%.3f%n",
+                       formatPercentile(percentile),
+                       percentile(sorted, percentile) / 1000.0);
+        }
+        out.printf(Locale.ROOT, "max_micros,%.3f%n", max(sorted) / 1000.0);
+
+        if (metrics != null) {
+            writeCsvHistogram(out, "expanded", 
+                              metrics.getExpandedHistogram());
+            writeCsvHistogram(out, "peak_frontier",
+                              metrics.getPeakFrontierHistogram());
+            writeCsvHistogram(out, "allocated_bytes",
+                              metrics.getAllocatedBytesHistogram());
+        }
+    }
+
+    private static void writeCsvHistogram(PrintWriter out, String name,
+                                          Histogram histogram) {
+        out.printf(Locale.ROOT, "%s_mean,%.3f%n", name, histogram.getMean());
+        for (double percentile : PERCENTILES) {
+            out.printf(Locale.ROOT, "%s_p%s,%d%n", name,
+                       formatPercentile(percentile),
+                       histogram.getPercentile(percentile));
+        }
+        out.printf(Locale.ROOT, "%s_max,%d%n", name, histogram.getMax());
+    }
+
+    private void writeJson(PrintWriter out, WalkableGrid grid,
+                           List<PathQuery> queries, List<PathResult> results,
+                           long[] nanos, long totalNanos,
+                           SearchMetrics metrics) {
+        long[] sorted = sortedCopy(nanos);
+
+        out.println("{");
+        out.printf(Locale.ROOT, "  \"map\": \"%s\",%n",
+                   escape(this.mapPath.toString()));
+        out.printf(Locale.ROOT, "  \"algorithm\": \"%s\",%n",
+                   this.algorithm.name());
+        out.printf(Locale.ROOT, "  \"neighborhood\": \"%s\",%n",
+                   this.neighborhood);
+        out.printf(Locale.ROOT, "  \"cornerCutting\": \"%s\",%n",
+                   this.cornerCutting);
+        out.printf(Locale.ROOT, "  \"smooth\": %b,%n", this.smooth);
+        out.printf(Locale.ROOT, "  \"threads\": %d,%n", this.numThreads);
+        out.println("  \"summary\": {");
+        out.printf(Locale.ROOT, "    \"queries\": %d,%n", queries.size());
+        out.printf(Locale.ROOT, "    \"found\": %d,%n", countFound(results));
+        out.printf(Locale.ROOT, "    \"totalMillis\": %.3f,%n",
+                   totalNanos / 1e6);
+        out.printf(Locale.ROOT, "    \"meanMicros\": %.3f,%n",
+                   mean(sorted) / 1000.0);
+        for (double percentile : PERCENTILES) {
+            out.printf(Locale.ROOT, "    \"p%sMicros\": %.3f,%n",
+                       formatPercentile(percentile),
+                       percentile(sorted, percentile) / 1000.0);
+        }
+        out.printf(Locale.ROOT, "    \"maxMicros\": %.3f%n",
+                   max(sorted) / 1000.0);
+        out.println("  },");
+
+        if (metrics != null) {
+            out.println("  \"metrics\": {");
+            writeJsonHistogram(out, "expanded",
+                               metrics.getExpandedHistogram(), ",");
+            writeJsonHistogram(out, "peakFrontier",
+                               metrics.getPeakFrontierHistogram(), ",");
+            writeJsonHistogram(out, "allocatedBytes",
+                               metrics.getAllocatedBytesHistogram(), "");
+            out.println("  },");
+        }
+
+        out.println("  \"queries\": [");
+        for (int i = 0; i < queries.size(); i++) {
+            PathQuery query = queries.get(i);
+            PathResult result = results.get(i);
+            out.printf(Locale.ROOT,
+                       "    {\"start\": [%d, %d], \"target\": [%d, %d], " +
+                       "\"status\": \"%s\", \"length\": %d, \"cost\": %d, " +
+                       "\"expanded\": %d, \"micros\": %.3f}%s%n",
+                       grid.row(query.start), grid.column(query.start),
+                       grid.row(query.target), grid.column(query.target),
+                       result.getStatus(), result.getLength(),
+                       result.getCost(), result.getExpanded(),
+                       nanos[i] / 1000.0,
+                       i + 1 < queries.size() ? "," : "");
+        }
+        out.println("  ]");
+        out.println("}");
+    }
+
+    private static void writeJsonHistogram(PrintWriter out, String name,
+                                           Histogram histogram,
+                                           String separator) {
+        out.printf(Locale.ROOT, "    \"%s\": {\"mean\": %.3f", name,
+                   histogram.getMean());
+        for (double percentile : PERCENTILES) {
+            out.printf(Locale.ROOT, ", \"p%s\": %d",
+                       formatPercentile(percentile),
+                       histogram.getPercentile(percentile));
+        }
+        out.printf(Locale.ROOT, ", \"max\": %d}%s%n", histogram.getMax(),
+                   separator);
+    }
+
+    private static int countFound(List<PathResult> results) {
+        int found = 0;
+        for (PathResult result : results) {
+            if (result.isFound()) found++;
+        }
+        return found;
+    }
+
+    private static long[] sortedCopy(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static double mean(long[] values) {
+        if (values.length == 0) return 0;
+
+        double sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static long max(long[] sorted) {
+        return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile)
+                ? Integer.toString((int) percentile)
+                : Double.toString(percentile).replace('.', '_');
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,76 @@
+package com.oosubhisara.cli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.oosubhisara.algorithm.Walkability;
+import com.oosubhisara.map.BinaryMapFormat;
+import com.oosubhisara.map.ChunkedWorld;
+import com.oosubhisara.map.TextMapFormat;
+
+// Converts maps between the text and binary formats, by file extension:
+//
+//     MapConverter [--bytes] FROM TO
+//     MapConverter --chunks SIZE FROM DIRECTORY
+//
+// Binary maps keep only walkability unless --bytes is given, in which case
+// every tile character is kept. --chunks splits the walkability of a map
+// into a ChunkedWorld of SIZE by SIZE chunks.
+public class MapConverter {
+    private static final String USAGE =
+            "Usage: MapConverter [--bytes] FROM TO\n" +
+            "       MapConverter --chunks SIZE FROM DIRECTORY\n" +
+            "  Files ending in " + BinaryMapFormat.EXTENSION + 
+            " are binary maps, all others text maps.";
+
+    public static void main(String[] args) {
+        BinaryMapFormat.Encoding encoding = BinaryMapFormat.Encoding.BITS;
+        int chunkSize = 0;
+        int first = 0;
+        if (args.length > 0 && args[0].equals("--bytes")) {
+            encoding = BinaryMapFormat.Encoding.BYTES;
+            first = 1;
+        } else if (args.length > 1 && args[0].equals("--chunks")) {
+            chunkSize = parseChunkSize(args[1]);
+            first = 2;
+        }
+        if (args.length - first != 2) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        Path from = Paths.get(args[first]);
+        Path to = Paths.get(args[first + 1]);
+        try {
+            long startTime = System.nanoTime();
+            if (chunkSize > 0) {
+                // Binary maps are split straight from the mapped file
+                Walkability map = BinaryMapFormat.isBinary(from)
+                        ? BinaryMapFormat.open(from)
+                        : TextMapFormat.readGrid(from);
+                ChunkedWorld.write(to, map, chunkSize);
+            } else {
+                BinaryMapFormat.convert(from, to, encoding);
+            }
+            System.err.println(String.format("%s -> %s in %d ms", from, to,
+                    (System.nanoTime() - startTime) / 1000000));
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static int parseChunkSize(String value) {
+        try {
+            int chunkSize = Integer.parseInt(value);
+            if (chunkSize >= 1) return chunkSize;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.err.println("Chunk size must be a positive number.");
+        System.err.println(USAGE);
+        System.exit(2);
+        return 0;
+    }
+}
@@ -0,0 +1,73 @@
+package com.oosubhisara.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oosubhisara.algorithm.PathQuery;
+import com.oosubhisara.algorithm.WalkableGrid;
+
+// Start and target pairs to run against a map, read from a text file with
+// one query per line:
+//
+//     startRow startColumn targetRow targetColumn
+//
+// Blank lines and lines starting with '#' are skipped.
+public class Scenario {
+    private final List<PathQuery> queries;
+
+    private Scenario(List<PathQuery> queries) {
+        this.queries = queries;
+    }
+
+    public static Scenario load(Path path, WalkableGrid grid)
+            throws IOException {
+        List<PathQuery> queries = new ArrayList<PathQuery>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] fields = line.split("\\s+");
+                if (fields.length != 4) {
+                    throw new IOException(String.format(
+                            "%s:%d: expected 4 numbers, found %d.", 
+                            path, lineNumber, fields.length));
+                }
+
+                int[] numbers = new int[4];
+                for (int i = 0; i < 4; i++) {
+                    try {
+                        numbers[i] = Integer.parseInt(fields[i]);
+                    } catch (NumberFormatException e) {
+                        throw new IOException(String.format(
+                                "%s:%d: '%s' is not a number.", 
+                                path, lineNumber, fields[i]));
+                    }
+                }
+                if (!grid.contains(numbers[0], numbers[1]) ||
+                        !grid.contains(numbers[2], numbers[3])) {
+                    throw new IOException(String.format(
+                            "%s:%d: cell outside the %dx%d map.", path,
+                            lineNumber, grid.getNumRows(),
+                            grid.getNumColumns()));
+                }
+
+                queries.add(new PathQuery(
+                        grid.index(numbers[0], numbers[1]),
+                        grid.index(numbers[2], numbers[3])));
+            }
+        }
+        return new Scenario(queries);
+    }
+
+    public List<PathQuery> getQueries() {
+        return this.queries;
+    }
+}
@@ -0,0 +1,179 @@
+package com.oosubhisara.map;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.oosubhisara.algorithm.Walkability;
+import com.oosubhisara.algorithm.WalkableGrid;
+import com.oosubhisara.map.BinaryMapFormat.Encoding;
+
+// A binary map file mapped into memory. Tiles are read straight from the
+// mapping, so only the pages that are touched are ever loaded.
+public class BinaryMap implements Walkability {
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final Encoding encoding;
+    private final int numRows;
+    private final int numColumns;
+    private final int startRow, startColumn;
+    private final int targetRow, targetColumn;
+    // Layout of the BITS encoding, as in WalkableGrid
+    private final int wordsPerRow;
+
+    private BinaryMap(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.capacity() < BinaryMapFormat.HEADER_SIZE ||
+                buffer.getInt(0) != BinaryMapFormat.MAGIC) {
+            throw new IOException(path + " is not a binary map.");
+        }
+        if (buffer.getShort(4) != BinaryMapFormat.VERSION) {
+            throw new IOException(String.format(
+                    "%s has unsupported format version %d.", 
+                    path, buffer.getShort(4)));
+        }
+
+        int encoding = buffer.get(6);
+        if (encoding < 0 || encoding >= Encoding.values().length) {
+            throw new IOException(String.format(
+                    "%s has unknown encoding %d.", path, encoding));
+        }
+        this.encoding = Encoding.values()[encoding];
+        this.numRows = buffer.getInt(8);
+        this.numColumns = buffer.getInt(12);
+        this.startRow = buffer.getInt(16);
+        this.startColumn = buffer.getInt(20);
+        this.targetRow = buffer.getInt(24);
+        this.targetColumn = buffer.getInt(28);
+        if (this.numRows <= 0 || this.numColumns <= 0) {
+            throw new IOException(String.format(
+                    "%s has invalid size %dx%d.", 
+                    path, this.numRows, this.numColumns));
+        }
+
+        // In longs, as the sizes of a damaged header overflow ints
+        long wordsPerRow = ((long) this.numColumns + 2 + 63) >>> 6;
+        long dataSize = this.encoding == Encoding.BITS
+                ? ((long) this.numRows + 2) * wordsPerRow * Long.BYTES
+                : (long) this.numRows * this.numColumns;
+        if (buffer.capacity() < BinaryMapFormat.HEADER_SIZE + dataSize) {
+            throw new IOException(path + " is truncated.");
+        }
+        this.wordsPerRow = (int) wordsPerRow;
+    }
+
+    static BinaryMap open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to map.");
+            }
+            // The mapping stays valid after the channel is closed
+            return new BinaryMap(path, channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public Encoding getEncoding() {
+        return this.encoding;
+    }
+
+    @Override
+    public int getNumRows() {
+        return this.numRows;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return this.numColumns;
+    }
+
+    // Cells outside the map are walls
+    @Override
+    public boolean isWalkable(int row, int column) {
+        if (row < 0 || row >= this.numRows ||
+                column < 0 || column >= this.numColumns) {
+            return false;
+        }
+        return getTile(row, column) != TextMapFormat.TILE_WALL;
+    }
+
+    public char getTile(int row, int column) {
+        if (row < 0 || row >= this.numRows ||
+                column < 0 || column >= this.numColumns) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Cell %d, %d is outside the map.",
+                                  row, column));
+        }
+
+        if (this.encoding == Encoding.BYTES) {
+            return (char) (this.buffer.get(BinaryMapFormat.HEADER_SIZE +
+                    row * this.numColumns + column) & 0xFF);
+        }
+
+        if (row == this.startRow && column == this.startColumn) {
+            return TextMapFormat.TILE_START;
+        }
+        if (row == this.targetRow && column == this.targetColumn) {
+            return TextMapFormat.TILE_TARGET;
+        }
+        int bit = column + 1;
+        long word = this.buffer.getLong(BinaryMapFormat.HEADER_SIZE +
+                ((row + 1) * this.wordsPerRow + (bit >>> 6)) * Long.BYTES);
+        return (word & (1L << bit)) != 0
+                ? TextMapFormat.TILE_EMPTY : TextMapFormat.TILE_WALL;
+    }
+
+    // The walkability of the whole map, and the costs of BYTES maps. BITS
+    // maps copy in bulk. Tiles of BYTES maps are checked as they are read,
+    // as a damaged file may hold any byte.
+    public WalkableGrid toWalkableGrid() throws IOException {
+        if (this.encoding == Encoding.BITS) {
+            return new WalkableGrid(this.numRows, this.numColumns,
+                    this.buffer.duplicate()
+                               .position(BinaryMapFormat.HEADER_SIZE)
+                               .slice()
+                               .order(ByteOrder.LITTLE_ENDIAN)
+                               .asLongBuffer());
+        }
+
+        WalkableGrid grid = new WalkableGrid(this.numRows, this.numColumns);
+        for (int row = 0; row < this.numRows; row++) {
+            for (int column = 0; column < this.numColumns; column++) {
+                char tile = getTile(row, column);
+                if (!TextMapFormat.isTile(tile)) {
+                    throw new IOException(String.format(
+                            "%s has unknown tile \\x%02x in cell %d, %d.",
+                            this.path, (int) tile, row, column));
+                }
+                if (tile != TextMapFormat.TILE_WALL) {
+                    grid.setCost(row, column, TextMapFormat.getCost(tile));
+                    grid.setWalkable(row, column, true);
+                }
+            }
+        }
+        return grid;
+    }
+
+    public TileMap toTileMap() throws IOException {
+        TileMap map = new TileMap(this.numRows, this.numColumns, 
+                                  toWalkableGrid());
+        for (int row = 0; row < this.numRows; row++) {
+            char[] tiles = map.row(row);
+            for (int column = 0; column < this.numColumns; column++) {
+                tiles[column] = getTile(row, column);
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,126 @@
+package com.oosubhisara.map;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.oosubhisara.algorithm.WalkableGrid;
+
+// Compact binary maps, read and written through memory-mapped files so that
+// huge maps load without parsing and are paged in as they are used.
+//
+// All numbers are little-endian. A 32-byte header:
+//
+//     0  int    magic "PFMP"
+//     4  short  format version, 1
+//     6  byte   encoding: 0 for BITS, 1 for BYTES
+//     7  byte   reserved, 0
+//     8  int    rows
+//    12  int    columns
+//    16  int    start row, start column, target row, target column,
+//               each -1 when the map has none
+//
+// is followed by the tiles:
+// - BITS: walkability only, one bit per cell, in exactly the word layout of
+//   WalkableGrid (wall border and row padding included), so a grid loads
+//   with one bulk copy; terrain tiles become empty ones,
+// - BYTES: the tile character of every cell, row by row, terrain included.
+public class BinaryMapFormat {
+    public enum Encoding {
+        BITS,
+        BYTES
+    }
+
+    public static final String EXTENSION = ".bmap";
+
+    static final int MAGIC = 'P' | 'F' << 8 | 'M' << 16 | 'P' << 24;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private BinaryMapFormat() {
+    }
+
+    public static boolean isBinary(Path path) {
+        return path.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    public static BinaryMap open(Path path) throws IOException {
+        return BinaryMap.open(path);
+    }
+
+    public static void write(Path path, TileMap map, Encoding encoding)
+            throws IOException {
+        WalkableGrid grid = map.getWalkableGrid();
+        int start = map.findTile(TextMapFormat.TILE_START);
+        int target = map.findTile(TextMapFormat.TILE_TARGET);
+        write(path, map, grid, encoding, start, target);
+    }
+
+    // Writes the walkability of grid in BITS encoding, without a start or
+    // target
+    public static void write(Path path, WalkableGrid grid) throws IOException {
+        write(path, null, grid, Encoding.BITS, -1, -1);
+    }
+
+    // The tiles come from map, which is only needed for BYTES encoding
+    private static void write(Path path, TileMap map, WalkableGrid grid,
+                              Encoding encoding, int start, int target)
+            throws IOException {
+        int numRows = grid.getNumRows();
+        int numColumns = grid.getNumColumns();
+
+        long dataSize = encoding == Encoding.BITS
+                ? (long) grid.getNumWords() * Long.BYTES
+                : (long) numRows * numColumns;
+        if (HEADER_SIZE + dataSize > Integer.MAX_VALUE) {
+            throw new IOException(String.format(
+                    "A %dx%d map is too large for %s encoding.", 
+                    numRows, numColumns, encoding));
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+                    0, HEADER_SIZE + dataSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.put((byte) encoding.ordinal());
+            buffer.put((byte) 0);
+            buffer.putInt(numRows);
+            buffer.putInt(numColumns);
+            buffer.putInt(start < 0 ? -1 : grid.row(start));
+            buffer.putInt(start < 0 ? -1 : grid.column(start));
+            buffer.putInt(target < 0 ? -1 : grid.row(target));
+            buffer.putInt(target < 0 ? -1 : grid.column(target));
+
+            if (encoding == Encoding.BITS) {
+                grid.writeWords(buffer.slice()
+                                      .order(ByteOrder.LITTLE_ENDIAN)
+                                      .asLongBuffer());
+            } else {
+                for (int row = 0; row < numRows; row++) {
+                    char[] tiles = map.row(row);
+                    for (int column = 0; column < numColumns; column++) {
+                        buffer.put((byte) tiles[column]);
+                    }
+                }
+            }
+            buffer.force();
+        }
+    }
+
+    // Writes the other format: text maps become binary with the given
+    // encoding, binary maps become text
+    public static void convert(Path from, Path to, Encoding encoding)
+            throws IOException {
+        TileMap map = TileMap.load(from);
+        map.save(to, encoding);
+    }
+}
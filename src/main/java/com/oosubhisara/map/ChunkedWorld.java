@@ -0,0 +1,337 @@
+package com.oosubhisara.map;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.oosubhisara.algorithm.LongIntHashMap;
+import com.oosubhisara.algorithm.Walkability;
+import com.oosubhisara.algorithm.WalkableGrid;
+
+// A world too large to hold in memory, split into square chunks of cells
+// that are stored as separate binary maps in one directory:
+//
+//     world.properties         rows, columns and chunkSize of the world
+//     chunk_R_C.bmap           chunk row R, chunk column C, BITS encoding
+//
+// A chunk is read the first time a cell in it is asked about, typically
+// when a search frontier enters it, and the least recently used chunks are
+// dropped when the chunks held exceed the memory budget. Chunks without a
+// file are all walls. Search it with SparseAStar.
+public class ChunkedWorld implements Walkability {
+    public static final String PROPERTIES_FILE = "world.properties";
+
+    // Rough bytes of bookkeeping per chunk held, so that chunks without a
+    // file count against the budget too
+    private static final int CHUNK_OVERHEAD = 64;
+
+    private static class Chunk {
+        // Null when the chunk has no file
+        final WalkableGrid grid;
+        final long bytes;
+
+        Chunk(WalkableGrid grid) {
+            this.grid = grid;
+            long words = grid == null ? 0 : grid.getNumWords();
+            this.bytes = CHUNK_OVERHEAD + words * Long.BYTES;
+        }
+    }
+
+    private final Path directory;
+    private final int numRows;
+    private final int numColumns;
+    private final int chunkSize;
+    private final long memoryBudget;
+    // Chunks held, least recently used first
+    private final LinkedHashMap<Long, Chunk> chunks;
+    // The chunk asked about last, which nearly every lookup hits
+    private long lastKey = -1;
+    private Chunk lastChunk;
+
+    private long residentBytes;
+    private long loads;
+    private long evictions;
+    private long loadNanos;
+    private final LongIntHashMap chunkLoads = new LongIntHashMap();
+    private final LongIntHashMap chunkEvictions = new LongIntHashMap();
+
+    private ChunkedWorld(Path directory, int numRows, int numColumns,
+                         int chunkSize, long memoryBudget) {
+        this.directory = directory;
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.chunkSize = chunkSize;
+        this.memoryBudget = memoryBudget;
+        this.chunks = new LinkedHashMap<Long, Chunk>(16, 0.75f, true);
+    }
+
+    // Opens the world in directory, holding at most memoryBudget bytes of
+    // chunks at a time, but always at least the chunk in use
+    public static ChunkedWorld open(Path directory, long memoryBudget)
+            throws IOException {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException(
+                    "Memory budget must not be negative.");
+        }
+
+        Path path = directory.resolve(PROPERTIES_FILE);
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+
+        int numRows = readSize(properties, "rows", path);
+        int numColumns = readSize(properties, "columns", path);
+        int chunkSize = readSize(properties, "chunkSize", path);
+        return new ChunkedWorld(directory, numRows, numColumns, chunkSize,
+                                memoryBudget);
+    }
+
+    private static int readSize(Properties properties, String name, Path path)
+            throws IOException {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            throw new IOException(String.format("%s has no %s.", path, name));
+        }
+        try {
+            int size = Integer.parseInt(value.trim());
+            if (size > 0) return size;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IOException(String.format("%s has invalid %s %s.",
+                                            path, name, value));
+    }
+
+    // Splits the walkability of map into chunks of chunkSize by chunkSize
+    // cells in directory. Chunks that are all walls get no file. The map
+    // is read a cell at a time, so a mapped BinaryMap larger than memory
+    // can be split.
+    public static void write(Path directory, Walkability map, int chunkSize)
+            throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(
+                    "Chunk size must be at least 1.");
+        }
+
+        Files.createDirectories(directory);
+        int numRows = map.getNumRows();
+        int numColumns = map.getNumColumns();
+        int numChunkRows = (numRows + chunkSize - 1) / chunkSize;
+        int numChunkColumns = (numColumns + chunkSize - 1) / chunkSize;
+
+        for (int chunkRow = 0; chunkRow < numChunkRows; chunkRow++) {
+            for (int chunkColumn = 0; chunkColumn < numChunkColumns;
+                    chunkColumn++) {
+                int firstRow = chunkRow * chunkSize;
+                int firstColumn = chunkColumn * chunkSize;
+                WalkableGrid chunk = new WalkableGrid(
+                        Math.min(chunkSize, numRows - firstRow),
+                        Math.min(chunkSize, numColumns - firstColumn));
+
+                boolean empty = true;
+                for (int row = 0; row < chunk.getNumRows(); row++) {
+                    for (int column = 0; column < chunk.getNumColumns();
+                            column++) {
+                        if (map.isWalkable(firstRow + row,
+                                           firstColumn + column)) {
+                            chunk.setWalkable(row, column, true);
+                            empty = false;
+                        }
+                    }
+                }
+
+                Path path = chunkPath(directory, chunkRow, chunkColumn);
+                if (empty) {
+                    Files.deleteIfExists(path);
+                } else {
+                    BinaryMapFormat.write(path, chunk);
+                }
+            }
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("rows", Integer.toString(numRows));
+        properties.setProperty("columns", Integer.toString(numColumns));
+        properties.setProperty("chunkSize", Integer.toString(chunkSize));
+        try (Writer writer = Files.newBufferedWriter(
+                directory.resolve(PROPERTIES_FILE))) {
+            properties.store(writer, "Chunked world");
+        }
+    }
+
+    private static Path chunkPath(Path directory, int chunkRow,
+                                  int chunkColumn) {
+        return directory.resolve(String.format("chunk_%d_%d%s", chunkRow,
+                chunkColumn, BinaryMapFormat.EXTENSION));
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    @Override
+    public int getNumRows() {
+        return this.numRows;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return this.numColumns;
+    }
+
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    public long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    // Loads the chunk of the cell if it is not held. A chunk that cannot
+    // be read throws UncheckedIOException, as searches cannot handle
+    // IOException.
+    @Override
+    public synchronized boolean isWalkable(int row, int column) {
+        if (row < 0 || row >= this.numRows ||
+                column < 0 || column >= this.numColumns) {
+            return false;
+        }
+
+        int chunkRow = row / this.chunkSize;
+        int chunkColumn = column / this.chunkSize;
+        Chunk chunk = getChunk(chunkRow, chunkColumn);
+        return chunk.grid != null &&
+               chunk.grid.isWalkable(row - chunkRow * this.chunkSize,
+                                     column - chunkColumn * this.chunkSize);
+    }
+
+    public synchronized boolean isLoaded(int chunkRow, int chunkColumn) {
+        return this.chunks.containsKey(key(chunkRow, chunkColumn));
+    }
+
+    // Drops every chunk held
+    public synchronized void evictAll() {
+        Iterator<Map.Entry<Long, Chunk>> iterator =
+                this.chunks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            evict(iterator.next());
+            iterator.remove();
+        }
+        this.lastChunk = null;
+        this.lastKey = -1;
+    }
+
+    public synchronized int getResidentChunks() {
+        return this.chunks.size();
+    }
+
+    // Bytes of chunks held in memory
+    public synchronized long getResidentBytes() {
+        return this.residentBytes;
+    }
+
+    public synchronized long getLoads() {
+        return this.loads;
+    }
+
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    // Time spent reading chunks
+    public synchronized long getLoadNanos() {
+        return this.loadNanos;
+    }
+
+    // Times one chunk was read
+    public synchronized int getLoads(int chunkRow, int chunkColumn) {
+        return this.chunkLoads.get(key(chunkRow, chunkColumn), 0);
+    }
+
+    // Times one chunk was dropped
+    public synchronized int getEvictions(int chunkRow, int chunkColumn) {
+        return this.chunkEvictions.get(key(chunkRow, chunkColumn), 0);
+    }
+
+    private static long key(int chunkRow, int chunkColumn) {
+        return (long) chunkRow << 32 | chunkColumn;
+    }
+
+    private Chunk getChunk(int chunkRow, int chunkColumn) {
+        long key = key(chunkRow, chunkColumn);
+        if (key == this.lastKey) {
+            return this.lastChunk;
+        }
+
+        Chunk chunk = this.chunks.get(key);
+        if (chunk == null) {
+            chunk = load(chunkRow, chunkColumn);
+            this.chunks.put(key, chunk);
+            this.residentBytes += chunk.bytes;
+            evictOverBudget();
+        }
+        this.lastKey = key;
+        this.lastChunk = chunk;
+        return chunk;
+    }
+
+    private Chunk load(int chunkRow, int chunkColumn) {
+        long startTime = System.nanoTime();
+        Path path = chunkPath(this.directory, chunkRow, chunkColumn);
+        WalkableGrid grid = null;
+        try {
+            if (Files.exists(path)) {
+                grid = BinaryMapFormat.open(path).toWalkableGrid();
+                int numRows = Math.min(this.chunkSize,
+                        this.numRows - chunkRow * this.chunkSize);
+                int numColumns = Math.min(this.chunkSize,
+                        this.numColumns - chunkColumn * this.chunkSize);
+                if (grid.getNumRows() != numRows ||
+                        grid.getNumColumns() != numColumns) {
+                    throw new IOException(String.format(
+                            "%s is %dx%d, expected %dx%d.", path,
+                            grid.getNumRows(), grid.getNumColumns(),
+                            numRows, numColumns));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        this.loads++;
+        this.loadNanos += System.nanoTime() - startTime;
+        this.chunkLoads.increment(key(chunkRow, chunkColumn), 1);
+        return new Chunk(grid);
+    }
+
+    // Drops the least recently used chunks until the rest fit the budget,
+    // keeping the newest
+    private void evictOverBudget() {
+        Iterator<Map.Entry<Long, Chunk>> iterator =
+                this.chunks.entrySet().iterator();
+        while (this.residentBytes > this.memoryBudget &&
+                this.chunks.size() > 1) {
+            Map.Entry<Long, Chunk> entry = iterator.next();
+            evict(entry);
+            iterator.remove();
+        }
+    }
+
+    private void evict(Map.Entry<Long, Chunk> entry) {
+        this.residentBytes -= entry.getValue().bytes;
+        this.evictions++;
+        this.chunkEvictions.increment(entry.getKey(), 1);
+        if (entry.getKey() == this.lastKey) {
+            this.lastKey = -1;
+            this.lastChunk = null;
+        }
+    }
+}
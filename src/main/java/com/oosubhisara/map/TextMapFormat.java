@@ -0,0 +1,71 @@
+package com.oosubhisara.map;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.oosubhisara.algorithm.WalkableGrid;
+
+// Plain text maps: one line per row and one character per tile, as written
+// by the editor. Kept free of any UI so maps can be read and written
+// headless.
+//
+// Terrain tiles are walkable but cost more to enter than empty ground,
+// the start and the target, which cost 1. Roads cost the same as empty
+// ground and mark where paths are meant to run.
+public class TextMapFormat {
+    public static final char TILE_EMPTY = '.';
+    public static final char TILE_START = 'A';
+    public static final char TILE_TARGET = 'B';
+    public static final char TILE_WALL = 'W';
+    public static final char TILE_ROAD = 'R';
+    public static final char TILE_MUD = 'M';
+    public static final char TILE_WATER = '~';
+
+    public static final int ROAD_COST = 1;
+    public static final int MUD_COST = 3;
+    public static final int WATER_COST = 5;
+
+    private TextMapFormat() {
+    }
+
+    public static boolean isTile(char tile) {
+        return tile == TILE_EMPTY || tile == TILE_WALL ||
+               tile == TILE_START || tile == TILE_TARGET ||
+               tile == TILE_ROAD || tile == TILE_MUD || tile == TILE_WATER;
+    }
+
+    // Cost of entering a walkable tile, as in WalkableGrid.getCost
+    public static int getCost(char tile) {
+        switch (tile) {
+            case TILE_ROAD: return ROAD_COST;
+            case TILE_MUD: return MUD_COST;
+            case TILE_WATER: return WATER_COST;
+            default: return 1;
+        }
+    }
+
+    // The tile that stands for a walkable cell of the given cost
+    public static char tileForCost(int cost) {
+        switch (cost) {
+            case MUD_COST: return TILE_MUD;
+            case WATER_COST: return TILE_WATER;
+            default: return TILE_EMPTY;
+        }
+    }
+
+    // Reads the walkability of a text map of any size, without keeping
+    // its tiles. Errors give the file and line.
+    public static WalkableGrid readGrid(Path path) throws IOException {
+        return TextMapReader.readGrid(path);
+    }
+
+    public static void write(Writer writer, List<char[]> rows)
+            throws IOException {
+        for (char[] row : rows) {
+            writer.write(row);
+            writer.write('\n');
+        }
+    }
+}
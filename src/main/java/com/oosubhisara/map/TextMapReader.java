@@ -0,0 +1,273 @@
+package com.oosubhisara.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.oosubhisara.algorithm.WalkableGrid;
+
+// Streams a text map through a large buffer straight into the word layout
+// of WalkableGrid. The width is taken from the first line and the height
+// from the number of lines, lines may end in LF or CRLF, and blank lines
+// may only follow the last row. Tiles are single bytes, so no characters
+// are decoded and no String is made per row.
+class TextMapReader {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path path;
+    private final boolean keepTiles;
+
+    private int numRows;
+    private int numColumns = -1;
+    private int wordsPerRow;
+    private long[] words;
+    private List<char[]> rows;
+    // Row, column and cost of every tile that costs more than 1
+    private int[] costs = new int[0];
+    private int numCosts;
+
+    // Tiles of the first row, held until its length gives the width
+    private char[] firstRow = new char[1024];
+    private char[] tiles;
+    private int column;
+    private long line = 1;
+    private long firstBlankLine;
+    private boolean carriageReturn;
+
+    private TextMapReader(Path path, boolean keepTiles) {
+        this.path = path;
+        this.keepTiles = keepTiles;
+        this.rows = new ArrayList<char[]>();
+    }
+
+    // Reads the walkability of the map only
+    static WalkableGrid readGrid(Path path) throws IOException {
+        TextMapReader reader = new TextMapReader(path, false);
+        reader.read();
+        return reader.toGrid();
+    }
+
+    // Reads the tiles of the map and their walkability
+    static TileMap readTileMap(Path path) throws IOException {
+        TextMapReader reader = new TextMapReader(path, true);
+        reader.read();
+        return new TileMap(reader.rows, reader.toGrid());
+    }
+
+    private void read() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+
+        try (FileChannel channel = FileChannel.open(this.path,
+                StandardOpenOption.READ)) {
+            int count;
+            while ((count = channel.read(buffer)) >= 0) {
+                int i = 0;
+                while (i < count) {
+                    i = parseTiles(bytes, i, count);
+                    if (i < count) {
+                        parse(bytes[i++]);
+                    }
+                }
+                buffer.clear();
+            }
+        }
+
+        // The last line may have no line separator
+        if (this.carriageReturn || this.column > 0 || this.numColumns < 0) {
+            endRow();
+        }
+        if (this.numRows == 0) {
+            throw error("the map has no rows");
+        }
+    }
+
+    // Fast path for the bulk of a map: adds the empty and wall tiles from
+    // bytes[from] on, up to the end of the row, and returns the index of
+    // the first byte left for parse
+    private int parseTiles(byte[] bytes, int from, int to) throws IOException {
+        if (this.numColumns < 0 || this.carriageReturn ||
+                this.firstBlankLine != 0 || this.column == this.numColumns) {
+            return from;
+        }
+        if (this.column == 0) {
+            if (bytes[from] != TextMapFormat.TILE_EMPTY &&
+                    bytes[from] != TextMapFormat.TILE_WALL) {
+                return from;
+            }
+            startRow();
+        }
+
+        long[] words = this.words;
+        char[] tiles = this.tiles;
+        int base = (this.numRows + 1) * this.wordsPerRow;
+        int column = this.column;
+        int i = from;
+        int end = Math.min(to, from + this.numColumns - column);
+        while (i < end) {
+            byte tile = bytes[i];
+            if (tile == TextMapFormat.TILE_EMPTY) {
+                int bit = column + 1;
+                words[base + (bit >>> 6)] |= 1L << bit;
+            } else if (tile != TextMapFormat.TILE_WALL) {
+                break;
+            }
+            if (tiles != null) {
+                tiles[column] = (char) tile;
+            }
+            column++;
+            i++;
+        }
+        this.column = column;
+        return i;
+    }
+
+    private void parse(byte tile) throws IOException {
+        if (this.carriageReturn && tile != '\n') {
+            throw error("carriage return inside a row");
+        }
+
+        if (tile == '\n') {
+            endRow();
+            this.carriageReturn = false;
+            this.line++;
+        } else if (tile == '\r') {
+            this.carriageReturn = true;
+        } else {
+            addTile(tile);
+        }
+    }
+
+    private void addTile(byte tile) throws IOException {
+        if (!TextMapFormat.isTile((char) tile)) {
+            throw error(String.format("unknown tile '%s' in column %d",
+                    (tile >= ' ' && tile < 127)
+                            ? Character.toString((char) tile)
+                            : String.format("\\x%02x", tile & 0xFF),
+                    this.column + 1));
+        }
+        if (this.firstBlankLine != 0) {
+            this.line = this.firstBlankLine;
+            throw error("blank line inside the map");
+        }
+
+        if (this.numColumns < 0) {
+            if (this.column == this.firstRow.length) {
+                this.firstRow = Arrays.copyOf(this.firstRow,
+                                              this.column * 2);
+            }
+            this.firstRow[this.column++] = (char) tile;
+            return;
+        }
+
+        if (this.column == this.numColumns) {
+            throw error(String.format("row is longer than the first row's " +
+                                      "%d tiles", this.numColumns));
+        }
+        if (this.column == 0) {
+            startRow();
+        }
+
+        int bit = this.column + 1;
+        if (tile != TextMapFormat.TILE_WALL) {
+            this.words[(this.numRows + 1) * this.wordsPerRow + (bit >>> 6)] |=
+                    1L << bit;
+            int cost = TextMapFormat.getCost((char) tile);
+            if (cost != 1) {
+                addCost(cost);
+            }
+        }
+        if (this.keepTiles) {
+            this.tiles[this.column] = (char) tile;
+        }
+        this.column++;
+    }
+
+    private void addCost(int cost) {
+        if (this.numCosts + 3 > this.costs.length) {
+            this.costs = Arrays.copyOf(this.costs, 
+                                       Math.max(48, this.costs.length * 2));
+        }
+        this.costs[this.numCosts++] = this.numRows;
+        this.costs[this.numCosts++] = this.column;
+        this.costs[this.numCosts++] = cost;
+    }
+
+    private void startRow() throws IOException {
+        // Room for this row and the bottom border row
+        int neededRows = this.numRows + 3;
+        if ((long) neededRows * this.wordsPerRow * 64 > Integer.MAX_VALUE) {
+            throw error("the map has too many cells");
+        }
+        if (neededRows * this.wordsPerRow > this.words.length) {
+            this.words = Arrays.copyOf(this.words,
+                    Math.max(neededRows * this.wordsPerRow,
+                             (int) Math.min(Integer.MAX_VALUE / 64,
+                                            this.words.length * 2L)));
+        }
+        if (this.keepTiles) {
+            this.tiles = new char[this.numColumns];
+            this.rows.add(this.tiles);
+        }
+    }
+
+    private void endRow() throws IOException {
+        if (this.numColumns < 0) {
+            if (this.column == 0) {
+                // Blank before any row; an error if a row follows
+                if (this.firstBlankLine == 0) this.firstBlankLine = this.line;
+                return;
+            }
+            startMap();
+            return;
+        }
+
+        if (this.column == 0) {
+            if (this.firstBlankLine == 0) this.firstBlankLine = this.line;
+            return;
+        }
+        if (this.column < this.numColumns) {
+            throw error(String.format("row has %d tiles, the first row %d",
+                                      this.column, this.numColumns));
+        }
+        this.numRows++;
+        this.column = 0;
+    }
+
+    // Sets the width from the first row, then adds its tiles
+    private void startMap() throws IOException {
+        this.numColumns = this.column;
+        this.wordsPerRow = (this.numColumns + 2 + 63) >>> 6;
+        this.words = new long[64 * this.wordsPerRow];
+
+        char[] firstRow = this.firstRow;
+        int length = this.column;
+        this.firstRow = null;
+        this.column = 0;
+        for (int i = 0; i < length; i++) {
+            addTile((byte) firstRow[i]);
+        }
+        endRow();
+    }
+
+    private WalkableGrid toGrid() {
+        WalkableGrid grid = new WalkableGrid(this.numRows, this.numColumns,
+                LongBuffer.wrap(this.words, 0,
+                                (this.numRows + 2) * this.wordsPerRow));
+        for (int i = 0; i < this.numCosts; i += 3) {
+            grid.setCost(this.costs[i], this.costs[i + 1], this.costs[i + 2]);
+        }
+        return grid;
+    }
+
+    private IOException error(String message) {
+        return new IOException(String.format("%s:%d: %s.", this.path,
+                                             this.line, message));
+    }
+}
@@ -0,0 +1,235 @@
+package com.oosubhisara.map;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oosubhisara.algorithm.WalkableGrid;
+
+// The tiles of a map and the WalkableGrid the path finders search, kept in
+// step with each other. Has no UI dependencies, so maps can be loaded and
+// searched without a display; Grid draws one of these.
+//
+// Tiles change under the lock of the WalkableGrid, in the same step as its
+// cells, so a thread holding that lock finds the two in agreement, and the
+// grid's listeners see the new tiles. Saving and searching the tiles take
+// the lock too.
+public class TileMap {
+    private final int numRows;
+    private final int numColumns;
+    private final List<char[]> cells;
+    private final WalkableGrid walkableGrid;
+    private long version;
+
+    // A map of empty tiles
+    public TileMap(int numRows, int numColumns) {
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.cells = new ArrayList<char[]>();
+        for (int row = 0; row < numRows; row++) {
+            char[] newRow = new char[numColumns];
+            for (int column = 0; column < numColumns; column++) {
+                newRow[column] = TextMapFormat.TILE_EMPTY;
+            }
+            this.cells.add(newRow);
+        }
+
+        this.walkableGrid = new WalkableGrid(numRows, numColumns);
+        updateWalkableGrid();
+    }
+
+    // A map with the walkability and costs of grid, which it takes over:
+    // walkable cells are empty or terrain tiles, the rest walls
+    TileMap(int numRows, int numColumns, WalkableGrid grid) {
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.cells = new ArrayList<char[]>();
+        for (int row = 0; row < numRows; row++) {
+            char[] newRow = new char[numColumns];
+            for (int column = 0; column < numColumns; column++) {
+                newRow[column] = grid.isWalkable(row, column)
+                        ? TextMapFormat.tileForCost(grid.getCost(row, column))
+                        : TextMapFormat.TILE_WALL;
+            }
+            this.cells.add(newRow);
+        }
+        this.walkableGrid = grid;
+    }
+
+    // Tiles read by a map format, and their walkability
+    TileMap(List<char[]> rows, WalkableGrid grid) {
+        this.numRows = rows.size();
+        this.numColumns = grid.getNumColumns();
+        this.cells = rows;
+        this.walkableGrid = grid;
+    }
+
+    // Reads a binary map, or a text map whose size is taken from the file
+    public static TileMap load(Path path) throws IOException {
+        if (BinaryMapFormat.isBinary(path)) {
+            return BinaryMapFormat.open(path).toTileMap();
+        }
+        return loadText(path);
+    }
+
+    private static TileMap loadText(Path path) throws IOException {
+        return TextMapReader.readTileMap(path);
+    }
+
+    public int getNumRows() {
+        return this.numRows;
+    }
+
+    public int getNumColumns() {
+        return this.numColumns;
+    }
+
+    public boolean contains(int row, int column) {
+        return this.walkableGrid.contains(row, column);
+    }
+
+    public char getAt(int row, int column) {
+        return this.cells.get(row)[column];
+    }
+
+    public void setAt(int row, int column, char tile) {
+        Edit edit = edit();
+        edit.setAt(row, column, tile);
+        edit.commit();
+    }
+
+    // Starts a batch of tile changes to apply together
+    public Edit edit() {
+        return new Edit();
+    }
+
+    // Tile changes that commit() applies in one go, as one WalkableGrid
+    // edit: the version goes up once, and the grid's listeners hear of
+    // them all in a single call
+    public class Edit {
+        private final List<int[]> positions = new ArrayList<int[]>();
+        private final StringBuilder tiles = new StringBuilder();
+
+        private Edit() {
+        }
+
+        public TileMap getMap() {
+            return TileMap.this;
+        }
+
+        // Number of changes made since the last commit
+        public int size() {
+            return this.positions.size();
+        }
+
+        public void setAt(int row, int column, char tile) {
+            if (!contains(row, column)) {
+                throw new IndexOutOfBoundsException(String.format(
+                        "Cell (%d, %d) is outside the map.", row, column));
+            }
+            this.positions.add(new int[] { row, column });
+            this.tiles.append(tile);
+        }
+
+        // Applies the changes in the order they were made and starts an
+        // empty batch
+        public void commit() {
+            if (this.positions.isEmpty()) return;
+
+            WalkableGrid grid = TileMap.this.walkableGrid;
+            synchronized (grid) {
+                WalkableGrid.Edit gridEdit = grid.edit();
+                for (int i = 0; i < this.positions.size(); i++) {
+                    int row = this.positions.get(i)[0];
+                    int column = this.positions.get(i)[1];
+                    char tile = this.tiles.charAt(i);
+                    TileMap.this.cells.get(row)[column] = tile;
+                    updateWalkableGrid(gridEdit, row, column, tile);
+                }
+                gridEdit.commit();
+                TileMap.this.version++;
+            }
+
+            this.positions.clear();
+            this.tiles.setLength(0);
+        }
+    }
+
+    // Number of tile edits so far; never decreases
+    public long getVersion() {
+        synchronized (this.walkableGrid) {
+            return this.version;
+        }
+    }
+
+    public WalkableGrid getWalkableGrid() {
+        return this.walkableGrid;
+    }
+
+    // WalkableGrid index of the last cell holding tile, or -1 if none does
+    public int findTile(char tile) {
+        int found = -1;
+        synchronized (this.walkableGrid) {
+            for (int row = 0; row < this.numRows; row++) {
+                char[] rowCells = this.cells.get(row);
+                for (int column = 0; column < this.numColumns; column++) {
+                    if (rowCells[column] == tile) {
+                        found = this.walkableGrid.index(row, column);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public void write(Writer writer) throws IOException {
+        synchronized (this.walkableGrid) {
+            TextMapFormat.write(writer, this.cells);
+        }
+    }
+
+    // Writes a binary map with the given encoding if the file name has the
+    // binary extension, or a text map otherwise
+    public void save(Path path, BinaryMapFormat.Encoding encoding)
+            throws IOException {
+        if (BinaryMapFormat.isBinary(path)) {
+            synchronized (this.walkableGrid) {
+                BinaryMapFormat.write(path, this, encoding);
+            }
+        } else {
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                write(writer);
+            }
+        }
+    }
+
+    // The tiles of one row, for the map formats to fill in place
+    char[] row(int row) {
+        return this.cells.get(row);
+    }
+
+    // Only called while the grid is new, so nothing listens to it yet
+    private void updateWalkableGrid() {
+        for (int row = 0; row < this.numRows; row++) {
+            char[] rowCells = this.cells.get(row);
+            for (int column = 0; column < this.numColumns; column++) {
+                if (rowCells[column] != TextMapFormat.TILE_WALL) {
+                    this.walkableGrid.setWalkable(row, column, true);
+                }
+            }
+        }
+    }
+
+    private static void updateWalkableGrid(WalkableGrid.Edit edit, int row,
+                                           int column, char tile) {
+        if (tile == TextMapFormat.TILE_WALL) {
+            edit.setWalkable(row, column, false);
+        } else {
+            edit.setCost(row, column, TextMapFormat.getCost(tile));
+            edit.setWalkable(row, column, true);
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.oosubhisara.walker;
 
 import java.awt.Point;
 
+import com.oosubhisara.algorithm.Algorithm;
+import com.oosubhisara.algorithm.CornerCutting;
+import com.oosubhisara.algorithm.Neighborhood;
+
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -26,6 +30,12 @@ public class Controller {
     @FXML
     private RadioButton buttonWall;
     @FXML
+    private RadioButton buttonRoad;
+    @FXML
+    private RadioButton buttonMud;
+    @FXML
+    private RadioButton buttonWater;
+    @FXML
     private ToggleButton buttonAutoMove;
     @FXML
     private Button buttonMove;
@@ -37,10 +47,10 @@ public class Controller {
     private Grid grid;
     private int tileIndex = 1;
     private PathFindingApp app;
+    private boolean updatePending;
     
     public Controller() {
         super();
-        System.out.println("Controller:Construtor");
         Global.controller = this; 
         this.app = PathFindingApp.getInstance();
         this.app.setController(this);
@@ -48,13 +58,18 @@ public class Controller {
     
     @FXML
     protected void initialize() {
-        System.out.println("Controller:Initialize");
         buttonA.getStyleClass().remove("radio-button");
         buttonA.getStyleClass().add("toggle-button");
         buttonB.getStyleClass().remove("radio-button");
         buttonB.getStyleClass().add("toggle-button");
         buttonWall.getStyleClass().remove("radio-button");
         buttonWall.getStyleClass().add("toggle-button");
+        buttonRoad.getStyleClass().remove("radio-button");
+        buttonRoad.getStyleClass().add("toggle-button");
+        buttonMud.getStyleClass().remove("radio-button");
+        buttonMud.getStyleClass().add("toggle-button");
+        buttonWater.getStyleClass().remove("radio-button");
+        buttonWater.getStyleClass().add("toggle-button");
     }
     
     public GraphicsContext getGraphicsContext() {
@@ -65,9 +80,14 @@ public class Controller {
         this.grid = grid;
     }
 
+    // Shown until the mouse next moves over the canvas
+    public void showStatus(String text) {
+        this.statusBar.setText(text);
+    }
+
     @FXML
     private void onNew(ActionEvent e) {
-        System.out.println("New map");
+        showStatus("New map is not supported yet");
     }
 
     @FXML
@@ -98,10 +118,41 @@ public class Controller {
     private void onDelay(ActionEvent e) {
         RadioMenuItem menuItem = (RadioMenuItem) e.getSource();
         int delay = Integer.parseInt(menuItem.getText().replace(" ms", ""));
-        System.out.println("Delay: " + delay);
         this.app.setMoveDelay(delay);
     }
     
+    @FXML
+    private void onAlgorithm(ActionEvent e) {
+        RadioMenuItem menuItem = (RadioMenuItem) e.getSource();
+        this.app.setAlgorithm(Algorithm.fromDisplayName(menuItem.getText()));
+
+        if (buttonAutoMove.isSelected()) {
+            findPath();
+        }
+    }
+    
+    @FXML
+    private void onNeighborhood(ActionEvent e) {
+        RadioMenuItem menuItem = (RadioMenuItem) e.getSource();
+        this.app.setNeighborhood(
+                Neighborhood.valueOf((String) menuItem.getUserData()));
+
+        if (buttonAutoMove.isSelected()) {
+            findPath();
+        }
+    }
+
+    @FXML
+    private void onCornerCutting(ActionEvent e) {
+        RadioMenuItem menuItem = (RadioMenuItem) e.getSource();
+        this.app.setCornerCutting(
+                CornerCutting.valueOf((String) menuItem.getUserData()));
+
+        if (buttonAutoMove.isSelected()) {
+            findPath();
+        }
+    }
+    
     @FXML
     private void onAutoMoveButton(ActionEvent e) {
         if (buttonAutoMove.isSelected()) {
@@ -118,13 +169,16 @@ public class Controller {
     private void onTileButton(ActionEvent e) {
         RadioButton button = (RadioButton) e.getSource();
         this.tileIndex = this.tileGroup.getToggles().indexOf(button) + 1;
-        System.out.println("Tile Index: " + this.tileIndex);
     }
     
     @FXML
     private void onCanvasMouseMoved(MouseEvent e) {
         Grid.Position position = this.grid.fromPoint(
                 new Point((int) e.getX(), (int) e.getY()));
+        if (!this.grid.contains(position)) {
+            statusBar.setText("");
+            return;
+        }
         statusBar.setText(String.format("Position: %d, %d    Tile: %s", 
                                         position.row, position.column, 
                                         this.grid.getTileNameAt(position)));
@@ -144,8 +198,6 @@ public class Controller {
     
     
     private void drawOnCanvas(Point point, int mouseButton) {
-        System.out.println("Tile: " + this.tileIndex);
-        System.out.println("MouseButton: " + mouseButton);
         Grid.Position position = this.grid.fromPoint(point);
         
         if (position.column < 0 || 
@@ -155,9 +207,6 @@ public class Controller {
             return;
         }
 
-        System.out.println("Click: " + position.row + ", " + 
-                           position.column); 
-        
         int tile = this.tileIndex;
         if (mouseButton == 3) tile = 0;
             
@@ -170,23 +219,34 @@ public class Controller {
                 this.grid.setTarget(position); break;
             case 3:
                 this.grid.setWall(position); break;
+            case 4:
+                this.grid.setTerrain(position, Grid.TILE_ROAD); break;
+            case 5:
+                this.grid.setTerrain(position, Grid.TILE_MUD); break;
+            case 6:
+                this.grid.setTerrain(position, Grid.TILE_WATER); break;
             default: 
                 throw new ArrayIndexOutOfBoundsException(
                         "Tile index out of bound.");
         }
        
-        this.grid.clearPath();
-        this.grid.refresh();
-
-        if (buttonAutoMove.isSelected()) {
-            findPath();
-        }
+        // A drag sends many events per frame; redraw and search once for
+        // all of them, after the events already queued
+        if (this.updatePending) return;
+        this.updatePending = true;
+        Platform.runLater(() -> {
+            this.updatePending = false;
+            this.grid.clearPath();
+            this.grid.refresh();
+
+            if (buttonAutoMove.isSelected()) {
+                findPath();
+            }
+        });
     }
     
     private void findPath() {
-        if (this.app.findPath()) {
-            this.app.walk();
-        }
+        this.app.findPath();
     }
 
    
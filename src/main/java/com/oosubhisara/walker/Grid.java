@@ -1,15 +1,15 @@
 package com.oosubhisara.walker;
 
 import java.awt.Point;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.oosubhisara.algorithm.Bfs;
+import com.oosubhisara.algorithm.WalkableGrid;
+import com.oosubhisara.map.BinaryMapFormat;
+import com.oosubhisara.map.TextMapFormat;
+import com.oosubhisara.map.TileMap;
 
 import javafx.geometry.VPos;
 import javafx.scene.canvas.GraphicsContext;
@@ -31,28 +31,39 @@ public class Grid {
         }
     }
 
-    public static final char TILE_EMPTY = '.';
-    public static final char TILE_START = 'A';
-    public static final char TILE_TARGET = 'B';
-    public static final char TILE_WALL = 'W';
+    public static final char TILE_EMPTY = TextMapFormat.TILE_EMPTY;
+    public static final char TILE_START = TextMapFormat.TILE_START;
+    public static final char TILE_TARGET = TextMapFormat.TILE_TARGET;
+    public static final char TILE_WALL = TextMapFormat.TILE_WALL;
+    public static final char TILE_ROAD = TextMapFormat.TILE_ROAD;
+    public static final char TILE_MUD = TextMapFormat.TILE_MUD;
+    public static final char TILE_WATER = TextMapFormat.TILE_WATER;
     
     private static final Color BG_COLOR = Color.BLACK;
     private static final Color FLOOR_COLOR = Color.GRAY;
     private static final Color START_COLOR = Color.BLUE;
     private static final Color TARGET_COLOR = Color.RED;
     private static final Color WALL_COLOR = Color.LIGHTGRAY;
+    private static final Color ROAD_COLOR = Color.TAN;
+    private static final Color MUD_COLOR = Color.SADDLEBROWN;
+    private static final Color WATER_COLOR = Color.STEELBLUE;
     private static final Color TILE_TEXT_COLOR = Color.WHITE;
 
     private GraphicsContext g;
     private int numRows;
     private int numColumns;
     private int cellSize;
-    private List<char[]> cells; 
+    // Extent of the grid in pixels
+    private int width;
+    private int height;
+    private TileMap map;
     private Grid.Position start;
     private Grid.Position target;
+    // Tiles under the start and the target, put back when they move
+    private char startGround = TILE_EMPTY;
+    private char targetGround = TILE_EMPTY;
     private List<Grid.Position> dirtyCells;
     private List<Grid.Position> pathCells;
-    private Bfs.Node[][] nodes;
     private boolean needRedraw;
     
     public Grid(int numRows, int numColumns, int cellSize, GraphicsContext g) {
@@ -61,12 +72,13 @@ public class Grid {
         this.numRows = numRows;
         this.numColumns = numColumns;
         this.cellSize = cellSize;
+        this.width = numColumns * cellSize;
+        this.height = numRows * cellSize;
         this.start = null;
         this.target = null;
         this.dirtyCells = new ArrayList<Grid.Position>();
         this.pathCells = new ArrayList<Grid.Position>();
         this.needRedraw = true;
-        this.cells = new ArrayList<char[]>();
         this.ResetCells();
     }
     
@@ -85,13 +97,17 @@ public class Grid {
     public void setStart(Grid.Position position) {
         char oldTile = getAt(position);
 
-        if (oldTile == TILE_EMPTY) {
-            // Clear previous start tile
+        if (isGround(oldTile)) {
+            // Clear previous start tile in the same edit, so the map
+            // never has two starts or none
+            TileMap.Edit edit = this.map.edit();
             if (this.start != null) {
-                setAt(this.start, Grid.TILE_EMPTY);
+                setAt(edit, this.start, this.startGround);
             }
 
-            setAt(position, Grid.TILE_START);
+            this.startGround = oldTile;
+            setAt(edit, position, Grid.TILE_START);
+            edit.commit();
             this.start = new Grid.Position(position.row, position.column);
         }
     }
@@ -103,13 +119,17 @@ public class Grid {
     public void setTarget(Grid.Position position) {
         char oldTile = getAt(position);
 
-        if (oldTile == TILE_EMPTY) {
-            // Clear previous target tile
+        if (isGround(oldTile)) {
+            // Clear previous target tile in the same edit, so the map
+            // never has two targets or none
+            TileMap.Edit edit = this.map.edit();
             if (this.target != null) {
-                setAt(this.target, Grid.TILE_EMPTY);
+                setAt(edit, this.target, this.targetGround);
             }
 
-            setAt(position, Grid.TILE_TARGET);
+            this.targetGround = oldTile;
+            setAt(edit, position, Grid.TILE_TARGET);
+            edit.commit();
             this.target = new Grid.Position(position.row, position.column);
         }
     }
@@ -121,6 +141,19 @@ public class Grid {
         }
     }
 
+    // Road, mud or water
+    public void setTerrain(Grid.Position position, char tile) {
+        char oldTile = getAt(position);
+        if (oldTile != Grid.TILE_START && oldTile != Grid.TILE_TARGET) {
+            setAt(position, tile);
+        }
+    }
+
+    // Walkable tiles the start or the target can be placed on
+    private static boolean isGround(char tile) {
+        return tile != TILE_WALL && tile != TILE_START && tile != TILE_TARGET;
+    }
+
     public void setEmpty(Grid.Position position) {
         char oldTile = getAt(position);
         if (oldTile != Grid.TILE_START && oldTile != Grid.TILE_TARGET) {
@@ -128,8 +161,12 @@ public class Grid {
         }
     }
 
+    public boolean contains(Grid.Position position) {
+        return this.map.contains(position.row, position.column);
+    }
+
     public char getAt(Grid.Position position) {
-        return this.cells.get(position.row)[position.column];
+        return this.map.getAt(position.row, position.column);
     }
     
     public String getTileNameAt(Grid.Position position) {
@@ -141,34 +178,53 @@ public class Grid {
            case 'W': tileName = "Wall"; break;
            case 'A': tileName = "A"; break;
            case 'B': tileName = "B"; break;
+           case 'R': tileName = "Road"; break;
+           case 'M': tileName = "Mud"; break;
+           case '~': tileName = "Water"; break;
            default: tileName = "Undefined";
        }
        return tileName;
     }
 
+    // Number of tile edits so far; never decreases
+    public long getVersion() {
+        return this.map.getVersion();
+    }
+
     private void setAt(Grid.Position position, char tile) {
-        this.cells.get(position.row)[position.column] = tile;
+        this.map.setAt(position.row, position.column, tile);
         this.dirtyCells.add(position);
     }
 
-    public void ResetCells() {
-        this.cells.clear();
-        
-        for (int row=0; row < this.numRows; row++) {
-            char[] newRow = new char[this.numColumns];
-            for (int col=0; col < this.numColumns; col++) {
-                newRow[col] = Grid.TILE_EMPTY;
-            }
-            this.cells.add(newRow);
-        }
+    private void setAt(TileMap.Edit edit, Grid.Position position, char tile) {
+        edit.setAt(position.row, position.column, tile);
+        this.dirtyCells.add(position);
+    }
 
-        this.nodes = new Bfs.Node[this.numRows][this.numColumns];
+    public void ResetCells() {
+        this.map = new TileMap(this.numRows, this.numColumns);
+    }
+    
+    public TileMap getMap() {
+        return this.map;
+    }
+    
+    public WalkableGrid getWalkableGrid() {
+        return this.map.getWalkableGrid();
     }
     
     public int getCellSize() {
         return this.cellSize;
     }
     
+    private Grid.Position toPosition(int index) {
+        if (index < 0) return null;
+
+        WalkableGrid walkableGrid = this.map.getWalkableGrid();
+        return new Grid.Position(walkableGrid.row(index), 
+                                 walkableGrid.column(index));
+    }
+    
     public Point toPoint(Grid.Position position) {
         return new Point(position.column * cellSize + cellSize / 2, 
                 position.row * cellSize + cellSize / 2); 
@@ -202,8 +258,10 @@ public class Grid {
     
     public void draw() {
         this.g.setFill(BG_COLOR);
+        // Also clear what a larger map drew before
         this.g.fillRect(0, 0, 
-                this.numColumns * this.cellSize, this.numRows * this.cellSize);
+                Math.max(this.width, this.numColumns * this.cellSize), 
+                Math.max(this.height, this.numRows * this.cellSize));
 
         for (int row = 0; row < this.getNumRows(); row++) {
             for (int col = 0; col < this.getNumColumns(); col++) {
@@ -241,48 +299,39 @@ public class Grid {
                     TILE_TEXT_COLOR, TARGET_COLOR);
         } else if (tile == TILE_WALL) {
             drawTile(point, WALL_COLOR);
+        } else if (tile == TILE_ROAD) {
+            drawTile(point, ROAD_COLOR);
+        } else if (tile == TILE_MUD) {
+            drawTile(point, MUD_COLOR);
+        } else if (tile == TILE_WATER) {
+            drawTile(point, WATER_COLOR);
         }
     }
     
-    public void load(String fileName) {
-        try (BufferedReader reader = new BufferedReader (
-                new FileReader(fileName))) {
-            for (int row = 0; row < this.getNumRows(); row++) {
-                reader.read(this.cells.get(row));
-                reader.read();
-
-                // Find start tile
-                String line = new String(this.cells.get(row));
-                int startColumn = line.indexOf(TILE_START);
-                if (startColumn != -1) 
-                    this.start = new Grid.Position(row, startColumn);
-                
-                // Find target tile
-                int targetColumn = line.indexOf(TILE_TARGET);
-                if (targetColumn != -1) 
-                    this.target = new Grid.Position(row, targetColumn);
-            }
-        } catch (IOException e) {
-            
-        }
-        
-        if (this.start != null)
-            System.out.println(this.start.toString());
-        if (this.target != null)
-            System.out.println(this.target.toString());
-        
+    // Replaces the map with the one in the file, taking its size from the
+    // file. Cells shrink to keep the grid within its original extent.
+    public void load(String fileName) throws IOException {
+        TileMap loaded = TileMap.load(Paths.get(fileName));
+
+        this.map = loaded;
+        this.numRows = loaded.getNumRows();
+        this.numColumns = loaded.getNumColumns();
+        this.cellSize = Math.max(1, Math.min(this.width / this.numColumns,
+                                             this.height / this.numRows));
+        this.dirtyCells.clear();
+        this.pathCells.clear();
+
+        this.start = toPosition(this.map.findTile(TILE_START));
+        this.target = toPosition(this.map.findTile(TILE_TARGET));
+        this.startGround = TILE_EMPTY;
+        this.targetGround = TILE_EMPTY;
+
         draw();
     }
 
-    public void save(String fileName) {
-        try (BufferedWriter writer = new BufferedWriter(
-                new FileWriter(fileName))) {
-            for (int row = 0; row < this.getNumRows(); row++) {
-                writer.write(new String(this.cells.get(row)) + "\n");
-            }
-        } catch (IOException e) {
-            
-        }
+    // Maps named with the binary extension are saved in the binary format
+    public void save(String fileName) throws IOException {
+        this.map.save(Paths.get(fileName), BinaryMapFormat.Encoding.BYTES);
     }
     
     private void drawTileWithSymbol(char tile, 
@@ -304,17 +353,4 @@ public class Grid {
         this.g.fillRect(point.x - TILE_SIZE / 2, point.y - TILE_SIZE / 2,
                 TILE_SIZE, TILE_SIZE);
     }
-    
-
-    public Bfs.Node[][] getPathNodes() {
-        for (int row = 0; row < this.numRows; row++) {
-            for (int column = 0; column < this.numColumns; column++) {
-                char tile = getAt(new Grid.Position(row, column));
-                this.nodes[row][column] = new Bfs.Node(
-                        row, column, tile != TILE_WALL);
-            }
-        }
-
-        return this.nodes; 
-    }
 }
@@ -1,16 +1,36 @@
 package com.oosubhisara.walker;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import com.oosubhisara.algorithm.Bfs;
+import com.oosubhisara.algorithm.Algorithm;
+import com.oosubhisara.algorithm.ConnectedComponents;
+import com.oosubhisara.algorithm.CornerCutting;
+import com.oosubhisara.algorithm.GridListener;
+import com.oosubhisara.algorithm.Landmarks;
+import com.oosubhisara.algorithm.MeasuredPathFinder;
+import com.oosubhisara.algorithm.Neighborhood;
+import com.oosubhisara.algorithm.PathCache;
+import com.oosubhisara.algorithm.PathFinder;
+import com.oosubhisara.algorithm.SearchMetrics;
+import com.oosubhisara.algorithm.SearchWorkspace;
+import com.oosubhisara.algorithm.SnapshotPublisher;
+import com.oosubhisara.algorithm.WalkableGrid;
 
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
@@ -23,8 +43,35 @@ public class PathFindingApp extends Application {
     private Controller controller;
     private Grid grid;
     private String mapFileName;
-    private Bfs.Node pathToTarget;
-    private Bfs.Node currentNode;
+    private Algorithm algorithm;
+    private Neighborhood neighborhood;
+    private CornerCutting cornerCutting;
+    private SearchMetrics metrics;
+    // The walkable grid as last loaded from or saved to mapFileName
+    private WalkableGrid savedGrid;
+    private long savedVersion;
+    // Snapshots of the walkable grid being edited, for the search thread
+    private SnapshotPublisher snapshots;
+    private ExecutorService searchExecutor;
+    private Future<?> search;
+    private AtomicBoolean searchCancelFlag;
+
+    // Owned by the search thread: a copy of the walkable grid kept in step
+    // with the snapshots searched, and what is derived from it
+    private WalkableGrid searchGrid;
+    private WalkableGrid searchSource;
+    private Algorithm searchAlgorithm;
+    private Neighborhood searchNeighborhood;
+    private CornerCutting searchCornerCutting;
+    private PathCache pathCache;
+    // The path cache, measured into metrics
+    private PathFinder pathFinder;
+    private ConnectedComponents components;
+    private Landmarks landmarks;
+    private SearchWorkspace workspace;
+
+    private int[] pathToTarget;
+    private int pathStep;
     private Timeline timeline;
     private int moveDelay;
     
@@ -35,24 +82,35 @@ public class PathFindingApp extends Application {
     @Override
     public void init() throws Exception {
         super.init();
-        System.out.println("App:Init");
         appInstance = this;
+        this.algorithm = Algorithm.BFS;
+        this.neighborhood = Neighborhood.FOUR;
+        this.cornerCutting = CornerCutting.FORBID;
+        this.workspace = new SearchWorkspace();
+        // One search at a time, away from the FX application thread
+        this.searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "path-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Every search of the app, for JConsole or Mission Control
+        this.metrics = new SearchMetrics("walker");
+        this.metrics.register();
 
         this.fileChooser = new FileChooser();
         this.fileChooser.setInitialDirectory(new File("."));
-        this.fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Map file (*.map)", "*.map")
+        this.fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Map file (*.map)", "*.map"),
+                new FileChooser.ExtensionFilter("Binary map file (*.bmap)", 
+                                                "*.bmap")
         );
 
     }
 
     @Override
     public void start(Stage stage) throws Exception {
-        System.out.println("App:Start");
         this.stage = stage;
 
-        System.out.println("App: load FXML");
-        System.out.println(getClass().getResource("MainScene.fxml"));
         Parent root = FXMLLoader.load(getClass().getResource("MainScene.fxml"));
         // Controller initialized
 
@@ -64,12 +122,18 @@ public class PathFindingApp extends Application {
         this.moveDelay = 100;
 
         stage.setTitle("Path Finding");
-        System.out.println("App: stage.setScene");
         stage.setScene(new Scene(root, 660, 800));
         stage.setMinHeight(800);
-        System.out.println("App: after stage.setScene");
         stage.show();
     } 
+
+    @Override
+    public void stop() throws Exception {
+        cancelSearch();
+        this.searchExecutor.shutdown();
+        this.metrics.unregister();
+        super.stop();
+    }
     
     public void setController(Controller controller) {
         this.controller = controller;
@@ -82,6 +146,39 @@ public class PathFindingApp extends Application {
     public void setMoveDelay(int delay) {
         this.moveDelay = delay;
     }
+    
+    // The search thread replaces its path finder on the next search
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+    
+    public void setNeighborhood(Neighborhood neighborhood) {
+        this.neighborhood = neighborhood;
+    }
+
+    public void setCornerCutting(CornerCutting cornerCutting) {
+        this.cornerCutting = cornerCutting;
+    }
+    
+    private void releasePathFinder() {
+        if (this.pathCache == null) return;
+
+        WalkableGrid walkableGrid = this.pathCache.getGrid();
+        walkableGrid.removeListener(this.pathCache);
+        PathFinder pathFinder = this.pathCache.getPathFinder();
+        if (pathFinder instanceof GridListener) {
+            walkableGrid.removeListener((GridListener) pathFinder);
+        }
+        this.pathCache = null;
+        this.pathFinder = null;
+    }
+    
+    private void releaseComponents() {
+        if (this.components != null) {
+            this.components.getGrid().removeListener(this.components);
+        }
+        this.components = null;
+    }
    
     public void openMap() {
         File file = this.fileChooser.showOpenDialog(stage);
@@ -94,19 +191,31 @@ public class PathFindingApp extends Application {
             fileName = file.getAbsolutePath();
         }
 
-        this.grid.load(fileName);
+        try {
+            this.grid.load(fileName);
+        } catch (IOException e) {
+            showError("Cannot open map", e.getMessage());
+            return;
+        }
+
+        // The path being walked, or searched for, belongs to the old map
+        cancelSearch();
+        if (this.timeline != null) {
+            this.timeline.stop();
+        }
+        this.pathToTarget = new int[0];
         this.mapFileName = fileName;
+        markSaved();
         this.stage.setTitle(String.format("Path Finding - %s", 
                 Paths.get(mapFileName).getFileName()));
-        System.out.println(String.format("%s Loaded.", fileName));
+        this.controller.showStatus(String.format("%s loaded", fileName));
     }
     
     public void saveMap() {
         if (this.mapFileName.isEmpty()) {
             saveMapAs();
         } else {
-            this.grid.save(this.mapFileName);
-            System.out.println(String.format("%s Saved.", mapFileName));
+            save(this.mapFileName);
         }
     }
 
@@ -120,43 +229,245 @@ public class PathFindingApp extends Application {
             this.mapFileName = file.getAbsolutePath();
         }
 
-        this.grid.save(mapFileName);
-        this.stage.setTitle(String.format("Path Finding - %s", 
-                Paths.get(mapFileName).getFileName()));
-        System.out.println(String.format("%s Saved.", mapFileName));
+        if (save(this.mapFileName)) {
+            this.stage.setTitle(String.format("Path Finding - %s", 
+                    Paths.get(mapFileName).getFileName()));
+        }
+    }
+
+    private boolean save(String fileName) {
+        try {
+            this.grid.save(fileName);
+        } catch (IOException e) {
+            showError("Cannot save map", e.getMessage());
+            return false;
+        }
+        markSaved();
+        this.controller.showStatus(String.format("%s saved", fileName));
+        return true;
+    }
+
+    private void markSaved() {
+        this.savedGrid = this.grid.getWalkableGrid();
+        this.savedVersion = this.savedGrid.getVersion();
+    }
+
+    private void showError(String header, String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.initOwner(this.stage);
+        alert.setTitle("Path Finding");
+        alert.setHeaderText(header);
+        alert.setContentText(message);
+        alert.showAndWait();
     }
     
+    // Landmarks for the ALT algorithm, read from or saved next to the map
+    // file while the map is as saved there, or null for that file name
+    private Landmarks landmarksFor(SearchTask task) {
+        if (task.algorithm != Algorithm.ALT) return null;
+
+        WalkableGrid walkableGrid = this.searchGrid;
+        if (this.landmarks == null || 
+                !this.landmarks.isCurrent(walkableGrid) ||
+                this.landmarks.getNeighborhood() != task.neighborhood ||
+                this.landmarks.getCornerCutting() != task.cornerCutting) {
+            if (task.savedFileName != null) {
+                this.landmarks = Landmarks.loadOrCompute(
+                        Paths.get(task.savedFileName), walkableGrid,
+                        Landmarks.DEFAULT_COUNT, task.neighborhood,
+                        task.cornerCutting, e -> task.warning =
+                                "Cannot save landmarks: " + e.getMessage());
+            } else {
+                this.landmarks = Landmarks.compute(walkableGrid,
+                        Landmarks.DEFAULT_COUNT, task.neighborhood,
+                        task.cornerCutting);
+            }
+        }
+        return this.landmarks;
+    }
+
     private boolean checkMove(Grid.Position start, Grid.Position target) {
         if (start == null) {
-            System.out.println("Cannot move! Starting position is missing");
+            this.controller.showStatus(
+                    "Cannot move! Starting position is missing");
             return false;
         } else if (target == null) {
-            System.out.println("Cannot move! Target is missing");
+            this.controller.showStatus("Cannot move! Target is missing");
             return false;
         } 
         return true;
     }
     
-    public boolean findPath() {
+    // Starts a search for the path from the start to the target, which is
+    // walked once found. Searches run on the search thread against a
+    // snapshot of the map, and a newer search cancels the one before it.
+    public void findPath() {
         Grid.Position start = this.grid.getStart();
         Grid.Position target = this.grid.getTarget();
-        if (!checkMove(start, target)) return false;
+        if (!checkMove(start, target)) return;
 
-        Bfs.Node[][] nodes = grid.getPathNodes();
+        cancelSearch();
+        WalkableGrid walkableGrid = this.grid.getWalkableGrid();
+        if (this.snapshots == null || 
+                this.snapshots.getGrid() != walkableGrid) {
+            if (this.snapshots != null) {
+                this.snapshots.getGrid().removeListener(this.snapshots);
+            }
+            this.snapshots = new SnapshotPublisher(walkableGrid);
+        }
 
-        Bfs pathFinder = new Bfs(nodes);
-        Bfs.Node startNode = nodes[start.row][start.column];
-        Bfs.Node targetNode = nodes[target.row][target.column];
-        this.pathToTarget = pathFinder.findPath(startNode, targetNode, false);
-        
-        return true;
+        SearchTask task = new SearchTask(walkableGrid, this.snapshots.get(),
+                                         start, target);
+        this.searchCancelFlag = task.cancelFlag;
+        this.search = this.searchExecutor.submit(task);
     }
-    
+
+    private void cancelSearch() {
+        if (this.search == null) return;
+
+        this.searchCancelFlag.set(true);
+        this.search.cancel(false);
+        this.search = null;
+        this.searchCancelFlag = null;
+    }
+
+    // One search, with everything it needs taken on the FX application
+    // thread when it was started
+    private class SearchTask implements Runnable {
+        final WalkableGrid source;
+        final WalkableGrid snapshot;
+        final Algorithm algorithm;
+        final Neighborhood neighborhood;
+        final CornerCutting cornerCutting;
+        // The map file, if the snapshot is the map as saved there
+        final String savedFileName;
+        final int start;
+        final int target;
+        final AtomicBoolean cancelFlag;
+        // Results, handed back to the FX application thread
+        int[] path;
+        String status;
+        String warning;
+
+        SearchTask(WalkableGrid source, WalkableGrid snapshot,
+                   Grid.Position start, Grid.Position target) {
+            this.source = source;
+            this.snapshot = snapshot;
+            this.algorithm = PathFindingApp.this.algorithm;
+            // The moves the algorithm searches, not just those selected,
+            // so the components agree with it
+            this.neighborhood = this.algorithm.getNeighborhood(
+                    PathFindingApp.this.neighborhood);
+            this.cornerCutting = this.algorithm.getCornerCutting(
+                    PathFindingApp.this.cornerCutting);
+            this.savedFileName = source == PathFindingApp.this.savedGrid && 
+                    snapshot.getVersion() == PathFindingApp.this.savedVersion 
+                    ? PathFindingApp.this.mapFileName : null;
+            this.start = snapshot.index(start.row, start.column);
+            this.target = snapshot.index(target.row, target.column);
+            this.cancelFlag = new AtomicBoolean();
+        }
+
+        @Override
+        public void run() {
+            try {
+                search(this);
+            } catch (RuntimeException e) {
+                this.path = new int[0];
+                this.status = "Cannot find path: " + e.getMessage();
+            }
+            if (this.status != null && this.warning != null) {
+                this.status += "    " + this.warning;
+            }
+            if (this.status != null) {
+                Platform.runLater(this::finish);
+            }
+        }
+
+        // Back on the FX application thread, unless a newer search or map
+        // has taken over since
+        private void finish() {
+            if (this.cancelFlag.get()) return;
+
+            PathFindingApp.this.pathToTarget = this.path;
+            PathFindingApp.this.controller.showStatus(this.status);
+            walk();
+        }
+    }
+
+    // Runs on the search thread. Leaves the task without a status if it
+    // was cancelled.
+    private void search(SearchTask task) {
+        // Nothing derived from another map is any use
+        if (this.searchSource != task.source) {
+            releasePathFinder();
+            releaseComponents();
+            this.landmarks = null;
+            this.searchGrid = new WalkableGrid(task.snapshot.getNumRows(),
+                                               task.snapshot.getNumColumns());
+            this.searchSource = task.source;
+        }
+        if (task.neighborhood != this.searchNeighborhood ||
+                task.cornerCutting != this.searchCornerCutting) {
+            releasePathFinder();
+            releaseComponents();
+        } else if (task.algorithm != this.searchAlgorithm) {
+            releasePathFinder();
+        }
+        this.searchAlgorithm = task.algorithm;
+        this.searchNeighborhood = task.neighborhood;
+        this.searchCornerCutting = task.cornerCutting;
+
+        // Every edit since the last search reaches the path finders as a
+        // single change, however many there were. Path finders with
+        // precomputed data keep it up to date themselves, so are only
+        // replaced for a new map, new moves or a new algorithm.
+        WalkableGrid walkableGrid = this.searchGrid;
+        walkableGrid.copyFrom(task.snapshot);
+        if (this.pathCache == null) {
+            this.pathCache = new PathCache(task.algorithm.create(
+                    walkableGrid, task.neighborhood, task.cornerCutting,
+                    landmarksFor(task)));
+            this.pathFinder = new MeasuredPathFinder(this.pathCache,
+                                                     this.metrics);
+        }
+        if (this.components == null) {
+            this.components = new ConnectedComponents(walkableGrid,
+                    task.neighborhood, task.cornerCutting);
+        }
+
+        // Walled-off targets need no search at all
+        if (!this.components.isConnected(task.start, task.target)) {
+            task.path = new int[0];
+            task.status = "Target is unreachable";
+            return;
+        }
+
+        // Keep the path up to, but not including, the target
+        this.workspace.setCancelFlag(task.cancelFlag);
+        if (this.pathFinder.findPath(task.start, task.target, 
+                                     this.workspace)) {
+            task.path = Arrays.copyOf(this.workspace.getPath(), 
+                    this.workspace.getPathLength() - 1);
+        } else if (this.workspace.isCancelled()) {
+            return;
+        } else {
+            // The search found no way there after all
+            task.path = new int[0];
+            task.status = "Target is unreachable";
+            return;
+        }
+        task.status = String.format(
+                "Length of path: %d    Expanded: %d    Peak frontier: %d",
+                task.path.length, this.workspace.getExpanded(),
+                this.workspace.getPeakFrontier());
+    }
+
     public void walk() {
         if (this.timeline != null) {
             this.timeline.stop();
         }
-        this.currentNode = this.pathToTarget;
+        this.pathStep = 1;
         this.timeline = new Timeline(new KeyFrame(
                 Duration.millis(this.moveDelay), e -> drawPath()));
         this.timeline.setCycleCount(Timeline.INDEFINITE);
@@ -164,22 +475,22 @@ public class PathFindingApp extends Application {
     }
     
     private void drawPath() {
-        if (this.currentNode != null) {
-            Grid.Position position = new Grid.Position(
-                    this.currentNode.row, this.currentNode.column);
-            this.grid.setStart(position);
+        if (this.pathStep < this.pathToTarget.length) {
+            this.grid.setStart(toPosition(this.pathToTarget[this.pathStep]));
             this.grid.refresh();
+            this.grid.drawPath(toPosition(
+                    this.pathToTarget[this.pathStep - 1]));
 
-            if (this.currentNode.previous != null) {
-                this.grid.drawPath(new Grid.Position(
-                       this.currentNode.previous.row, 
-                       this.currentNode.previous.column));
-            }
-
-            this.currentNode = this.currentNode.next;
+            this.pathStep++;
         } else {
             this.timeline.stop();
         }
     }
     
+    private Grid.Position toPosition(int index) {
+        WalkableGrid walkableGrid = this.grid.getWalkableGrid();
+        return new Grid.Position(walkableGrid.row(index), 
+                                 walkableGrid.column(index));
+    }
+    
 }
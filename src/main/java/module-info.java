@@ -1,7 +1,13 @@
 module PathFinding {
     requires java.desktop;
+    requires java.management;
+    requires jdk.management;
+    requires jdk.jfr;
     requires javafx.fxml;
     requires javafx.controls;
     
+    // SearchMetricsMXBean and SearchEvent are read reflectively by JMX and
+    // Flight Recorder
+    exports com.oosubhisara.algorithm;
     opens com.oosubhisara.walker;
 }
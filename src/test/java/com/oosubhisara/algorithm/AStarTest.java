@@ -0,0 +1,17 @@
+package com.oosubhisara.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+public class AStarTest {
+    @Test
+    void matchesReference() {
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            for (CornerCutting cornerCutting : CornerCutting.values()) {
+                Reference.checkPathFinder(3, true, neighborhood,
+                        cornerCutting,
+                        grid -> new AStar(grid, neighborhood, cornerCutting,
+                                Reference.heuristicFor(neighborhood), null));
+            }
+        }
+    }
+}
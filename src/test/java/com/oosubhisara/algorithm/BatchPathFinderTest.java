@@ -0,0 +1,100 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchPathFinderTest {
+    private static final int NUM_BATCHES = 50;
+
+    @Test
+    void batchesOnAnUnchangedGridLeaveNoListeners() {
+        WalkableGrid grid = Grids.random(new Random(1), 48, 48, 0.25);
+        List<PathQuery> queries = Grids.queries(new Random(2), grid, 100);
+
+        for (Algorithm algorithm : Algorithm.values()) {
+            try (BatchPathFinder finder = new BatchPathFinder(algorithm, 2)) {
+                for (int i = 0; i < NUM_BATCHES; i++) {
+                    finder.findPaths(grid, queries);
+                }
+            }
+            WalkableGrid snapshot = grid.snapshot();
+            assertEquals(0, grid.getNumListeners(), algorithm.name());
+            assertEquals(0, snapshot.getNumListeners(), algorithm.name());
+            assertSame(snapshot, grid.snapshot());
+        }
+    }
+
+    @Test
+    void snapshotsRefuseListeners() {
+        WalkableGrid grid = Grids.random(new Random(3), 8, 8, 0.25);
+        WalkableGrid snapshot = grid.snapshot();
+
+        assertThrows(IllegalStateException.class,
+                     () -> snapshot.addListener((g, index) -> { }));
+        new PathCache(new AStar(snapshot));
+        new ConnectedComponents(snapshot, Neighborhood.FOUR,
+                                CornerCutting.FORBID);
+        assertEquals(0, snapshot.getNumListeners());
+    }
+
+    @Test
+    void reusedPathFindersMatchSingleSearches() {
+        WalkableGrid grid = Grids.random(new Random(4), 40, 40, 0.3);
+        List<PathQuery> queries = Grids.queries(new Random(5), grid, 300);
+        SearchWorkspace workspace = new SearchWorkspace();
+
+        for (Algorithm algorithm : Algorithm.values()) {
+            // The moves a BatchPathFinder defaults to
+            PathFinder single = algorithm.create(grid.snapshot(),
+                    Neighborhood.FOUR, CornerCutting.FORBID, null);
+            List<PathResult> expected = new ArrayList<PathResult>();
+            for (PathQuery query : queries) {
+                expected.add(single.search(query.start, query.target,
+                                           workspace));
+            }
+
+            try (BatchPathFinder finder = new BatchPathFinder(algorithm, 4)) {
+                for (int batch = 0; batch < 3; batch++) {
+                    List<PathResult> results = finder.findPaths(grid, queries);
+                    for (int i = 0; i < queries.size(); i++) {
+                        String message = algorithm + " query " + i;
+                        assertEquals(expected.get(i).isFound(),
+                                     results.get(i).isFound(), message);
+                        assertEquals(expected.get(i).getCost(),
+                                     results.get(i).getCost(), message);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void editsReachTheNextBatch() {
+        WalkableGrid grid = new WalkableGrid(3, 10);
+        for (int column = 0; column < 10; column++) {
+            grid.setWalkable(1, column, true);
+        }
+        List<PathQuery> queries = new ArrayList<PathQuery>();
+        queries.add(new PathQuery(grid.index(1, 0), grid.index(1, 9)));
+
+        for (Algorithm algorithm : Algorithm.values()) {
+            grid.setWalkable(1, 5, true);
+            try (BatchPathFinder finder = new BatchPathFinder(algorithm, 2)) {
+                assertEquals(9 * PathFinder.STRAIGHT_COST,
+                             finder.findPaths(grid, queries).get(0).getCost(),
+                             algorithm.name());
+                grid.setWalkable(1, 5, false);
+                assertFalse(finder.findPaths(grid, queries).get(0).isFound(),
+                            algorithm.name());
+            }
+        }
+    }
+}
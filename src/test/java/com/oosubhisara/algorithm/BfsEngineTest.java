@@ -0,0 +1,56 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class BfsEngineTest {
+    @Test
+    void matchesReference() {
+        Reference.checkPathFinder(1, false, Neighborhood.FOUR,
+                CornerCutting.FORBID, grid -> new BfsEngine(grid));
+    }
+
+    @Test
+    void bidirectionalMatchesReference() {
+        Reference.checkPathFinder(2, false, Neighborhood.FOUR,
+                CornerCutting.FORBID, grid -> {
+                    BfsEngine engine = new BfsEngine(grid);
+                    return new PathFinder() {
+                        @Override
+                        public WalkableGrid getGrid() {
+                            return grid;
+                        }
+
+                        @Override
+                        public boolean findPath(int start, int target,
+                                                SearchWorkspace workspace) {
+                            return engine.findPath(start, target,
+                                    SearchMode.BIDIRECTIONAL, workspace);
+                        }
+                    };
+                });
+    }
+
+    // The frontiers meet at once for neighbours, and not at all for a
+    // walled-off target
+    @Test
+    void bidirectionalHandlesNeighboursAndWalls() {
+        WalkableGrid grid = Grids.random(new Random(0), 3, 3, 0);
+        BfsEngine engine = new BfsEngine(grid);
+        SearchWorkspace workspace = new SearchWorkspace();
+        assertTrue(engine.findPath(grid.index(0, 0), grid.index(0, 1),
+                                   SearchMode.BIDIRECTIONAL, workspace));
+        assertEquals(2, workspace.getPathLength());
+
+        grid.setWalkable(1, 1, false);
+        grid.setWalkable(0, 1, false);
+        grid.setWalkable(1, 0, false);
+        assertFalse(engine.findPath(grid.index(0, 0), grid.index(2, 2),
+                                    SearchMode.BIDIRECTIONAL, workspace));
+    }
+}
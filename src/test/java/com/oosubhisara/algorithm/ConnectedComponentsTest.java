@@ -0,0 +1,87 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ConnectedComponentsTest {
+    // After every random edit, cells are connected exactly when the
+    // reference finds a path between them
+    @Test
+    void regionsFollowEdits() {
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            for (CornerCutting cornerCutting : CornerCutting.values()) {
+                Random random = new Random(71);
+                WalkableGrid grid = Grids.random(random, 24, 24, 0.35);
+                ConnectedComponents components = new ConnectedComponents(
+                        grid, neighborhood, cornerCutting);
+
+                for (int round = 0; round < 60; round++) {
+                    Edits.apply(random, grid, 5);
+                    int target = Grids.randomCell(random, grid);
+                    int[] distances = Reference.distancesTo(grid, target,
+                            neighborhood, cornerCutting);
+                    for (int i = 0; i < 40; i++) {
+                        int cell = Grids.randomCell(random, grid);
+                        if (cell == target) continue;
+                        assertEquals(
+                                distances[cell] != Reference.UNREACHABLE,
+                                components.isConnected(cell, target),
+                                neighborhood + " " + cornerCutting +
+                                " round " + round);
+                    }
+                }
+            }
+        }
+    }
+
+    // Components over the moves an algorithm reports it searches join
+    // exactly the cells it finds paths between, whatever moves were asked
+    @Test
+    void componentsAgreeWithEveryAlgorithm() {
+        Random random = new Random(72);
+        WalkableGrid grid = Grids.random(random, 24, 24, 0.35);
+        SearchWorkspace workspace = new SearchWorkspace();
+        for (Algorithm algorithm : Algorithm.values()) {
+            for (Neighborhood neighborhood : Neighborhood.values()) {
+                CornerCutting cornerCutting = CornerCutting.ALLOW;
+                PathFinder pathFinder = algorithm.create(grid, neighborhood,
+                        cornerCutting, null);
+                ConnectedComponents components = new ConnectedComponents(
+                        grid, algorithm.getNeighborhood(neighborhood),
+                        algorithm.getCornerCutting(cornerCutting));
+                for (PathQuery query : Grids.queries(random, grid, 40)) {
+                    assertEquals(
+                            components.isConnected(query.start, query.target),
+                            pathFinder.findPath(query.start, query.target,
+                                                workspace),
+                            algorithm + " " + neighborhood);
+                }
+            }
+        }
+    }
+
+    @Test
+    void wallSplitsRegionAndOpeningJoinsIt() {
+        WalkableGrid grid = Grids.random(new Random(0), 5, 9, 0);
+        for (int row = 0; row < 5; row++) {
+            if (row != 2) grid.setWalkable(row, 4, false);
+        }
+        ConnectedComponents components = new ConnectedComponents(grid);
+        int left = grid.index(0, 0);
+        int right = grid.index(4, 8);
+        assertEquals(true, components.isConnected(left, right));
+
+        grid.setWalkable(2, 4, false);
+        assertEquals(false, components.isConnected(left, right));
+        assertEquals(-1, components.getComponent(grid.index(2, 4)));
+
+        WalkableGrid.Edit edit = grid.edit();
+        edit.setWalkable(0, 4, true);
+        edit.setWalkable(1, 4, false);
+        edit.commit();
+        assertEquals(true, components.isConnected(left, right));
+    }
+}
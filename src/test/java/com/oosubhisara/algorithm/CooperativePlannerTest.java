@@ -0,0 +1,89 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class CooperativePlannerTest {
+    private static final int MAX_TICKS = 2000;
+
+    // A U opening away from the target, deeper than the window
+    private static WalkableGrid uTrap() {
+        WalkableGrid grid = Grids.random(new Random(0), 60, 60, 0);
+        for (int row = 10; row <= 50; row++) {
+            grid.setWalkable(row, 40, false);
+        }
+        for (int column = 10; column <= 40; column++) {
+            grid.setWalkable(10, column, false);
+            grid.setWalkable(50, column, false);
+        }
+        return grid;
+    }
+
+    @Test
+    void agentWalksOutOfTrapDeeperThanWindow() {
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            WalkableGrid grid = uTrap();
+            CooperativePlanner planner = new CooperativePlanner(
+                    grid, neighborhood, CornerCutting.FORBID,
+                    CooperativePlanner.DEFAULT_WINDOW);
+            int agent = planner.addAgent(grid.index(30, 38),
+                                         grid.index(30, 55));
+
+            int ticks = 0;
+            while (!planner.isAtTarget(agent) && ticks < MAX_TICKS) {
+                planner.tick();
+                ticks++;
+            }
+            assertTrue(planner.isAtTarget(agent), neighborhood.name());
+        }
+    }
+
+    @Test
+    void trapClosedAfterPlanningIsWalkedAround() {
+        WalkableGrid grid = uTrap();
+        grid.setWalkable(10, 40, true);
+        grid.setWalkable(50, 40, true);
+        CooperativePlanner planner = new CooperativePlanner(grid);
+        int agent = planner.addAgent(grid.index(30, 38), grid.index(30, 55));
+        planner.tick();
+
+        WalkableGrid.Edit edit = grid.edit();
+        edit.setWalkable(10, 40, false);
+        edit.setWalkable(50, 40, false);
+        edit.commit();
+        int ticks = 0;
+        while (!planner.isAtTarget(agent) && ticks < MAX_TICKS) {
+            planner.tick();
+            ticks++;
+        }
+        assertTrue(planner.isAtTarget(agent));
+    }
+
+    @Test
+    void agentsNeverShareCells() {
+        Random random = new Random(21);
+        WalkableGrid grid = Grids.random(random, 30, 30, 0.2);
+        CooperativePlanner planner = new CooperativePlanner(grid);
+        for (int i = 0; i < 20; i++) {
+            int start = Grids.randomCell(random, grid);
+            int target = Grids.randomCell(random, grid);
+            if (grid.isWalkable(start) && planner.getAgentAt(start) ==
+                    CooperativePlanner.NONE) {
+                planner.addAgent(start, target);
+            }
+        }
+
+        for (int tick = 0; tick < 200; tick++) {
+            planner.tick();
+            for (int agent = 0; agent < planner.getNumAgents(); agent++) {
+                int cell = planner.getPosition(agent);
+                assertTrue(grid.isWalkable(cell));
+                assertEquals(agent, planner.getAgentAt(cell));
+            }
+        }
+    }
+}
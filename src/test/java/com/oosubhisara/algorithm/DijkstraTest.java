@@ -0,0 +1,17 @@
+package com.oosubhisara.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+public class DijkstraTest {
+    @Test
+    void matchesReference() {
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            for (CornerCutting cornerCutting : CornerCutting.values()) {
+                Reference.checkPathFinder(5, true, neighborhood,
+                        cornerCutting,
+                        grid -> new Dijkstra(grid, neighborhood,
+                                             cornerCutting));
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.oosubhisara.algorithm;
+
+import java.util.Random;
+
+// Random edits for the tests of the listeners that repair themselves
+final class Edits {
+    private Edits() {
+    }
+
+    // Walls, opens or re-costs a few random cells, one at a time or as one
+    // batch
+    static void apply(Random random, WalkableGrid grid, int maxCost) {
+        int count = 1 + random.nextInt(4);
+        WalkableGrid.Edit edit = random.nextBoolean() ? grid.edit() : null;
+        for (int i = 0; i < count; i++) {
+            int row = random.nextInt(grid.getNumRows());
+            int column = random.nextInt(grid.getNumColumns());
+            int kind = random.nextInt(3);
+            if (edit == null) {
+                if (kind == 2) {
+                    grid.setCost(row, column, 1 + random.nextInt(maxCost));
+                } else {
+                    grid.setWalkable(row, column, kind == 1);
+                }
+            } else if (kind == 2) {
+                edit.setCost(row, column, 1 + random.nextInt(maxCost));
+            } else {
+                edit.setWalkable(row, column, kind == 1);
+            }
+        }
+        if (edit != null) {
+            edit.commit();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FlowFieldPathFinderTest {
+    @Test
+    void reusedFieldsMatchFreshOnesAcrossTargetsAndEdits() {
+        Random random = new Random(11);
+        WalkableGrid grid = Grids.random(random, 40, 40, 0.25);
+        FlowFieldPathFinder finder = new FlowFieldPathFinder(
+                grid, Neighborhood.EIGHT, CornerCutting.FORBID, 2);
+        SearchWorkspace workspace = new SearchWorkspace();
+        int[] targets = new int[5];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = Grids.randomCell(random, grid);
+        }
+
+        for (int round = 0; round < 40; round++) {
+            int start = Grids.randomCell(random, grid);
+            int target = targets[random.nextInt(targets.length)];
+            finder.findPath(start, target, workspace);
+            FlowField fresh = new FlowField(grid, target, Neighborhood.EIGHT,
+                                            CornerCutting.FORBID, false);
+            for (int cell = 0; cell < grid.size(); cell++) {
+                assertEquals(fresh.getDistance(cell),
+                             finder.getField().getDistance(cell));
+            }
+
+            grid.setWalkable(random.nextInt(40), random.nextInt(40),
+                             random.nextBoolean());
+        }
+        assertEquals(2, finder.getNumFields());
+    }
+
+    @Test
+    void revisitedTargetReusesItsField() {
+        WalkableGrid grid = Grids.random(new Random(12), 10, 10, 0);
+        FlowFieldPathFinder finder = new FlowFieldPathFinder(
+                grid, Neighborhood.FOUR, CornerCutting.FORBID, 2);
+        SearchWorkspace workspace = new SearchWorkspace();
+
+        finder.findPath(grid.index(0, 0), grid.index(9, 9), workspace);
+        FlowField first = finder.getField();
+        finder.findPath(grid.index(0, 0), grid.index(5, 5), workspace);
+        finder.findPath(grid.index(1, 0), grid.index(9, 9), workspace);
+
+        assertSame(first, finder.getField());
+        assertEquals(0, workspace.getExpanded());
+    }
+}
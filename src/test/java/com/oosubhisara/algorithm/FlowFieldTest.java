@@ -0,0 +1,64 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FlowFieldTest {
+    // After random edits, repaired fields hold the distances of a flood
+    // from scratch, and their directions lead down them
+    @Test
+    void repairedFieldsMatchRecompute() {
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            for (CornerCutting cornerCutting : CornerCutting.values()) {
+                Random random = new Random(51);
+                WalkableGrid grid = Grids.randomWithCosts(random, 24, 24, 0.25,
+                                                          5);
+                int target = Grids.randomCell(random, grid);
+                grid.setWalkable(grid.row(target), grid.column(target), true);
+                FlowField field = new FlowField(grid, target, neighborhood,
+                                                cornerCutting);
+
+                for (int round = 0; round < 100; round++) {
+                    Edits.apply(random, grid, 5);
+                    checkField(grid, field, neighborhood, cornerCutting);
+                }
+            }
+        }
+    }
+
+    private static void checkField(WalkableGrid grid, FlowField field,
+                                   Neighborhood neighborhood,
+                                   CornerCutting cornerCutting) {
+        int[] expected = Reference.distancesTo(grid, field.getTarget(),
+                                               neighborhood, cornerCutting);
+        for (int row = 0; row < grid.getNumRows(); row++) {
+            for (int column = 0; column < grid.getNumColumns(); column++) {
+                int cell = grid.index(row, column);
+                String message = neighborhood + " " + cornerCutting +
+                                 " cell " + row + ", " + column;
+                int distance = expected[cell] == Reference.UNREACHABLE
+                        ? FlowField.UNREACHABLE : expected[cell];
+                assertEquals(distance, field.getDistance(cell), message);
+
+                // One step along the field costs the difference
+                if (!field.isReachable(cell) || cell == field.getTarget()) {
+                    continue;
+                }
+                int next = field.nextCell(cell);
+                assertTrue(next >= 0, message);
+                int move = field.getDirection(cell);
+                assertTrue(Reference.canMove(grid, row, column, move,
+                                             neighborhood, cornerCutting),
+                           message);
+                assertEquals(field.getDistance(cell),
+                             field.getDistance(next) +
+                             Reference.moveCost(move) * grid.getCost(next),
+                             message);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.oosubhisara.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Random grids and queries shared by the tests
+final class Grids {
+    private Grids() {
+    }
+
+    // Grid whose cells are walls with the given probability
+    static WalkableGrid random(Random random, int numRows, int numColumns,
+                               double wallDensity) {
+        WalkableGrid grid = new WalkableGrid(numRows, numColumns);
+        for (int row = 0; row < numRows; row++) {
+            for (int column = 0; column < numColumns; column++) {
+                grid.setWalkable(row, column,
+                                 random.nextDouble() >= wallDensity);
+            }
+        }
+        return grid;
+    }
+
+    // As above, with walkable cells costing from 1 to maxCost
+    static WalkableGrid randomWithCosts(Random random, int numRows,
+                                        int numColumns, double wallDensity,
+                                        int maxCost) {
+        WalkableGrid grid = random(random, numRows, numColumns, wallDensity);
+        for (int row = 0; row < numRows; row++) {
+            for (int column = 0; column < numColumns; column++) {
+                grid.setCost(row, column, 1 + random.nextInt(maxCost));
+            }
+        }
+        return grid;
+    }
+
+    static int randomCell(Random random, WalkableGrid grid) {
+        return grid.index(random.nextInt(grid.getNumRows()),
+                          random.nextInt(grid.getNumColumns()));
+    }
+
+    // Queries between walkable cells
+    static List<PathQuery> queries(Random random, WalkableGrid grid,
+                                   int count) {
+        List<PathQuery> queries = new ArrayList<PathQuery>();
+        while (queries.size() < count) {
+            int start = randomCell(random, grid);
+            int target = randomCell(random, grid);
+            if (grid.isWalkable(start) && grid.isWalkable(target)) {
+                queries.add(new PathQuery(start, target));
+            }
+        }
+        return queries;
+    }
+}
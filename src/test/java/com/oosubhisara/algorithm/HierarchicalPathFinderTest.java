@@ -0,0 +1,71 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class HierarchicalPathFinderTest {
+    private static final int CLUSTER_SIZE = 8;
+
+    // After random single and batched edits, the clusters rebuilt before
+    // the next query give the abstract graph, and so the costs, of a build
+    // from scratch. Refined paths are legal and never beat the shortest.
+    @Test
+    void rebuiltClustersMatchBuildFromScratch() {
+        Random random = new Random(81);
+        WalkableGrid grid = Grids.random(random, 40, 40, 0.25);
+        HierarchicalPathFinder pathFinder =
+                new HierarchicalPathFinder(grid, CLUSTER_SIZE);
+        SearchWorkspace workspace = new SearchWorkspace();
+        SearchWorkspace freshWorkspace = new SearchWorkspace();
+
+        for (int round = 0; round < 150; round++) {
+            // Every step costs the same to HPA*, so only walls change
+            Edits.apply(random, grid, 1);
+            HierarchicalPathFinder fresh =
+                    new HierarchicalPathFinder(grid.snapshot(), CLUSTER_SIZE);
+
+            for (PathQuery query : Grids.queries(random, grid, 10)) {
+                int start = query.start;
+                int target = query.target;
+                String message = "round " + round + " " + query;
+                int expected = Reference.cost(grid, start, target,
+                        Neighborhood.FOUR, CornerCutting.FORBID);
+
+                boolean found = pathFinder.findPath(start, target, workspace);
+                assertEquals(expected != Reference.UNREACHABLE, found,
+                             message);
+                if (!found) continue;
+
+                Reference.checkPath(grid, workspace, start, target,
+                        Neighborhood.FOUR, CornerCutting.FORBID);
+                assertTrue(workspace.getPathCost() >= expected, message);
+                fresh.findPath(start, target, freshWorkspace);
+                assertEquals(freshWorkspace.getPathCost(),
+                             workspace.getPathCost(), message);
+            }
+            // Nodes freed by the rebuilds are all reused or back in the pool
+            assertEquals(fresh.getNumNodes(), pathFinder.getNumNodes(),
+                         "round " + round);
+        }
+    }
+
+    @Test
+    void pathsWithinOneClusterAreShortest() {
+        WalkableGrid grid = Grids.random(new Random(0), 16, 16, 0);
+        HierarchicalPathFinder pathFinder =
+                new HierarchicalPathFinder(grid, CLUSTER_SIZE);
+        SearchWorkspace workspace = new SearchWorkspace();
+
+        assertTrue(pathFinder.findPath(grid.index(1, 1), grid.index(6, 3),
+                                       workspace));
+        assertEquals(7 * PathFinder.STRAIGHT_COST, workspace.getPathCost());
+        grid.setWalkable(3, 3, false);
+        assertTrue(pathFinder.findPath(grid.index(3, 2), grid.index(3, 4),
+                                       workspace));
+        assertEquals(4 * PathFinder.STRAIGHT_COST, workspace.getPathCost());
+    }
+}
@@ -0,0 +1,41 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IncrementalPlannerTest {
+    // Replans after random edits cost what a search from scratch does
+    @Test
+    void repairedPlansMatchRecompute() {
+        Random random = new Random(41);
+        WalkableGrid grid = Grids.randomWithCosts(random, 30, 30, 0.25, 5);
+        IncrementalPlanner planner = new IncrementalPlanner(grid);
+        SearchWorkspace workspace = new SearchWorkspace();
+        int target = Grids.randomCell(random, grid);
+
+        for (int round = 0; round < 300; round++) {
+            if (random.nextInt(20) == 0) {
+                target = Grids.randomCell(random, grid);
+            }
+            int start = Grids.randomCell(random, grid);
+            if (!grid.isWalkable(start)) continue;
+
+            int expected = Reference.cost(grid, start, target,
+                    Neighborhood.FOUR, CornerCutting.FORBID);
+            boolean found = planner.findPath(start, target, workspace);
+            assertEquals(expected != Reference.UNREACHABLE, found,
+                         "round " + round);
+            if (found) {
+                Reference.checkPath(grid, workspace, start, target,
+                        Neighborhood.FOUR, CornerCutting.FORBID);
+                assertEquals(expected, workspace.getPathCost(),
+                             "round " + round);
+            }
+
+            Edits.apply(random, grid, 5);
+        }
+    }
+}
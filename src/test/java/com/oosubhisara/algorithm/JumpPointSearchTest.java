@@ -0,0 +1,15 @@
+package com.oosubhisara.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+public class JumpPointSearchTest {
+    // Jump points assume every tile costs the same, and never cut corners
+    @Test
+    void matchesReference() {
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            Reference.checkPathFinder(6, false, neighborhood,
+                    CornerCutting.FORBID,
+                    grid -> new JumpPointSearch(grid, neighborhood));
+        }
+    }
+}
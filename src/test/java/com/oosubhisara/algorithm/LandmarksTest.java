@@ -0,0 +1,65 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LandmarksTest {
+    @Test
+    void altMatchesReference() {
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            for (CornerCutting cornerCutting : CornerCutting.values()) {
+                Reference.checkPathFinder(4, true, neighborhood,
+                        cornerCutting,
+                        grid -> new AStar(grid, neighborhood, cornerCutting,
+                                Reference.heuristicFor(neighborhood),
+                                Landmarks.compute(grid,
+                                        Landmarks.DEFAULT_COUNT,
+                                        neighborhood, cornerCutting)));
+            }
+        }
+    }
+
+    @Test
+    void savedTablesAreLoadedBack() throws IOException {
+        WalkableGrid grid = Grids.random(new Random(31), 20, 20, 0.2);
+        Path mapPath = Files.createTempDirectory("landmarks").resolve("map");
+
+        Landmarks computed = Landmarks.loadOrCompute(mapPath, grid, 4,
+                Neighborhood.FOUR, CornerCutting.FORBID);
+        assertTrue(Files.exists(Landmarks.pathFor(mapPath)));
+        Landmarks loaded = Landmarks.loadOrCompute(mapPath, grid, 4,
+                Neighborhood.FOUR, CornerCutting.FORBID);
+        assertEquals(computed.getCount(), loaded.getCount());
+        assertTrue(loaded.isCurrent(grid));
+    }
+
+    @Test
+    void failedSaveIsHandedToCaller() throws IOException {
+        WalkableGrid grid = Grids.random(new Random(32), 20, 20, 0.2);
+        Path mapPath = Files.createTempDirectory("landmarks").resolve("map");
+        // A directory where the tables would go cannot be written over
+        Files.createDirectory(Landmarks.pathFor(mapPath));
+
+        List<IOException> failures = new ArrayList<IOException>();
+        Landmarks landmarks = Landmarks.loadOrCompute(mapPath, grid, 4,
+                Neighborhood.FOUR, CornerCutting.FORBID, failures::add);
+        assertNotNull(landmarks);
+        assertEquals(1, failures.size());
+
+        assertThrows(UncheckedIOException.class,
+                     () -> Landmarks.loadOrCompute(mapPath, grid, 4,
+                             Neighborhood.FOUR, CornerCutting.FORBID));
+    }
+}
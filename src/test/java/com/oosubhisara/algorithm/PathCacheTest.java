@@ -0,0 +1,152 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class PathCacheTest {
+    private static PathCache cacheOn(WalkableGrid grid) {
+        return new PathCache(new Dijkstra(grid, Neighborhood.FOUR,
+                                          CornerCutting.FORBID));
+    }
+
+    @Test
+    void wallDropsOnlyPathsThroughIt() {
+        WalkableGrid grid = Grids.random(new Random(0), 20, 20, 0);
+        PathCache cache = cacheOn(grid);
+        SearchWorkspace workspace = new SearchWorkspace();
+        int topStart = grid.index(2, 0);
+        int topTarget = grid.index(2, 19);
+        int bottomStart = grid.index(17, 0);
+        int bottomTarget = grid.index(17, 19);
+        cache.findPath(topStart, topTarget, workspace);
+        cache.findPath(bottomStart, bottomTarget, workspace);
+
+        grid.setWalkable(2, 10, false);
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(1, cache.size());
+
+        long hits = cache.getHits();
+        assertTrue(cache.findPath(bottomStart, bottomTarget, workspace));
+        assertEquals(hits + 1, cache.getHits());
+        assertTrue(cache.findPath(topStart, topTarget, workspace));
+        assertEquals(hits + 1, cache.getHits());
+        assertEquals(21 * PathFinder.STRAIGHT_COST, workspace.getPathCost());
+    }
+
+    @Test
+    void openedCellDropsUnreachablePairsAndPathsItMayShorten() {
+        WalkableGrid grid = Grids.random(new Random(0), 20, 20, 0);
+        for (int row = 0; row < 20; row++) {
+            grid.setWalkable(row, 10, false);
+        }
+        PathCache cache = cacheOn(grid);
+        SearchWorkspace workspace = new SearchWorkspace();
+        // One pair cut off by the wall, one far from it
+        int cutOffStart = grid.index(0, 0);
+        int cutOffTarget = grid.index(0, 19);
+        int farStart = grid.index(5, 0);
+        int farTarget = grid.index(5, 5);
+        assertFalse(cache.findPath(cutOffStart, cutOffTarget, workspace));
+        assertTrue(cache.findPath(farStart, farTarget, workspace));
+
+        grid.setWalkable(0, 10, true);
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(1, cache.size());
+        long hits = cache.getHits();
+        assertTrue(cache.findPath(farStart, farTarget, workspace));
+        assertEquals(hits + 1, cache.getHits());
+
+        // Around the wall by the gap at the top, until one opens beside it
+        int detourStart = grid.index(19, 9);
+        int detourTarget = grid.index(19, 11);
+        assertTrue(cache.findPath(detourStart, detourTarget, workspace));
+        assertEquals(40 * PathFinder.STRAIGHT_COST, workspace.getPathCost());
+        grid.setWalkable(19, 10, true);
+        assertEquals(2, cache.getInvalidations());
+        assertEquals(1, cache.size());
+        assertTrue(cache.findPath(detourStart, detourTarget, workspace));
+        assertEquals(2 * PathFinder.STRAIGHT_COST, workspace.getPathCost());
+    }
+
+    // Whatever the edits, the cache answers as a search from scratch would
+    @Test
+    void cacheNeverServesStalePaths() {
+        Random random = new Random(61);
+        WalkableGrid grid = Grids.randomWithCosts(random, 24, 24, 0.25, 5);
+        PathCache cache = new PathCache(new AStar(grid, Neighborhood.EIGHT,
+                CornerCutting.FORBID, Heuristic.OCTILE, null));
+        SearchWorkspace workspace = new SearchWorkspace();
+        List<PathQuery> queries = Grids.queries(random, grid, 30);
+
+        for (int round = 0; round < 60; round++) {
+            for (PathQuery query : queries) {
+                int expected = Reference.cost(grid, query.start, query.target,
+                        Neighborhood.EIGHT, CornerCutting.FORBID);
+                boolean found = cache.findPath(query.start, query.target,
+                                               workspace);
+                assertEquals(expected != Reference.UNREACHABLE, found);
+                if (found) {
+                    assertEquals(expected, workspace.getPathCost());
+                }
+            }
+            Edits.apply(random, grid, 5);
+        }
+        assertTrue(cache.getHits() > 0);
+        assertTrue(cache.getInvalidations() > 0);
+    }
+
+    // A result that an edit overtook while it was searched is not kept
+    @Test
+    void editDuringSearchDropsResult() {
+        WalkableGrid grid = Grids.random(new Random(0), 10, 10, 0);
+        Dijkstra dijkstra = new Dijkstra(grid, Neighborhood.FOUR,
+                                         CornerCutting.FORBID);
+        PathCache cache = new PathCache(new PathFinder() {
+            @Override
+            public WalkableGrid getGrid() {
+                return grid;
+            }
+
+            @Override
+            public boolean findPath(int start, int target,
+                                    SearchWorkspace workspace) {
+                boolean found = dijkstra.findPath(start, target, workspace);
+                grid.setWalkable(9, 9, !grid.isWalkable(9, 9));
+                return found;
+            }
+        });
+        SearchWorkspace workspace = new SearchWorkspace();
+
+        assertTrue(cache.findPath(grid.index(0, 0), grid.index(0, 5),
+                                  workspace));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMisses());
+    }
+
+    // Any-angle paths cost less than the octile distance, so an opening
+    // far from the diagonal still drops the paths it shortens
+    @Test
+    void openingDropsAnyAnglePathsItShortens() {
+        WalkableGrid grid = Grids.random(new Random(0), 41, 81, 0);
+        for (int column = 0; column < 81; column++) {
+            if (column != 60) grid.setWalkable(20, column, false);
+        }
+        PathCache cache = new PathCache(new ThetaStar(grid));
+        SearchWorkspace workspace = new SearchWorkspace();
+        int start = grid.index(0, 0);
+        int target = grid.index(40, 80);
+        assertTrue(cache.findPath(start, target, workspace));
+        int cost = workspace.getPathCost();
+
+        grid.setWalkable(20, 40, true);
+        assertEquals(0, cache.size());
+        assertTrue(cache.findPath(start, target, workspace));
+        assertTrue(workspace.getPathCost() < cost);
+    }
+}
@@ -0,0 +1,176 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.Function;
+
+// Plain Dijkstra by rows and columns, sharing no code with the path
+// finders, for the tests to check them against
+final class Reference {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int[] ROW_OFFSETS = { -1, 0, 1, 0, -1, 1, 1, -1 };
+    private static final int[] COLUMN_OFFSETS = { 0, 1, 0, -1, 1, 1, -1, -1 };
+
+    private static final int NUM_GRIDS = 8;
+    private static final int NUM_QUERIES = 40;
+    private static final int SIZE = 32;
+
+    private Reference() {
+    }
+
+    // Checks the path finders made by factory on random grids of unit cost
+    // tiles, or of tiles costing up to 5 when withCosts: the same pairs are
+    // found as here, at the same cost, along legal moves
+    static void checkPathFinder(long seed, boolean withCosts,
+                                Neighborhood neighborhood,
+                                CornerCutting cornerCutting,
+                                Function<WalkableGrid, PathFinder> factory) {
+        Random random = new Random(seed);
+        for (int g = 0; g < NUM_GRIDS; g++) {
+            WalkableGrid grid = withCosts
+                    ? Grids.randomWithCosts(random, SIZE, SIZE, 0.3, 5)
+                    : Grids.random(random, SIZE, SIZE, 0.3);
+            PathFinder pathFinder = factory.apply(grid);
+            SearchWorkspace workspace = new SearchWorkspace();
+
+            for (PathQuery query : Grids.queries(random, grid, NUM_QUERIES)) {
+                int start = query.start;
+                int target = query.target;
+                int expected = cost(grid, start, target, neighborhood,
+                                    cornerCutting);
+                String message = String.format("%s %s %d -> %d",
+                        neighborhood, cornerCutting, start, target);
+
+                boolean found = pathFinder.findPath(start, target, workspace);
+                assertEquals(expected != UNREACHABLE, found, message);
+                if (found) {
+                    checkPath(grid, workspace, start, target, neighborhood,
+                              cornerCutting);
+                    assertEquals(expected, workspace.getPathCost(), message);
+                }
+            }
+        }
+    }
+
+    static Heuristic heuristicFor(Neighborhood neighborhood) {
+        return neighborhood == Neighborhood.FOUR ? Heuristic.MANHATTAN
+                                                 : Heuristic.OCTILE;
+    }
+
+    // Cost from every cell to target, by grid index, or UNREACHABLE
+    static int[] distancesTo(WalkableGrid grid, int target,
+                             Neighborhood neighborhood,
+                             CornerCutting cornerCutting) {
+        int[] distances = new int[grid.size()];
+        Arrays.fill(distances, UNREACHABLE);
+        if (!grid.isWalkable(target)) return distances;
+
+        // Entries of distance and cell, stale ones skipped when taken
+        PriorityQueue<long[]> open = new PriorityQueue<long[]>(
+                (a, b) -> Long.compare(a[0], b[0]));
+        distances[target] = 0;
+        open.add(new long[] { 0, target });
+        while (!open.isEmpty()) {
+            long[] entry = open.poll();
+            int cell = (int) entry[1];
+            if (entry[0] > distances[cell]) continue;
+
+            int row = grid.row(cell);
+            int column = grid.column(cell);
+            for (int i = 0; i < neighborhood.getNumMoves(); i++) {
+                int fromRow = row - ROW_OFFSETS[i];
+                int fromColumn = column - COLUMN_OFFSETS[i];
+                if (!canMove(grid, fromRow, fromColumn, i, neighborhood,
+                             cornerCutting)) {
+                    continue;
+                }
+
+                int from = grid.index(fromRow, fromColumn);
+                int distance = distances[cell] +
+                               moveCost(i) * grid.getCost(cell);
+                if (distance < distances[from]) {
+                    distances[from] = distance;
+                    open.add(new long[] { distance, from });
+                }
+            }
+        }
+        return distances;
+    }
+
+    static int cost(WalkableGrid grid, int start, int target,
+                    Neighborhood neighborhood, CornerCutting cornerCutting) {
+        return distancesTo(grid, target, neighborhood, cornerCutting)[start];
+    }
+
+    // Whether move i from the cell lands on a walkable cell, past walls the
+    // corner cutting allows
+    static boolean canMove(WalkableGrid grid, int row, int column, int i,
+                           Neighborhood neighborhood,
+                           CornerCutting cornerCutting) {
+        if (i < 0 || i >= neighborhood.getNumMoves()) return false;
+        if (!isWalkable(grid, row, column)) return false;
+
+        int toRow = row + ROW_OFFSETS[i];
+        int toColumn = column + COLUMN_OFFSETS[i];
+        if (!isWalkable(grid, toRow, toColumn)) return false;
+        if (i < 4) return true;
+
+        boolean rowSide = isWalkable(grid, toRow, column);
+        boolean columnSide = isWalkable(grid, row, toColumn);
+        switch (cornerCutting) {
+            case FORBID: return rowSide && columnSide;
+            case FORBID_THROUGH_WALLS: return rowSide || columnSide;
+            default: return true;
+        }
+    }
+
+    static boolean isWalkable(WalkableGrid grid, int row, int column) {
+        return grid.contains(row, column) && grid.isWalkable(row, column);
+    }
+
+    static int moveCost(int i) {
+        return i < 4 ? PathFinder.STRAIGHT_COST : PathFinder.DIAGONAL_COST;
+    }
+
+    // Checks that the path in workspace runs from start to target by moves
+    // of the neighbourhood, and that its cost adds up
+    static void checkPath(WalkableGrid grid, SearchWorkspace workspace,
+                          int start, int target, Neighborhood neighborhood,
+                          CornerCutting cornerCutting) {
+        int[] path = workspace.getPath();
+        int length = workspace.getPathLength();
+        assertTrue(length > 0, "empty path");
+        assertEquals(start, path[0], "path start");
+        assertEquals(target, path[length - 1], "path end");
+
+        int cost = 0;
+        for (int i = 1; i < length; i++) {
+            int move = moveBetween(grid, path[i - 1], path[i]);
+            assertTrue(canMove(grid, grid.row(path[i - 1]),
+                               grid.column(path[i - 1]), move, neighborhood,
+                               cornerCutting),
+                       () -> "illegal move in " + Arrays.toString(
+                               Arrays.copyOf(path, length)));
+            cost += moveCost(move) * grid.getCost(path[i]);
+        }
+        assertEquals(cost, workspace.getPathCost(), "path cost");
+    }
+
+    // Index of the move from one cell to the other, or -1 if they are not
+    // neighbours
+    private static int moveBetween(WalkableGrid grid, int from, int to) {
+        int rowStep = grid.row(to) - grid.row(from);
+        int columnStep = grid.column(to) - grid.column(from);
+        for (int i = 0; i < ROW_OFFSETS.length; i++) {
+            if (ROW_OFFSETS[i] == rowStep && COLUMN_OFFSETS[i] == columnStep) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,45 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SnapshotPublisherTest {
+    @Test
+    void snapshotIsTakenOnlyWhenReadAfterChange() {
+        WalkableGrid grid = Grids.random(new Random(31), 10, 10, 0);
+        SnapshotPublisher snapshots = new SnapshotPublisher(grid);
+        WalkableGrid first = snapshots.get();
+        assertSame(first, snapshots.get());
+
+        grid.setWalkable(2, 3, false);
+        grid.setCost(4, 4, 3);
+        WalkableGrid second = snapshots.get();
+        assertNotSame(first, second);
+        assertSame(second, snapshots.get());
+        assertTrue(first.isWalkable(2, 3));
+        assertFalse(second.isWalkable(2, 3));
+        assertEquals(3, second.getCost(4, 4));
+        assertEquals(grid.getVersion(), second.getVersion());
+    }
+
+    @Test
+    void committedEditIsPublished() {
+        WalkableGrid grid = Grids.random(new Random(32), 10, 10, 0);
+        SnapshotPublisher snapshots = new SnapshotPublisher(grid);
+        WalkableGrid.Edit edit = grid.edit();
+        edit.setWalkable(1, 1, false);
+        edit.setWalkable(1, 2, false);
+        assertTrue(snapshots.get().isWalkable(1, 1));
+
+        edit.commit();
+        assertFalse(snapshots.get().isWalkable(1, 1));
+        assertFalse(snapshots.get().isWalkable(1, 2));
+    }
+}
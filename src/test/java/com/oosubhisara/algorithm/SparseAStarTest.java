@@ -0,0 +1,53 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SparseAStarTest {
+    private static final int SIZE = 120;
+
+    // Long searches grow the state far past what the short ones between
+    // them reach, and no search finds anything left over by the last
+    @Test
+    void longAndShortSearchesMatchReference() {
+        Random random = new Random(91);
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            WalkableGrid grid = Grids.random(random, SIZE, SIZE, 0.3);
+            SparseAStar search = new SparseAStar(grid, neighborhood,
+                    CornerCutting.FORBID, Reference.heuristicFor(neighborhood),
+                    SparseAStar.DEFAULT_NODE_LIMIT);
+
+            for (int i = 0; i < 40; i++) {
+                int start = Grids.randomCell(random, grid);
+                int target = i % 2 == 0
+                        ? Grids.randomCell(random, grid)
+                        : nearby(random, grid, start);
+                if (!grid.isWalkable(start)) continue;
+
+                int expected = Reference.cost(grid, start, target,
+                        neighborhood, CornerCutting.FORBID);
+                long[] path = search.findPath(grid.row(start),
+                        grid.column(start), grid.row(target),
+                        grid.column(target));
+                String message = neighborhood + " query " + i;
+                assertEquals(expected != Reference.UNREACHABLE,
+                             path.length > 0, message);
+                if (path.length > 0) {
+                    assertEquals(expected, search.getCost(), message);
+                }
+            }
+        }
+    }
+
+    // A cell at most 3 rows and columns away, inside the grid
+    private static int nearby(Random random, WalkableGrid grid, int cell) {
+        int row = Math.max(0, Math.min(SIZE - 1,
+                grid.row(cell) + random.nextInt(7) - 3));
+        int column = Math.max(0, Math.min(SIZE - 1,
+                grid.column(cell) + random.nextInt(7) - 3));
+        return grid.index(row, column);
+    }
+}
@@ -0,0 +1,50 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ThetaStarTest {
+    // Theta* paths are waypoints joined by clear lines, so they are checked
+    // for those and for being no dearer than the shortest grid path
+    @Test
+    void pathsAreClearAndNoDearerThanGridPaths() {
+        Random random = new Random(7);
+        for (CornerCutting cornerCutting : CornerCutting.values()) {
+            for (int g = 0; g < 8; g++) {
+                WalkableGrid grid = Grids.random(random, 32, 32, 0.3);
+                ThetaStar thetaStar = new ThetaStar(grid, Neighborhood.EIGHT,
+                                                    cornerCutting);
+                LineOfSight lineOfSight = new LineOfSight(grid, cornerCutting);
+                SearchWorkspace workspace = new SearchWorkspace();
+
+                for (PathQuery query : Grids.queries(random, grid, 40)) {
+                    int start = query.start;
+                    int target = query.target;
+                    int expected = Reference.cost(grid, start, target,
+                            Neighborhood.EIGHT, cornerCutting);
+
+                    boolean found = thetaStar.findPath(start, target,
+                                                       workspace);
+                    assertEquals(expected != Reference.UNREACHABLE, found);
+                    if (!found) continue;
+
+                    int[] path = workspace.getPath();
+                    int length = workspace.getPathLength();
+                    assertEquals(start, path[0]);
+                    assertEquals(target, path[length - 1]);
+                    int cost = 0;
+                    for (int i = 1; i < length; i++) {
+                        assertTrue(lineOfSight.isClear(path[i - 1], path[i]));
+                        cost += lineOfSight.cost(path[i - 1], path[i]);
+                    }
+                    assertEquals(cost, workspace.getPathCost());
+                    assertTrue(cost <= expected);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.oosubhisara.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class WalkableGridTest {
+    // Copies of snapshots follow the walls and costs of the grid edited,
+    // whether either side has costs yet, and edits of the copy itself are
+    // undone by the next copy
+    @Test
+    void copyFromMatchesSnapshots() {
+        Random random = new Random(81);
+        WalkableGrid grid = Grids.random(random, 20, 30, 0.3);
+        WalkableGrid copy = new WalkableGrid(20, 30);
+
+        for (int round = 0; round < 80; round++) {
+            copy.copyFrom(grid.snapshot());
+            assertSameCells(grid, copy, round);
+
+            Edits.apply(random, grid, 4);
+            if (round % 5 == 0) {
+                copy.setCost(random.nextInt(20), random.nextInt(30), 2);
+            }
+        }
+    }
+
+    @Test
+    void copyFromClearsCostsOfGridWithout() {
+        WalkableGrid grid = Grids.random(new Random(82), 10, 10, 0);
+        WalkableGrid copy = Grids.random(new Random(82), 10, 10, 0);
+        copy.setCost(3, 4, 7);
+        copy.copyFrom(grid.snapshot());
+        assertEquals(1, copy.getCost(3, 4));
+
+        grid.setCost(5, 5, 3);
+        copy.copyFrom(grid.snapshot());
+        assertEquals(3, copy.getCost(5, 5));
+    }
+
+    private static void assertSameCells(WalkableGrid expected,
+                                        WalkableGrid actual, int round) {
+        for (int row = 0; row < expected.getNumRows(); row++) {
+            for (int column = 0; column < expected.getNumColumns();
+                    column++) {
+                String message = "round " + round + " at " + row + ", " +
+                                 column;
+                assertEquals(expected.isWalkable(row, column),
+                             actual.isWalkable(row, column), message);
+                assertEquals(expected.getCost(row, column),
+                             actual.getCost(row, column), message);
+            }
+        }
+    }
+}
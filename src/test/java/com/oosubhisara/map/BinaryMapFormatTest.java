@@ -0,0 +1,141 @@
+package com.oosubhisara.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.oosubhisara.algorithm.WalkableGrid;
+
+public class BinaryMapFormatTest {
+    private static Path tempMap() throws IOException {
+        Path path = Files.createTempFile("map", BinaryMapFormat.EXTENSION);
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    private static TileMap sampleMap() {
+        TileMap map = new TileMap(5, 70);
+        TileMap.Edit edit = map.edit();
+        edit.setAt(0, 0, TextMapFormat.TILE_START);
+        edit.setAt(4, 69, TextMapFormat.TILE_TARGET);
+        edit.setAt(2, 3, TextMapFormat.TILE_WALL);
+        edit.setAt(2, 65, TextMapFormat.TILE_MUD);
+        edit.commit();
+        return map;
+    }
+
+    // A valid map in the encoding, as bytes to break
+    private static byte[] sampleBytes(BinaryMapFormat.Encoding encoding)
+            throws IOException {
+        Path path = tempMap();
+        BinaryMapFormat.write(path, sampleMap(), encoding);
+        return Files.readAllBytes(path);
+    }
+
+    private static void assertRejected(byte[] bytes, String reason)
+            throws IOException {
+        Path path = tempMap();
+        Files.write(path, bytes);
+        IOException e = assertThrows(IOException.class,
+                                     () -> BinaryMapFormat.open(path));
+        assertTrue(e.getMessage().contains(reason), e.getMessage());
+    }
+
+    private static ByteBuffer header(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    void bothEncodingsReadBackWhatWasWritten() throws IOException {
+        for (BinaryMapFormat.Encoding encoding :
+                BinaryMapFormat.Encoding.values()) {
+            Path path = tempMap();
+            BinaryMapFormat.write(path, sampleMap(), encoding);
+            TileMap map = TileMap.load(path);
+            WalkableGrid grid = map.getWalkableGrid();
+
+            assertEquals(5, map.getNumRows());
+            assertEquals(70, map.getNumColumns());
+            assertEquals(TextMapFormat.TILE_START, map.getAt(0, 0));
+            assertEquals(TextMapFormat.TILE_TARGET, map.getAt(4, 69));
+            assertEquals(false, grid.isWalkable(2, 3));
+            assertEquals(true, grid.isWalkable(2, 65));
+            int mudCost = encoding == BinaryMapFormat.Encoding.BYTES
+                    ? TextMapFormat.MUD_COST : 1;
+            assertEquals(mudCost, grid.getCost(2, 65));
+        }
+    }
+
+    @Test
+    void rejectsShortOrForeignFiles() throws IOException {
+        assertRejected(new byte[0], "not a binary map");
+        assertRejected(new byte[BinaryMapFormat.HEADER_SIZE - 1],
+                       "not a binary map");
+
+        byte[] bytes = sampleBytes(BinaryMapFormat.Encoding.BITS);
+        bytes[0] = 'X';
+        assertRejected(bytes, "not a binary map");
+    }
+
+    @Test
+    void rejectsUnknownVersionAndEncoding() throws IOException {
+        byte[] bytes = sampleBytes(BinaryMapFormat.Encoding.BITS);
+        header(bytes).putShort(4, (short) 2);
+        assertRejected(bytes, "version 2");
+
+        bytes = sampleBytes(BinaryMapFormat.Encoding.BITS);
+        bytes[6] = 7;
+        assertRejected(bytes, "encoding 7");
+        bytes[6] = -1;
+        assertRejected(bytes, "encoding -1");
+    }
+
+    @Test
+    void rejectsInvalidSize() throws IOException {
+        for (int[] size : new int[][] { { 0, 70 }, { 5, 0 }, { -5, 70 } }) {
+            byte[] bytes = sampleBytes(BinaryMapFormat.Encoding.BYTES);
+            header(bytes).putInt(8, size[0]).putInt(12, size[1]);
+            assertRejected(bytes, "invalid size");
+        }
+    }
+
+    @Test
+    void rejectsTruncatedTiles() throws IOException {
+        for (BinaryMapFormat.Encoding encoding :
+                BinaryMapFormat.Encoding.values()) {
+            byte[] bytes = sampleBytes(encoding);
+            assertRejected(Arrays.copyOf(bytes, bytes.length - 1),
+                           "truncated");
+
+            // A size far past the end of the file, overflowing int
+            bytes = sampleBytes(encoding);
+            header(bytes).putInt(8, Integer.MAX_VALUE)
+                         .putInt(12, Integer.MAX_VALUE);
+            assertRejected(bytes, "truncated");
+        }
+    }
+
+    @Test
+    void rejectsUnknownTiles() throws IOException {
+        byte[] bytes = sampleBytes(BinaryMapFormat.Encoding.BYTES);
+        bytes[BinaryMapFormat.HEADER_SIZE + 70 + 2] = 7;
+        Path path = tempMap();
+        Files.write(path, bytes);
+
+        IOException e = assertThrows(IOException.class,
+                                     () -> TileMap.load(path));
+        assertTrue(e.getMessage().contains("unknown tile \\x07 in cell 1, 2"),
+                   e.getMessage());
+        assertThrows(IOException.class,
+                     () -> BinaryMapFormat.open(path).toWalkableGrid());
+    }
+}
@@ -0,0 +1,88 @@
+package com.oosubhisara.map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import com.oosubhisara.algorithm.WalkableGrid;
+
+public class TextMapReaderTest {
+    private static Path write(String text) throws IOException {
+        Path path = Files.createTempFile("map", ".txt");
+        path.toFile().deleteOnExit();
+        Files.write(path, text.getBytes(StandardCharsets.ISO_8859_1));
+        return path;
+    }
+
+    // Checks that reading fails, naming the line at fault
+    private static void assertRejected(String text, int line)
+            throws IOException {
+        Path path = write(text);
+        IOException e = assertThrows(IOException.class,
+                                     () -> TextMapFormat.readGrid(path));
+        assertTrue(e.getMessage().startsWith(path + ":" + line + ":"),
+                   e.getMessage());
+        assertThrows(IOException.class, () -> TileMap.load(path));
+    }
+
+    @Test
+    void readsTilesCostsAndLineEndings() throws IOException {
+        Path path = write("A.W\r\nMR~\n.WB\n\n\n");
+        TileMap map = TileMap.load(path);
+        WalkableGrid grid = map.getWalkableGrid();
+
+        assertEquals(3, map.getNumRows());
+        assertEquals(3, map.getNumColumns());
+        assertArrayEquals("MR~".toCharArray(), map.row(1));
+        assertFalse(grid.isWalkable(0, 2));
+        assertTrue(grid.isWalkable(2, 2));
+        assertEquals(TextMapFormat.MUD_COST, grid.getCost(1, 0));
+        assertEquals(TextMapFormat.WATER_COST, grid.getCost(1, 2));
+        assertEquals(grid.index(2, 2), map.findTile(TextMapFormat.TILE_TARGET));
+    }
+
+    @Test
+    void lastRowNeedsNoLineEnd() throws IOException {
+        WalkableGrid grid = TextMapFormat.readGrid(write("..\nW."));
+        assertEquals(2, grid.getNumRows());
+        assertFalse(grid.isWalkable(1, 0));
+    }
+
+    @Test
+    void rejectsEmptyMap() throws IOException {
+        assertRejected("", 1);
+        assertRejected("\n\n", 3);
+    }
+
+    @Test
+    void rejectsUnknownTile() throws IOException {
+        assertRejected("...\n.x.\n", 2);
+        assertRejected("...\n.\u00e9.\n", 2);
+    }
+
+    @Test
+    void rejectsRaggedRows() throws IOException {
+        assertRejected("...\n..\n...\n", 2);
+        assertRejected("...\n....\n", 2);
+    }
+
+    @Test
+    void rejectsBlankLineInsideMap() throws IOException {
+        assertRejected("...\n\n...\n", 2);
+        assertRejected("\n...\n", 1);
+    }
+
+    @Test
+    void rejectsCarriageReturnInsideRow() throws IOException {
+        assertRejected("..\r.\n", 1);
+    }
+}
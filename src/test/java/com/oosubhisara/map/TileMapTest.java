@@ -0,0 +1,44 @@
+package com.oosubhisara.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.oosubhisara.algorithm.GridListener;
+import com.oosubhisara.algorithm.WalkableGrid;
+
+public class TileMapTest {
+    @Test
+    void listenersSeeTheNewTiles() {
+        TileMap map = new TileMap(4, 4);
+        StringBuilder seen = new StringBuilder();
+        map.getWalkableGrid().addListener(new GridListener() {
+            @Override
+            public void cellChanged(WalkableGrid grid, int index) {
+                seen.append(map.getAt(grid.row(index), grid.column(index)));
+            }
+
+            @Override
+            public void cellsChanged(WalkableGrid grid, int[] indices,
+                                     int count) {
+                for (int i = 0; i < count; i++) {
+                    seen.append(map.getAt(grid.row(indices[i]),
+                                          grid.column(indices[i])));
+                }
+            }
+        });
+
+        TileMap.Edit edit = map.edit();
+        edit.setAt(1, 1, TextMapFormat.TILE_WALL);
+        edit.setAt(2, 2, TextMapFormat.TILE_WALL);
+        edit.commit();
+
+        assertEquals("" + TextMapFormat.TILE_WALL + TextMapFormat.TILE_WALL,
+                     seen.toString());
+        assertFalse(map.getWalkableGrid().isWalkable(1, 1));
+        assertTrue(map.getWalkableGrid().isWalkable(1, 2));
+        assertEquals(1, map.getVersion());
+    }
+}